@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs solves in the background and hands back a CompletableFuture.
+ * 
+ * The future completes with the solution, with null if the puzzle has no
+ * solution, or exceptionally with a LimitReachedException if the budget's node
+ * limit or deadline stopped the search. Cancelling the future cancels the budget,
+ * so the search stops at its next node instead of running on unseen.
+ * 
+ * While a solve runs, a shared timer thread samples its budget and reports the
+ * nodes searched, the current depth and the search rate to a progress callback.
+ */
+public class AsyncSolver {
+    private static final long DEFAULT_PROGRESS_INTERVAL_MILLIS = 100;
+
+    // One daemon thread samples the progress of every running solve.
+    private static final ScheduledExecutorService PROGRESS_TIMER = createTimer();
+
+    private final Executor executor;
+    private long progressIntervalNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_PROGRESS_INTERVAL_MILLIS);
+
+    /**
+     * A snapshot of a running search.
+     */
+    public static final class Progress {
+        private final long nodes;
+        private final int depth;
+        private final long elapsedNanos;
+        private final double nodesPerSecond;
+
+        Progress(long nodes, int depth, long elapsedNanos, double nodesPerSecond) {
+            this.nodes = nodes;
+            this.depth = depth;
+            this.elapsedNanos = elapsedNanos;
+            this.nodesPerSecond = nodesPerSecond;
+        }
+
+        /**
+         * @return The search nodes visited so far
+         */
+        public long getNodes() {
+            return nodes;
+        }
+
+        /**
+         * @return The branching depth the search is at
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * @return The time since the solve was submitted
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return The search rate since the previous report
+         */
+        public double getNodesPerSecond() {
+            return nodesPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d nodes, depth %d, %.0f nodes/s", nodes, depth, nodesPerSecond);
+        }
+    }
+
+    /**
+     * Thrown through the future when the budget stopped the search.
+     */
+    public static class LimitReachedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final SolveBudget.Limit limit;
+
+        public LimitReachedException(SolveBudget.Limit limit) {
+            super("The search was stopped by the " + limit + " limit");
+            this.limit = limit;
+        }
+
+        public SolveBudget.Limit getLimit() {
+            return limit;
+        }
+    }
+
+    /**
+     * Creates an async solver that runs solves on the common fork-join pool
+     */
+    public AsyncSolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an async solver
+     * @param executor Runs the solves
+     */
+    public AsyncSolver(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets how often progress callbacks are made
+     * @param interval The time between reports
+     * @param unit The unit of interval
+     */
+    public void setProgressInterval(long interval, TimeUnit unit) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("The progress interval must be positive");
+        }
+        this.progressIntervalNanos = unit.toNanos(interval);
+    }
+
+    /**
+     * Solves a puzzle in the background with a new Solver
+     * @param puzzle The puzzle; it is not modified
+     * @param budget The limits of the search, or null for none
+     * @param progress Receives progress reports on the timer thread, or null
+     * @return The solution, or null if there is none
+     */
+    public CompletableFuture<Board> solve(Board puzzle, SolveBudget budget, Consumer<Progress> progress) {
+        return solve(new Solver(), puzzle, budget, progress);
+    }
+
+    /**
+     * Solves a puzzle in the background with the given solver, whose stats can be
+     * read once the future has completed normally. The solver must not be used by
+     * anything else until then.
+     * @param solver The solver, with its search settings
+     * @param puzzle The puzzle; it is not modified
+     * @param budget The limits of the search, or null for none
+     * @param progress Receives progress reports on the timer thread, or null
+     * @return The solution, or null if there is none
+     */
+    public CompletableFuture<Board> solve(Solver solver, Board puzzle, SolveBudget budget,
+                                          Consumer<Progress> progress) {
+        SolveBudget limits = budget != null ? budget : new SolveBudget();
+        Board board = puzzle.copy();
+        long start = System.nanoTime();
+        CompletableFuture<Board> future = new CompletableFuture<>();
+
+        ScheduledFuture<?> reports = null;
+        if (progress != null) {
+            ProgressSampler sampler = new ProgressSampler(limits, start, progress);
+            reports = PROGRESS_TIMER.scheduleAtFixedRate(sampler, progressIntervalNanos,
+                                                         progressIntervalNanos, TimeUnit.NANOSECONDS);
+        }
+        ScheduledFuture<?> timer = reports;
+        future.whenComplete((solution, error) -> {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (future.isCancelled()) {
+                limits.cancel();
+            }
+        });
+
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            SolveBudget previous = solver.getBudget();
+            Board solution;
+            try {
+                solver.setBudget(limits);
+                solution = solver.solve(board);
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+                return;
+            } finally {
+                // Hand the solver back with the budget its owner had set, before the future says it is free.
+                solver.setBudget(previous);
+            }
+            SolveBudget.Limit limit = limits.getLimitReached();
+            if (solution == null && limit != null) {
+                future.completeExceptionally(new LimitReachedException(limit));
+            } else {
+                future.complete(solution);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Reports the progress of one solve from the timer thread.
+     */
+    private static final class ProgressSampler implements Runnable {
+        private final SolveBudget budget;
+        private final long start;
+        private final Consumer<Progress> progress;
+        private long lastNodes = 0;
+        private long lastTime;
+
+        ProgressSampler(SolveBudget budget, long start, Consumer<Progress> progress) {
+            this.budget = budget;
+            this.start = start;
+            this.progress = progress;
+            this.lastTime = start;
+        }
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            long nodes = budget.getNodes();
+            double rate = now > lastTime ? (nodes - lastNodes) * 1e9 / (now - lastTime) : 0;
+            lastNodes = nodes;
+            lastTime = now;
+            try {
+                progress.accept(new Progress(nodes, budget.getDepth(), now - start, rate));
+            } catch (RuntimeException e) {
+                // A failing callback must not stop the reports of other solves.
+            }
+        }
+    }
+
+    private static ScheduledExecutorService createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "solve-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+}
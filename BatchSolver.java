@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+/**
+ * This is a headless entry point that solves a file of puzzles.
+ * 
+ * Each input line holds one puzzle of 81 characters, with '.', '0' or '_' for
+ * blanks. Each output line holds the solution of the puzzle on the same input
+ * line, "unsolvable" if it has none, or "invalid" if the line is not a puzzle.
+ * Blank input lines are skipped. Puzzles are streamed one line at a time, so
+ * memory use does not depend on the size of the input. With more than one
+ * thread, a bounded window of puzzles is solved in parallel and the solutions are
+ * still written in input order.
+ * 
+ * With -m, the input and output files are memory-mapped instead. Puzzles are parsed
+ * straight from the mapped bytes, and with more than one thread the input is split
+ * into chunks on line boundaries that the threads read and solve independently.
+ * On Windows, which cannot truncate a mapped file, the output is written through
+ * the file channel instead; see MappedSolutionWriter.
+ * 
+ * With -c, the solver engine shares a SolutionCache of that many entries, so
+ * puzzles that are symmetries of earlier ones are not searched again.
+ */
+public class BatchSolver {
+    private static final String USAGE =
+            "Usage: java BatchSolver [-e solver|learning|dlx|sliced|portfolio] [-t threads] [-c cache-entries] [-m] [-o output-file] [input-file]";
+    private static final int BUFFER_SIZE = 1 << 16;
+    // The size of the chunks that a mapped input file is split into for parallel solving.
+    private static final long CHUNK_SIZE = 1 << 20;
+
+    private final Supplier<SudokuEngine> engineFactory;
+    private final int threads;
+    private final char[] line = new char[Board.ROW_SIZE * Board.COL_SIZE + 1];
+    private long puzzles = 0;
+    private long unsolvable = 0;
+    private long invalid = 0;
+    private long steps = 0;
+    private long elapsedNanos = 0;
+
+    /**
+     * Creates a batch solver
+     * @param engineFactory Creates the engine for each solving thread
+     * @param threads The number of solving threads
+     */
+    public BatchSolver(Supplier<SudokuEngine> engineFactory, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("There must be at least one thread");
+        }
+        this.engineFactory = engineFactory;
+        this.threads = threads;
+        line[line.length - 1] = '\n';
+    }
+
+    /**
+     * Looks up an engine by name
+     * @param name "solver" for the backtracking Solver, "learning" for the Solver's
+     *             LEARNING search, "dlx" for Dancing Links, "sliced" for bit-sliced
+     *             propagation of many puzzles at once or "portfolio" for racing
+     *             several Solver configurations
+     * @return A factory for engines of that kind
+     */
+    public static Supplier<SudokuEngine> engineFactory(String name) {
+        switch (name) {
+            case "solver":
+                return Solver::new;
+            case "learning":
+                return () -> {
+                    Solver solver = new Solver();
+                    solver.setSearchMode(Solver.SearchMode.LEARNING);
+                    return solver;
+                };
+            case "dlx":
+                return DancingLinksSolver::new;
+            case "sliced":
+                return BitSlicedSolver::new;
+            case "portfolio":
+                // Every thread's engine learns from and routes by the same table.
+                PortfolioSolver.Routes routes = new PortfolioSolver.Routes(PortfolioSolver.DEFAULT_CONFIGURATIONS);
+                return () -> new PortfolioSolver(routes);
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + name);
+        }
+    }
+
+    /**
+     * Solves every puzzle read from the input and writes the results in the same order
+     * @param in The puzzles, one per line
+     * @param out Where to write the solutions
+     * @throws IOException if reading or writing fails
+     */
+    public void run(BufferedReader in, Writer out) throws IOException {
+        long start = System.nanoTime();
+        Iterator<Board> boards = in.lines()
+                .filter(text -> !text.trim().isEmpty())
+                .map(BatchSolver::parseOrNull)
+                .iterator();
+        if (threads == 1) {
+            try {
+                solveSequentially(boards, (puzzle, solution) -> record(puzzle, solution, 0, out));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } else {
+            try (ParallelBatchSolver parallel = new ParallelBatchSolver(engineFactory, threads)) {
+                parallel.solveAll(boards, true, result -> {
+                    try {
+                        record(result.getPuzzle(), result.getSolution(), result.getSteps(), out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        out.flush();
+        elapsedNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Solves every puzzle in a file through memory-mapped buffers and writes the
+     * results in the same order
+     * @param input The puzzles, one per line
+     * @param output The file to create or replace with the solutions
+     * @throws IOException if reading or writing fails
+     */
+    public void runMapped(Path input, Path output) throws IOException {
+        long start = System.nanoTime();
+        try (MappedPuzzleReader reader = new MappedPuzzleReader(input);
+             MappedSolutionWriter writer = new MappedSolutionWriter(output)) {
+            if (threads == 1) {
+                solveSequentially(reader.puzzles(), (puzzle, solution) -> {
+                    writer.write(puzzle, solution);
+                    count(puzzle, solution);
+                });
+            } else {
+                int parts = (int) Math.max(threads, Math.min(Integer.MAX_VALUE, reader.size() / CHUNK_SIZE));
+                try (ParallelBatchSolver parallel = new ParallelBatchSolver(engineFactory, threads)) {
+                    parallel.solveChunks(reader.split(parts), result -> {
+                        try {
+                            writer.write(result.getOutput());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        puzzles += result.getPuzzles();
+                        unsolvable += result.getUnsolvable();
+                        invalid += result.getInvalid();
+                        steps += result.getSteps();
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+        elapsedNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Receives each puzzle and its solution, in input order.
+     */
+    private interface Sink {
+        void accept(Board puzzle, Board solution) throws IOException;
+    }
+
+    /**
+     * Solves puzzles on the calling thread. A BitSlicedSolver is given them a
+     * block of LANES at a time; any other engine gets them one by one.
+     */
+    private void solveSequentially(Iterator<Board> boards, Sink sink) throws IOException {
+        SudokuEngine engine = engineFactory.get();
+        if (engine instanceof BitSlicedSolver) {
+            BitSlicedSolver sliced = (BitSlicedSolver) engine;
+            Board[] block = new Board[BitSlicedSolver.LANES];
+            Board[] solutions = new Board[BitSlicedSolver.LANES];
+            while (boards.hasNext()) {
+                int count = 0;
+                while (count < block.length && boards.hasNext()) {
+                    block[count++] = boards.next();
+                }
+                sliced.resetCounter();
+                sliced.solveAll(block, 0, count, solutions, 0);
+                steps += sliced.getCounter();
+                for (int i = 0; i < count; i++) {
+                    sink.accept(block[i], solutions[i]);
+                }
+            }
+            return;
+        }
+        while (boards.hasNext()) {
+            Board board = boards.next();
+            Board solution = null;
+            if (board != null) {
+                engine.resetCounter();
+                solution = engine.solve(board);
+                steps += engine.getCounter();
+            }
+            sink.accept(board, solution);
+        }
+    }
+
+    /**
+     * @return The puzzle on a line, or null if the line is not a valid puzzle
+     */
+    private static Board parseOrNull(String text) {
+        try {
+            return Board.parse(text.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void record(Board puzzle, Board solution, int steps, Writer out) throws IOException {
+        this.steps += steps;
+        count(puzzle, solution);
+        if (puzzle == null) {
+            out.write("invalid\n");
+        } else if (solution == null) {
+            out.write("unsolvable\n");
+        } else {
+            solution.getValues(line, 0);
+            out.write(line);
+        }
+    }
+
+    private void count(Board puzzle, Board solution) {
+        puzzles++;
+        if (puzzle == null) {
+            invalid++;
+        } else if (solution == null) {
+            unsolvable++;
+        }
+    }
+
+    public long getPuzzles() {
+        return puzzles;
+    }
+
+    public long getUnsolvable() {
+        return unsolvable;
+    }
+
+    public long getInvalid() {
+        return invalid;
+    }
+
+    /**
+     * @return The sum of the engines' step counters: placements and candidates
+     *         tried. Each engine counts its own kind of step, so totals are only
+     *         comparable between runs of the same engine.
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return A one-line throughput summary of everything solved so far
+     */
+    public String getSummary() {
+        double seconds = elapsedNanos / 1e9;
+        return String.format("%d puzzles in %.3f s (%.1f puzzles/s), %d unsolvable, %d invalid, %d steps",
+                puzzles, seconds, seconds > 0 ? puzzles / seconds : 0.0, unsolvable, invalid, steps);
+    }
+
+    public static void main(String[] args) {
+        String engineName = "solver";
+        int threads = 1;
+        String inputFile = null;
+        String outputFile = null;
+        boolean mapped = false;
+        int cacheEntries = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-e") && i + 1 < args.length) {
+                engineName = args[++i];
+            } else if (args[i].equals("-t") && i + 1 < args.length) {
+                try {
+                    threads = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    threads = 0;
+                }
+            } else if (args[i].equals("-c") && i + 1 < args.length) {
+                try {
+                    cacheEntries = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    cacheEntries = -1;
+                }
+            } else if (args[i].equals("-m")) {
+                mapped = true;
+            } else if (args[i].equals("-o") && i + 1 < args.length) {
+                outputFile = args[++i];
+            } else if (args[i].startsWith("-") && !args[i].equals("-")) {
+                System.err.println(USAGE);
+                System.exit(2);
+            } else {
+                inputFile = args[i];
+            }
+        }
+
+        BatchSolver batch;
+        SolutionCache cache = null;
+        try {
+            Supplier<SudokuEngine> factory = engineFactory(engineName);
+            if (cacheEntries != 0) {
+                if (!engineName.equals("solver")) {
+                    throw new IllegalArgumentException("-c only applies to the solver engine");
+                }
+                SolutionCache shared = new SolutionCache(cacheEntries);
+                factory = () -> {
+                    Solver solver = new Solver();
+                    solver.setCache(shared);
+                    return solver;
+                };
+                cache = shared;
+            }
+            batch = new BatchSolver(factory, threads);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        if (mapped) {
+            if (inputFile == null || inputFile.equals("-") || outputFile == null) {
+                System.err.println("-m needs an input file and an output file");
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+            try {
+                batch.runMapped(Paths.get(inputFile), Paths.get(outputFile));
+            } catch (IOException e) {
+                System.err.println("I/O error: " + e.getMessage());
+                System.exit(1);
+            }
+            printSummary(batch, cache);
+            return;
+        }
+
+        try (InputStream is = inputFile == null || inputFile.equals("-") ? System.in : new FileInputStream(inputFile);
+             OutputStream os = outputFile == null ? System.out : new FileOutputStream(outputFile);
+             Reader reader = new InputStreamReader(is, StandardCharsets.US_ASCII);
+             BufferedReader in = new BufferedReader(reader, BUFFER_SIZE);
+             Writer out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.US_ASCII), BUFFER_SIZE)) {
+            batch.run(in, out);
+        } catch (IOException e) {
+            System.err.println("I/O error: " + e.getMessage());
+            System.exit(1);
+        }
+        printSummary(batch, cache);
+    }
+
+    private static void printSummary(BatchSolver batch, SolutionCache cache) {
+        System.err.println(batch.getSummary());
+        if (cache != null) {
+            System.err.println("Cache: " + cache);
+        }
+    }
+}
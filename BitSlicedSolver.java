@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Arrays;
+
+/*
+ * This class propagates up to 64 puzzles at once by slicing them across the bits
+ * of a long: bit p of every word belongs to puzzle p. For each cell and digit there
+ * is one word of candidates and one of placements, so a single AND or OR works on
+ * that cell and digit of all 64 puzzles together.
+ * 
+ * Naked and hidden singles are applied across all lanes until none of them
+ * changes. Most easy and medium puzzles are solved by that alone. The rest are
+ * finished one at a time by a scalar Solver, starting from the propagated state.
+ * A lane whose puzzle runs into a contradiction is reported as unsolvable.
+ */
+public class BitSlicedSolver implements SudokuEngine {
+    /**
+     * The number of puzzles propagated together.
+     */
+    public  static final int LANES = Long.SIZE;
+    private static final int CELLS = Board.ROW_SIZE * Board.COL_SIZE;
+    private static final int DIGITS = Board.ROW_SIZE;
+
+    // Indexed by cell * DIGITS + digit, with digit 0 for '1'.
+    private final long[] candidates = new long[CELLS * DIGITS];
+    private final long[] placed = new long[CELLS * DIGITS];
+    // Indexed by cell: the lanes in which the cell has a value.
+    private final long[] filled = new long[CELLS];
+    private final Solver fallback = new Solver();
+    // Lanes that have reached a contradiction.
+    private long dead;
+
+    private int counter = 0;
+    private long propagated = 0;
+    private long fallbacks = 0;
+    private SolveStats stats;
+
+    @Override
+    public int getCounter() {
+        return counter;
+    }
+
+    @Override
+    public void resetCounter() {
+        counter = 0;
+    }
+
+    @Override
+    public SolveStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return The number of puzzles solved by the sliced propagation alone
+     */
+    public long getPropagated() {
+        return propagated;
+    }
+
+    /**
+     * @return The number of puzzles that had to be finished by the scalar Solver
+     */
+    public long getFallbacks() {
+        return fallbacks;
+    }
+
+    /**
+     * Solves a single puzzle in one lane. Use solveAll() to fill every lane.
+     * @param puzzle The puzzle to solve. It is not modified.
+     * @return A solved copy of the puzzle, or null if the puzzle is unsolvable
+     */
+    @Override
+    public Board solve(Board puzzle) {
+        Board[] solutions = new Board[1];
+        solveAll(new Board[] {puzzle}, 0, 1, solutions, 0);
+        return solutions[0];
+    }
+
+    /**
+     * Solves a range of puzzles, LANES at a time
+     * @param puzzles The puzzles; they are not modified. Null entries give null solutions.
+     * @param from The index of the first puzzle to solve
+     * @param to The index after the last puzzle to solve
+     * @param solutions Receives a solved copy of each puzzle, or null if it is unsolvable
+     * @param offset The index in solutions for the puzzle at from
+     */
+    public void solveAll(Board[] puzzles, int from, int to, Board[] solutions, int offset) {
+        long start = System.nanoTime();
+        int startCounter = counter;
+        int nodes = 0;
+        int backtracks = 0;
+        boolean solved = true;
+        for (int group = from; group < to; group += LANES) {
+            int lanes = Math.min(LANES, to - group);
+            load(puzzles, group, lanes);
+            propagate();
+            char[][] values = extract(lanes);
+            for (int lane = 0; lane < lanes; lane++) {
+                Board puzzle = puzzles[group + lane];
+                Board solution = null;
+                boolean search = false;
+                if (puzzle != null && puzzle.getRules() != RuleSet.CLASSIC) {
+                    // The lanes only know the classic rules; variants go straight to the solver.
+                    solution = puzzle.copy();
+                    search = true;
+                } else if (puzzle != null && (dead & (1L << lane)) == 0) {
+                    solution = new Board(values[lane]);
+                    if (solution.getEmptySpaces() == 0) {
+                        propagated++;
+                    } else {
+                        search = true;
+                    }
+                }
+                if (search) {
+                    fallbacks++;
+                    fallback.resetCounter();
+                    solution = fallback.solve(solution);
+                    counter += fallback.getCounter();
+                    nodes += fallback.getStats().getNodes();
+                    backtracks += fallback.getStats().getBacktracks();
+                }
+                solved &= solution != null || puzzle == null;
+                solutions[offset + group - from + lane] = solution;
+            }
+        }
+        stats = new SolveStats("SLICED");
+        stats.steps = counter - startCounter;
+        stats.nodes = nodes;
+        stats.backtracks = backtracks;
+        stats.elapsedNanos = System.nanoTime() - start;
+        stats.solved = solved;
+    }
+
+    /**
+     * Fills the lanes from a group of puzzles. Unused lanes are left empty and
+     * marked dead so they never produce placements.
+     */
+    private void load(Board[] puzzles, int first, int lanes) {
+        Arrays.fill(candidates, 0L);
+        Arrays.fill(placed, 0L);
+        Arrays.fill(filled, 0L);
+        dead = lanes == LANES ? 0 : -1L << lanes;
+        for (int lane = 0; lane < lanes; lane++) {
+            Board puzzle = puzzles[first + lane];
+            long bit = 1L << lane;
+            if (puzzle == null || puzzle.getRules() != RuleSet.CLASSIC) {
+                dead |= bit;
+                continue;
+            }
+            for (int cell = 0; cell < CELLS; cell++) {
+                char value = puzzle.valueAt(cell);
+                if (value != Board.EMPTY) {
+                    placed[cell * DIGITS + value - '1'] |= bit;
+                    filled[cell] |= bit;
+                } else {
+                    for (int mask = puzzle.candidatesAt(cell); mask != 0; mask &= mask - 1) {
+                        candidates[cell * DIGITS + Integer.numberOfTrailingZeros(mask)] |= bit;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies naked and hidden singles in every lane until nothing changes.
+     */
+    private void propagate() {
+        boolean changed = true;
+        while (changed) {
+            changed = nakedSingles() | hiddenSingles();
+        }
+    }
+
+    private boolean nakedSingles() {
+        boolean changed = false;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int base = cell * DIGITS;
+            long once = 0;
+            long twice = 0;
+            for (int d = 0; d < DIGITS; d++) {
+                long c = candidates[base + d];
+                twice |= once & c;
+                once |= c;
+            }
+            // An empty cell with no candidates left.
+            dead |= ~filled[cell] & ~once;
+            long single = once & ~twice & ~dead;
+            if (single == 0) {
+                continue;
+            }
+            for (int d = 0; d < DIGITS; d++) {
+                long lanes = candidates[base + d] & single;
+                if (lanes != 0) {
+                    place(cell, d, lanes);
+                }
+            }
+            changed = true;
+        }
+        return changed;
+    }
+
+    private boolean hiddenSingles() {
+        boolean changed = false;
+        for (int u = 0; u < Board.UNIT_COUNT; u++) {
+            int[] cells = Board.UNITS[u];
+            for (int d = 0; d < DIGITS; d++) {
+                long once = 0;
+                long twice = 0;
+                long present = 0;
+                for (int cell : cells) {
+                    long c = candidates[cell * DIGITS + d];
+                    twice |= once & c;
+                    once |= c;
+                    present |= placed[cell * DIGITS + d];
+                }
+                // A digit that is neither placed in the unit nor possible anywhere in it.
+                dead |= ~present & ~once;
+                long hidden = once & ~twice & ~dead;
+                if (hidden == 0) {
+                    continue;
+                }
+                for (int cell : cells) {
+                    long lanes = candidates[cell * DIGITS + d] & hidden;
+                    if (lanes != 0) {
+                        place(cell, d, lanes);
+                    }
+                }
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Places a digit in a cell in some lanes and removes it from the candidates of
+     * the cell's peers in those lanes.
+     */
+    private void place(int cell, int digit, long lanes) {
+        int base = cell * DIGITS;
+        placed[base + digit] |= lanes;
+        filled[cell] |= lanes;
+        for (int d = 0; d < DIGITS; d++) {
+            candidates[base + d] &= ~lanes;
+        }
+        for (int peer : Board.PEERS[cell]) {
+            candidates[peer * DIGITS + digit] &= ~lanes;
+        }
+        counter += Long.bitCount(lanes);
+    }
+
+    /**
+     * @return The values placed in each lane, cell by cell, with EMPTY for the rest
+     */
+    private char[][] extract(int lanes) {
+        char[][] values = new char[lanes][CELLS];
+        for (char[] lane : values) {
+            Arrays.fill(lane, Board.EMPTY);
+        }
+        long live = lanes == LANES ? ~dead : ~dead & ((1L << lanes) - 1);
+        for (int cell = 0; cell < CELLS; cell++) {
+            for (int d = 0; d < DIGITS; d++) {
+                for (long m = placed[cell * DIGITS + d] & live; m != 0; m &= m - 1) {
+                    values[Long.numberOfTrailingZeros(m)][cell] = (char) ('1' + d);
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -27,45 +27,269 @@
  * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
 
 /*
  * This class represents a Sudoku board with 81 cells.
- * Each cell contains a set representing the candidates for each space.
+ * Each cell contains a bitmask representing the candidates for each space: bit 0 is
+ * the digit '1', bit 8 is the digit '9'.
  * When a cell is givan a value, That value is removed from the set of candidates for
- * all the cells in the same row, column, and 3x3 box.
+ * all its peers: the cells in the same row, column, and 3x3 box, or whatever houses
+ * and cages the board's RuleSet has instead. Each house also keeps a mask of the
+ * digits already placed in it, and the board remembers which of these units have
+ * changed so that propagation only needs to revisit those.
  * 
- * A caveat is that once a cell is given a value, it cannot be changed or removed.
+ * Once mark() has been called, every assignment and candidate elimination is
+ * recorded on a trail, and rollback() rewinds the board to an earlier mark. This lets
+ * a search mutate a single board instead of copying it for every branch.
  */
 public class Board {
     private static final int BOARD_SIZE = 81;
     public  static final int ROW_SIZE = 9;
     public  static final int COL_SIZE = 9;
+    public  static final int BOX_SIZE = 3;
     public  static final char EMPTY = '_';
+
+    /**
+     * Candidate mask with all nine digits set.
+     */
+    public  static final int ALL_CANDIDATES = 0x1FF;
+
+    // Along any path a cell is filled once and each candidate is removed once,
+    // so the trail never needs more entries than this.
+    private static final int TRAIL_CAPACITY = BOARD_SIZE + BOARD_SIZE * 9;
+
+    // Trail entries pack the cell index, a candidate mask and, for assignments,
+    // the digit that was placed (0 for a plain elimination).
+    private static final int TRAIL_MASK_SHIFT = 7;
+    private static final int TRAIL_DIGIT_SHIFT = 16;
+
+    /**
+     * The number of units (rows, columns and boxes) on a classic board.
+     */
+    public  static final int UNIT_COUNT = 27;
+
+    // The tables of the classic rules, for code that only handles classic boards.
+    // The 27 units: rows 0-8, columns 9-17, boxes 18-26.
+    static final int[][] UNITS = RuleSet.CLASSIC.units;
+    static final int[][] PEERS = RuleSet.CLASSIC.peers;
+    private static final Set<Character>[] CANDIDATE_SETS = buildCandidateSets();
+
+    private final RuleSet rules;
     private char[] board;
-    private Set<Character>[] candidates;
+    private int[] candidates;
+    private int[] unitUsed;
+    private int dirtyUnits;
     private int emptySpaces;
+    private int[] trail;
+    private int trailSize;
+    private SearchTrace trace;
 
     /**
      * Creates a new empty Sudoku board
      */
-    @SuppressWarnings("unchecked")
     public Board() {
+        this(RuleSet.CLASSIC);
+    }
+
+    /**
+     * Creates a new empty board for a variant of Sudoku
+     * @param rules The houses and cages of the variant
+     */
+    public Board(RuleSet rules) {
+        this.rules = rules;
         board = new char[BOARD_SIZE];
-        candidates = new Set[BOARD_SIZE];
+        candidates = new int[BOARD_SIZE];
+        unitUsed = new int[rules.unitCount];
+        dirtyUnits = rules.allUnits;
         emptySpaces = BOARD_SIZE;
         // Initialize with empty spaces and all possible candidates
         for (int i = 0; i < BOARD_SIZE; i++) {
             board[i] = EMPTY;
-            candidates[i] = new HashSet<>();
-            for (char c = '1'; c <= '9'; c++) {
-                candidates[i].add(c);
+            candidates[i] = ALL_CANDIDATES;
+        }
+    }
+
+    /**
+     * Creates a deep copy of another board without going through the
+     * initialization of an empty one. The trail is not copied.
+     */
+    private Board(Board other) {
+        rules = other.rules;
+        board = other.board.clone();
+        candidates = other.candidates.clone();
+        unitUsed = other.unitUsed.clone();
+        dirtyUnits = other.dirtyUnits;
+        emptySpaces = other.emptySpaces;
+    }
+
+    /**
+     * Creates a board from the values of all 81 cells, row by row, working out
+     * the candidates in one pass instead of placing the values one at a time.
+     * The values must not conflict with each other.
+     * @param values The value of each cell, or EMPTY; the array is kept, not copied
+     */
+    Board(char[] values) {
+        this(values, RuleSet.CLASSIC);
+    }
+
+    /**
+     * Creates a board for a variant of Sudoku from the values of all 81 cells,
+     * like Board(char[])
+     * @param values The value of each cell, or EMPTY; the array is kept, not copied
+     * @param rules The houses and cages of the variant
+     */
+    Board(char[] values, RuleSet rules) {
+        this.rules = rules;
+        board = values;
+        candidates = new int[BOARD_SIZE];
+        unitUsed = new int[rules.unitCount];
+        dirtyUnits = rules.allUnits;
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            if (values[i] != EMPTY) {
+                int bit = 1 << (values[i] - '1');
+                for (int unit : rules.cellUnits[i]) {
+                    unitUsed[unit] |= bit;
+                }
+            } else {
+                emptySpaces++;
+            }
+        }
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            if (values[i] == EMPTY) {
+                candidates[i] = freeCandidates(i);
+                if (rules.cages.length > 0) {
+                    // Cage-mates are not in a house together, so remove their values too.
+                    for (int peer : rules.peers[i]) {
+                        if (values[peer] != EMPTY) {
+                            candidates[i] &= ~(1 << (values[peer] - '1'));
+                        }
+                    }
+                }
             }
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private static Set<Character>[] buildCandidateSets() {
+        Set<Character>[] sets = (Set<Character>[]) new Set<?>[ALL_CANDIDATES + 1];
+        for (int mask = 0; mask <= ALL_CANDIDATES; mask++) {
+            Set<Character> set = new HashSet<>();
+            for (int d = 0; d < 9; d++) {
+                if ((mask & (1 << d)) != 0) {
+                    set.add((char) ('1' + d));
+                }
+            }
+            sets[mask] = Collections.unmodifiableSet(set);
+        }
+        return sets;
+    }
+
+    /**
+     * Creates a board from a line of 81 characters, row by row.
+     * Blanks may be written as '.', '0' or EMPTY.
+     * @param line The puzzle
+     * @return A new board with the given values set
+     * @throws IllegalArgumentException if the line is malformed or two givens conflict
+     */
+    public static Board parse(CharSequence line) {
+        return parse(line, RuleSet.CLASSIC);
+    }
+
+    /**
+     * Creates a board for a variant of Sudoku from a line of 81 characters, row by row.
+     * Blanks may be written as '.', '0' or EMPTY.
+     * @param line The puzzle
+     * @param rules The houses and cages of the variant
+     * @return A new board with the given values set
+     * @throws IllegalArgumentException if the line is malformed or two givens conflict
+     */
+    public static Board parse(CharSequence line, RuleSet rules) {
+        if (line.length() != BOARD_SIZE) {
+            throw new IllegalArgumentException("A puzzle must have exactly 81 cells");
+        }
+        Board board = new Board(rules);
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            board.placeGiven(i, line.charAt(i));
+        }
+        return board;
+    }
+
+    /**
+     * Creates a board from 81 ASCII bytes, row by row, without decoding them to characters.
+     * Blanks may be written as '.', '0' or EMPTY.
+     * @param buffer The bytes to read. Its position is not changed.
+     * @param offset The index in buffer of the first cell
+     * @return A new board with the given values set
+     * @throws IllegalArgumentException if a byte is not a digit or blank, or two givens conflict
+     */
+    public static Board parse(ByteBuffer buffer, int offset) {
+        Board board = new Board();
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            board.placeGiven(i, (char) (buffer.get(offset + i) & 0xFF));
+        }
+        return board;
+    }
+
+    private void placeGiven(int index, char c) {
+        if (c == '.' || c == '0' || c == EMPTY) {
+            return;
+        }
+        if (c < '1' || c > '9') {
+            throw new IllegalArgumentException("Invalid character '" + c + "' in puzzle");
+        }
+        if ((candidates[index] & (1 << (c - '1'))) == 0) {
+            throw new IllegalArgumentException("Value " + c + " conflicts with another given");
+        }
+        place(index, c);
+    }
+
+    /**
+     * Copies the values of all 81 cells, row by row, into an array
+     * @param dest The array to copy into
+     * @param offset The index in dest of the first cell
+     */
+    public void getValues(char[] dest, int offset) {
+        System.arraycopy(board, 0, dest, offset, BOARD_SIZE);
+    }
+
+    /**
+     * Writes the values of all 81 cells, row by row, as ASCII bytes
+     * @param dest The buffer to write into. Its position is not changed.
+     * @param offset The index in dest of the first cell
+     */
+    public void getValues(ByteBuffer dest, int offset) {
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            dest.put(offset + i, (byte) board[i]);
+        }
+    }
+
+    /**
+     * Converts a single-bit candidate mask to its digit character.
+     * @param bit A mask with exactly one of the low nine bits set
+     * @return The digit ('1'-'9') that the bit stands for
+     */
+    public static char bitToValue(int bit) {
+        return (char) ('1' + Integer.numberOfTrailingZeros(bit));
+    }
+
+    /**
+     * @return The rules this board is played by
+     */
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    private static void checkPosition(int row, int col) {
+        if (row < 0 || row >= ROW_SIZE || col < 0 || col >= COL_SIZE) {
+            throw new IllegalArgumentException("Row and column indices must be between 0 and 8");
+        }
+    }
+
     /**
      * Gets the value at the specified position
      * @param row Row index (0-8)
@@ -73,9 +297,7 @@ public class Board {
      * @return The character at the specified position
      */
     public char getValue(int row, int col) {
-        if (row < 0 || row >= ROW_SIZE || col < 0 || col >= COL_SIZE) {
-            throw new IllegalArgumentException("Row and column indices must be between 0 and 8");
-        }
+        checkPosition(row, col);
         return board[row * ROW_SIZE + col];
     }
 
@@ -83,13 +305,22 @@ public class Board {
      * Gets the candidates for the specified position
      * @param row Row index (0-8)
      * @param col Column index (0-8)
-     * @return Set of possible candidates for the position
+     * @return Unmodifiable set of possible candidates for the position
      */
     public Set<Character> getCandidates(int row, int col) {
-        if (row < 0 || row >= ROW_SIZE || col < 0 || col >= COL_SIZE) {
-            throw new IllegalArgumentException("Row and column indices must be between 0 and 8");
-        }
-        return new HashSet<>(candidates[row * ROW_SIZE + col]);
+        checkPosition(row, col);
+        return CANDIDATE_SETS[candidates[row * ROW_SIZE + col]];
+    }
+
+    /**
+     * Gets the candidates for the specified position as a bitmask
+     * @param row Row index (0-8)
+     * @param col Column index (0-8)
+     * @return Mask of possible candidates, bit 0 for '1' through bit 8 for '9'
+     */
+    public int getCandidateMask(int row, int col) {
+        checkPosition(row, col);
+        return candidates[row * ROW_SIZE + col];
     }
 
     /**
@@ -99,9 +330,7 @@ public class Board {
      * @param value The value to set (1-9)
      */
     public void setValue(int row, int col, char value) {
-        if (row < 0 || row >= ROW_SIZE || col < 0 || col >= COL_SIZE) {
-            throw new IllegalArgumentException("Row and column indices must be between 0 and 8");
-        }
+        checkPosition(row, col);
         if (value < '1' || value > '9') {
             throw new IllegalArgumentException("Value must be between 1-9");
         }
@@ -110,37 +339,357 @@ public class Board {
         if (board[index] != EMPTY) {
             throw new IllegalArgumentException("Cell is already filled");
         }
+        place(index, value);
+    }
+
+    /**
+     * Clears the value at the specified position. Only the cell and its peers are
+     * updated: their candidates are worked out again from the values left among
+     * their peers, which also restores any candidates eliminate() removed from
+     * them. The value may conflict with another one in the same unit.
+     * @param row Row index (0-8)
+     * @param col Column index (0-8)
+     * @throws IllegalStateException if mark() has been called, since clearing a
+     *         value cannot be recorded on the trail
+     */
+    public void clearValue(int row, int col) {
+        checkPosition(row, col);
+        if (trail != null) {
+            throw new IllegalStateException("Values cannot be cleared once the board has been marked");
+        }
+        int index = row * ROW_SIZE + col;
+        if (board[index] == EMPTY) {
+            return;
+        }
+        board[index] = EMPTY;
+        emptySpaces++;
+        // If the value conflicted with another, that one still uses the digit,
+        // so rebuild the masks of the cell's houses instead of clearing its bit.
+        for (int unit : rules.cellUnits[index]) {
+            unitUsed[unit] = valuesIn(unit);
+        }
+        candidates[index] = peerFreeCandidates(index);
+        dirtyUnits |= rules.unitBits[index];
+
+        for (int peer : rules.peers[index]) {
+            if (board[peer] == EMPTY) {
+                candidates[peer] = peerFreeCandidates(peer);
+                dirtyUnits |= rules.unitBits[peer];
+            }
+        }
+    }
+
+    /**
+     * Checks whether the value at a position is repeated in its row, column or box
+     * @param row Row index (0-8)
+     * @param col Column index (0-8)
+     * @return true if the cell holds a value that one of its peers also holds
+     */
+    public boolean hasConflict(int row, int col) {
+        checkPosition(row, col);
+        int index = row * ROW_SIZE + col;
+        char value = board[index];
+        if (value == EMPTY) {
+            return false;
+        }
+        int[] peers = rules.peers[index];
+        for (int p = 0; p < peers.length; p++) {
+            if (board[peers[p]] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The mask of the digits placed in a unit, computed from its cells
+     */
+    private int valuesIn(int unit) {
+        int used = 0;
+        int[] cells = rules.units[unit];
+        for (int k = 0; k < ROW_SIZE; k++) {
+            char value = board[cells[k]];
+            if (value != EMPTY) {
+                used |= 1 << (value - '1');
+            }
+        }
+        return used;
+    }
+
+    /**
+     * @return The digits not yet used in the houses of a cell
+     */
+    private int freeCandidates(int index) {
+        int used = 0;
+        for (int unit : rules.cellUnits[index]) {
+            used |= unitUsed[unit];
+        }
+        return ALL_CANDIDATES & ~used;
+    }
+
+    /**
+     * @return The digits not yet used by any peer of a cell, including its cage-mates
+     */
+    private int peerFreeCandidates(int index) {
+        int free = freeCandidates(index);
+        if (rules.cages.length > 0) {
+            for (int peer : rules.peers[index]) {
+                if (board[peer] != EMPTY) {
+                    free &= ~(1 << (board[peer] - '1'));
+                }
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Places a value in an empty cell without validating its arguments.
+     * @param index Cell index (row * 9 + col)
+     * @param value The value to set (1-9)
+     */
+    void place(int index, char value) {
+        int bit = 1 << (value - '1');
+        if (trail != null) {
+            trail[trailSize++] = index
+                    | (candidates[index] << TRAIL_MASK_SHIFT)
+                    | ((value - '0') << TRAIL_DIGIT_SHIFT);
+        }
+        if (trace != null) {
+            trace.place(index, value);
+        }
         emptySpaces--;
         board[index] = value;
         // Clear candidates for this cell since it's now filled
-        candidates[index].clear();
-        
-        // Remove value from candidates in the same row
-        for (int c = 0; c < COL_SIZE; c++) {
-            if (c != col) {
-                candidates[row * ROW_SIZE + c].remove(value);
+        candidates[index] = 0;
+        int[] units = rules.cellUnits[index];
+        for (int u = 0; u < units.length; u++) {
+            unitUsed[units[u]] |= bit;
+        }
+        int[] unitBits = rules.unitBits;
+        dirtyUnits |= unitBits[index];
+
+        // Remove value from candidates in the same row, column and 3x3 box,
+        // or whatever houses and cages the cell has
+        int[] peers = rules.peers[index];
+        for (int p = 0; p < peers.length; p++) {
+            int peer = peers[p];
+            if ((candidates[peer] & bit) != 0) {
+                candidates[peer] &= ~bit;
+                dirtyUnits |= unitBits[peer];
+                if (trail != null) {
+                    trail[trailSize++] = peer | (bit << TRAIL_MASK_SHIFT);
+                }
             }
         }
-        
-        // Remove value from candidates in the same column
-        for (int r = 0; r < ROW_SIZE; r++) {
-            if (r != row) {
-                candidates[r * ROW_SIZE + col].remove(value);
+    }
+
+    /**
+     * Removes candidates from an empty cell
+     * @param index Cell index (row * 9 + col)
+     * @param mask The candidates to remove
+     * @return true if any candidate was actually removed
+     */
+    boolean eliminate(int index, int mask) {
+        int removed = candidates[index] & mask;
+        if (removed == 0) {
+            return false;
+        }
+        candidates[index] &= ~removed;
+        dirtyUnits |= rules.unitBits[index];
+        if (trail != null) {
+            trail[trailSize++] = index | (removed << TRAIL_MASK_SHIFT);
+        }
+        return true;
+    }
+
+    /**
+     * @param index Cell index (row * 9 + col)
+     * @return The value of the cell, or EMPTY
+     */
+    char valueAt(int index) {
+        return board[index];
+    }
+
+    /**
+     * @param index Cell index (row * 9 + col)
+     * @return The candidate mask of the cell
+     */
+    int candidatesAt(int index) {
+        return candidates[index];
+    }
+
+    /**
+     * @param unit Unit index (rows 0-8, columns 9-17, boxes or regions 18-26,
+     *             then the diagonals if the rules have them)
+     * @return The mask of the digits already placed in the unit
+     */
+    int usedInUnit(int unit) {
+        return unitUsed[unit];
+    }
+
+    /**
+     * Returns the units whose cells have changed since the last call, and
+     * forgets them. A new board reports every unit as changed.
+     * @return A set of unit indexes, one bit per unit
+     */
+    int takeDirtyUnits() {
+        int dirty = dirtyUnits;
+        dirtyUnits = 0;
+        return dirty;
+    }
+
+    /**
+     * @return The units whose cells have changed since the last takeDirtyUnits(),
+     *         without forgetting them
+     */
+    int getDirtyUnits() {
+        return dirtyUnits;
+    }
+
+    /**
+     * Replaces the set of changed units, for a search that rolls the board back
+     * to a mark and so returns it to the propagation state it had there
+     * @param units A set of unit indexes, one bit per unit
+     */
+    void setDirtyUnits(int units) {
+        dirtyUnits = units;
+    }
+
+    /**
+     * Works out which digits the empty cells of a Killer cage can still take,
+     * given the digits already placed in it and the candidates of the others
+     * @param cage The index of the cage in the rules
+     * @return The digits of every set of distinct candidates that completes
+     *         the cage's sum, or -1 if there is no such set
+     */
+    int cageCandidates(int cage) {
+        int[] cells = rules.cages[cage];
+        int remaining = rules.cageSums[cage];
+        int placed = 0;
+        int open = 0;
+        int union = 0;
+        for (int cell : cells) {
+            if (board[cell] != EMPTY) {
+                placed |= 1 << (board[cell] - '1');
+                remaining -= board[cell] - '0';
+            } else {
+                open++;
+                union |= candidates[cell];
             }
         }
-        
-        // Remove value from candidates in the same 3x3 box
-        int boxRow = (row / 3) * 3;
-        int boxCol = (col / 3) * 3;
-        for (int r = boxRow; r < boxRow + 3; r++) {
-            for (int c = boxCol; c < boxCol + 3; c++) {
-                if (r != row || c != col) {
-                    candidates[r * ROW_SIZE + c].remove(value);
+        if (open == 0) {
+            return remaining == 0 ? 0 : -1;
+        }
+        int allowed = 0;
+        for (int digits : RuleSet.combinations(open, remaining)) {
+            if ((digits & placed) == 0 && (digits & ~union) == 0) {
+                allowed |= digits;
+            }
+        }
+        return allowed == 0 ? -1 : allowed;
+    }
+
+    /**
+     * Counts the empty cells that share a row, column or 3x3 box with a position
+     * @param row Row index (0-8)
+     * @param col Column index (0-8)
+     * @return The number of empty peers
+     */
+    public int countEmptyPeers(int row, int col) {
+        checkPosition(row, col);
+        int[] peers = rules.peers[row * ROW_SIZE + col];
+        int count = 0;
+        for (int p = 0; p < peers.length; p++) {
+            if (board[peers[p]] == EMPTY) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether the board can no longer be completed: some empty cell has
+     * no candidates left, some row, column or box has a missing digit that
+     * none of its empty cells can take, or some cage cannot reach its sum.
+     * @return true if the board is a dead end
+     */
+    public boolean hasContradiction() {
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            if (candidates[i] == 0 && board[i] == EMPTY) {
+                return true;
+            }
+        }
+        for (int u = 0; u < rules.unitCount; u++) {
+            int seen = unitUsed[u];
+            int[] cells = rules.units[u];
+            for (int k = 0; k < ROW_SIZE; k++) {
+                seen |= candidates[cells[k]];
+            }
+            if (seen != ALL_CANDIDATES) {
+                return true;
+            }
+        }
+        for (int c = 0; c < rules.cages.length; c++) {
+            if (cageCandidates(c) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the current state of the board so it can be restored later.
+     * The first call starts recording changes on the trail.
+     * @return A mark to pass to rollback()
+     */
+    public int mark() {
+        if (trail == null) {
+            trail = new int[TRAIL_CAPACITY];
+        }
+        return trailSize;
+    }
+
+    /**
+     * Undoes every assignment and elimination made since the given mark.
+     * The units of the restored cells are reported as changed.
+     * @param mark A value previously returned by mark()
+     */
+    public void rollback(int mark) {
+        if (mark < 0 || mark > trailSize) {
+            throw new IllegalArgumentException("Invalid trail mark");
+        }
+        while (trailSize > mark) {
+            int entry = trail[--trailSize];
+            int index = entry & 0x7F;
+            int mask = (entry >>> TRAIL_MASK_SHIFT) & ALL_CANDIDATES;
+            int digit = entry >>> TRAIL_DIGIT_SHIFT;
+            if (digit == 0) {
+                candidates[index] |= mask;
+            } else {
+                int bit = 1 << (digit - 1);
+                board[index] = EMPTY;
+                candidates[index] = mask;
+                for (int unit : rules.cellUnits[index]) {
+                    unitUsed[unit] &= ~bit;
+                }
+                emptySpaces++;
+                if (trace != null) {
+                    trace.undo(index);
                 }
             }
+            dirtyUnits |= rules.unitBits[index];
         }
     }
 
+    /**
+     * Records every value placed on this board, and every value taken back by
+     * rollback(), on a trace. Copies of the board do not share the trace.
+     * @param trace The trace, or null to stop recording
+     */
+    void setTrace(SearchTrace trace) {
+        this.trace = trace;
+    }
+
     /**
      * Returns a string representation of the board
      * @return String representation of the board
@@ -171,14 +720,6 @@ public class Board {
      * @return A new Board instance with the same state as this board
      */
     public Board copy() {
-        Board copy = new Board();
-        copy.emptySpaces = this.emptySpaces;
-        System.arraycopy(this.board, 0, copy.board, 0, BOARD_SIZE);
-        
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            copy.candidates[i] = new HashSet<>(this.candidates[i]);
-        }
-        
-        return copy;
+        return new Board(this);
     }
 }
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/*
+ * This class solves Sudoku as an exact-cover problem using Knuth's Algorithm X
+ * with Dancing Links.
+ * 
+ * Each of the 729 possible placements (a digit in a cell) is a row that covers
+ * four of the 324 constraint columns: the cell is filled, and the digit appears in
+ * the row, the column and the box. A solution is a set of rows that covers every
+ * column exactly once.
+ * 
+ * All nodes live in preallocated int arrays that are built once per instance.
+ * Covering is always undone on the way back out of the search, so the same
+ * structure is reused for every puzzle. An instance is not thread-safe.
+ */
+public class DancingLinksSolver implements SudokuEngine {
+    private static final int SIZE = Board.ROW_SIZE;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int PLACEMENTS = CELLS * SIZE;
+    private static final int COLUMNS = 4 * CELLS;
+    private static final int ROOT = 0;
+    private static final int NODES = 1 + COLUMNS + 4 * PLACEMENTS;
+
+    private final int[] left = new int[NODES];
+    private final int[] right = new int[NODES];
+    private final int[] up = new int[NODES];
+    private final int[] down = new int[NODES];
+    private final int[] column = new int[NODES];
+    private final int[] placement = new int[NODES];
+    private final int[] size = new int[NODES];
+    private final boolean[] covered = new boolean[NODES];
+    // The first node of each placement row.
+    private final int[] rowStart = new int[PLACEMENTS];
+    // Placement rows chosen by the search, by depth.
+    private final int[] chosen = new int[CELLS];
+    private final int[] solution = new int[CELLS];
+    private int solutionLength;
+
+    /**
+     * The number of placements the search has tried.
+     */
+    private int counter = 0;
+
+    // Metrics for the current solve.
+    private int nodesVisited;
+    private int backtracks;
+    private int maxDepth;
+    private int searchStart;
+    private SolveStats stats;
+
+    /**
+     * Creates the links for all 729 placements
+     */
+    public DancingLinksSolver() {
+        for (int c = 0; c <= COLUMNS; c++) {
+            left[c] = c == ROOT ? COLUMNS : c - 1;
+            right[c] = c == COLUMNS ? ROOT : c + 1;
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+        }
+        int node = COLUMNS + 1;
+        for (int p = 0; p < PLACEMENTS; p++) {
+            int cell = p / SIZE;
+            int digit = p % SIZE;
+            int row = cell / SIZE;
+            int col = cell % SIZE;
+            int box = (row / 3) * 3 + col / 3;
+            int[] columns = {
+                1 + cell,
+                1 + CELLS + row * SIZE + digit,
+                1 + 2 * CELLS + col * SIZE + digit,
+                1 + 3 * CELLS + box * SIZE + digit
+            };
+            rowStart[p] = node;
+            for (int k = 0; k < 4; k++) {
+                int c = columns[k];
+                column[node] = c;
+                placement[node] = p;
+                // Append to the bottom of the column.
+                up[node] = up[c];
+                down[node] = c;
+                down[up[c]] = node;
+                up[c] = node;
+                size[c]++;
+                // Link into the row as a circular list.
+                left[node] = k == 0 ? node + 3 : node - 1;
+                right[node] = k == 3 ? node - 3 : node + 1;
+                node++;
+            }
+        }
+    }
+
+    @Override
+    public int getCounter() {
+        return counter;
+    }
+
+    @Override
+    public void resetCounter() {
+        counter = 0;
+    }
+
+    @Override
+    public SolveStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Solves a puzzle. The puzzle itself is not modified.
+     * @param puzzle The puzzle to solve
+     * @return A solved copy of the puzzle, or null if the puzzle is unsolvable
+     * @throws IllegalArgumentException if the puzzle does not follow the classic rules
+     */
+    @Override
+    public Board solve(Board puzzle) {
+        if (puzzle.getRules() != RuleSet.CLASSIC) {
+            throw new IllegalArgumentException("Dancing Links only solves classic Sudoku, not " + puzzle.getRules());
+        }
+        int startCounter = counter;
+        SolveEvents.SolveEnd event = SolveEvents.begin("DLX", puzzle.getEmptySpaces());
+        long startNanos = System.nanoTime();
+        nodesVisited = 0;
+        backtracks = 0;
+        maxDepth = 0;
+        // Select the placements of the givens before searching.
+        int givens = 0;
+        boolean consistent = true;
+        for (int cell = 0; cell < CELLS && consistent; cell++) {
+            char value = puzzle.valueAt(cell);
+            if (value == Board.EMPTY) {
+                continue;
+            }
+            int start = rowStart[cell * SIZE + (value - '1')];
+            for (int node = start, k = 0; k < 4; node = right[node], k++) {
+                if (covered[column[node]]) {
+                    // Two givens claim the same constraint.
+                    consistent = false;
+                }
+            }
+            if (consistent) {
+                selectRow(start);
+                chosen[givens++] = start;
+            }
+        }
+
+        solutionLength = 0;
+        searchStart = givens;
+        boolean found = consistent && search(givens);
+
+        for (int g = givens - 1; g >= 0; g--) {
+            deselectRow(chosen[g]);
+        }
+
+        stats = new SolveStats("DLX");
+        stats.nodes = nodesVisited;
+        stats.steps = counter - startCounter;
+        stats.backtracks = backtracks;
+        stats.maxDepth = maxDepth;
+        stats.elapsedNanos = System.nanoTime() - startNanos;
+        stats.solved = found;
+        SolveEvents.end(event, stats);
+        if (!found) {
+            return null;
+        }
+
+        Board result = puzzle.copy();
+        for (int i = givens; i < solutionLength; i++) {
+            int p = placement[solution[i]];
+            result.place(p / SIZE, (char) ('1' + p % SIZE));
+        }
+        return result;
+    }
+
+    /**
+     * Algorithm X: cover the column with the fewest rows and try each of them.
+     * The links are fully restored before returning.
+     * @return true if a solution was recorded
+     */
+    private boolean search(int depth) {
+        nodesVisited++;
+        maxDepth = Math.max(maxDepth, depth - searchStart);
+        if (right[ROOT] == ROOT) {
+            System.arraycopy(chosen, 0, solution, 0, depth);
+            solutionLength = depth;
+            return true;
+        }
+        int best = right[ROOT];
+        for (int c = right[best]; c != ROOT && size[best] > 1; c = right[c]) {
+            if (size[c] < size[best]) {
+                best = c;
+            }
+        }
+        if (size[best] == 0) {
+            return false;
+        }
+
+        cover(best);
+        boolean found = false;
+        for (int node = down[best]; node != best && !found; node = down[node]) {
+            counter++;
+            chosen[depth] = node;
+            for (int j = right[node]; j != node; j = right[j]) {
+                cover(column[j]);
+            }
+            found = search(depth + 1);
+            for (int j = left[node]; j != node; j = left[j]) {
+                uncover(column[j]);
+            }
+            if (!found && ++backtracks % 1000 == 0 && isMilestone(backtracks)) {
+                SolveEvents.backtrackMilestone(backtracks, nodesVisited, depth - searchStart);
+            }
+        }
+        uncover(best);
+        return found;
+    }
+
+    // Backtrack milestones are 1000, 10000, 100000, ...
+    private static boolean isMilestone(int count) {
+        while (count % 10 == 0) {
+            count /= 10;
+        }
+        return count == 1;
+    }
+
+    private void selectRow(int start) {
+        int node = start;
+        do {
+            cover(column[node]);
+            node = right[node];
+        } while (node != start);
+    }
+
+    private void deselectRow(int start) {
+        int node = left[start];
+        do {
+            uncover(column[node]);
+            node = left[node];
+        } while (node != left[start]);
+    }
+
+    private void cover(int c) {
+        covered[c] = true;
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+        covered[c] = false;
+    }
+}
@@ -0,0 +1,473 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Arrays;
+
+/*
+ * This class represents a Sudoku board of any box size n: n x n boxes on a grid
+ * of side n * n, so n = 3 is the classic 9x9 board, n = 4 is 16x16 and n = 5 is
+ * 25x25, the largest supported. Values run from 1 to the side and are written
+ * with the symbols '1'-'9' and then 'A', 'B', ... for 10 and above; a side of 36
+ * or more would run out of letters, so box sizes stop at 5.
+ * 
+ * Each cell keeps its candidates in a long bitmask, bit 0 for the value 1. The
+ * tables of rows, columns, boxes and peers are built once per box size and shared.
+ * Like Board, assignments and eliminations are recorded on a trail once mark() has
+ * been called, so a search can work on a single board and roll it back.
+ * 
+ * Board remains the fast path for 9x9 puzzles; toBoard() and of() convert between
+ * the two.
+ */
+public class GridBoard {
+    public  static final int MIN_BOX_SIZE = 2;
+    public  static final int MAX_BOX_SIZE = 5;
+    public  static final char EMPTY = Board.EMPTY;
+
+    // Trail entries pack the cell index and, for assignments, the value that was
+    // placed (0 for a plain elimination). The candidate mask goes in trailMasks.
+    private static final int TRAIL_VALUE_SHIFT = 12;
+    private static final int TRAIL_INDEX_MASK = (1 << TRAIL_VALUE_SHIFT) - 1;
+
+    private static final Geometry[] GEOMETRIES = new Geometry[MAX_BOX_SIZE + 1];
+
+    /**
+     * The precomputed tables for one box size.
+     */
+    static final class Geometry {
+        final int boxSize;
+        final int side;
+        final int cells;
+        final long allCandidates;
+        final int[] rowOf;
+        final int[] colOf;
+        final int[] boxOf;
+        final int[][] peers;
+        // Rows 0 to side-1, then columns, then boxes.
+        final int[][] units;
+
+        Geometry(int boxSize) {
+            this.boxSize = boxSize;
+            this.side = boxSize * boxSize;
+            this.cells = side * side;
+            this.allCandidates = (1L << side) - 1;
+            rowOf = new int[cells];
+            colOf = new int[cells];
+            boxOf = new int[cells];
+            units = new int[3 * side][side];
+            for (int i = 0; i < cells; i++) {
+                rowOf[i] = i / side;
+                colOf[i] = i % side;
+                boxOf[i] = (rowOf[i] / boxSize) * boxSize + colOf[i] / boxSize;
+                units[rowOf[i]][colOf[i]] = i;
+                units[side + colOf[i]][rowOf[i]] = i;
+                units[2 * side + boxOf[i]][(rowOf[i] % boxSize) * boxSize + colOf[i] % boxSize] = i;
+            }
+            // Each cell sees the rest of its row and column, and the cells of its
+            // box that are in neither.
+            int peerCount = 2 * (side - 1) + (boxSize - 1) * (boxSize - 1);
+            peers = new int[cells][peerCount];
+            for (int i = 0; i < cells; i++) {
+                int n = 0;
+                for (int j = 0; j < cells; j++) {
+                    if (j != i && (rowOf[j] == rowOf[i] || colOf[j] == colOf[i] || boxOf[j] == boxOf[i])) {
+                        peers[i][n++] = j;
+                    }
+                }
+            }
+        }
+    }
+
+    private final Geometry geometry;
+    private final int[] values;
+    private final long[] candidates;
+    private final long[] unitUsed;
+    private int emptySpaces;
+    private int[] trail;
+    private long[] trailMasks;
+    private int trailSize;
+
+    /**
+     * Creates a new empty board
+     * @param boxSize The side of a box, from MIN_BOX_SIZE to MAX_BOX_SIZE
+     */
+    public GridBoard(int boxSize) {
+        geometry = geometry(boxSize);
+        values = new int[geometry.cells];
+        candidates = new long[geometry.cells];
+        unitUsed = new long[3 * geometry.side];
+        emptySpaces = geometry.cells;
+        Arrays.fill(candidates, geometry.allCandidates);
+    }
+
+    /**
+     * Creates a deep copy of another board. The trail is not copied.
+     */
+    private GridBoard(GridBoard other) {
+        geometry = other.geometry;
+        values = other.values.clone();
+        candidates = other.candidates.clone();
+        unitUsed = other.unitUsed.clone();
+        emptySpaces = other.emptySpaces;
+    }
+
+    static synchronized Geometry geometry(int boxSize) {
+        if (boxSize < MIN_BOX_SIZE || boxSize > MAX_BOX_SIZE) {
+            throw new IllegalArgumentException("Box size must be between " + MIN_BOX_SIZE + " and " + MAX_BOX_SIZE);
+        }
+        if (GEOMETRIES[boxSize] == null) {
+            GEOMETRIES[boxSize] = new Geometry(boxSize);
+        }
+        return GEOMETRIES[boxSize];
+    }
+
+    /**
+     * Creates a board from a line of side * side symbols, row by row. The box size
+     * is worked out from the length: 81 for 9x9, 256 for 16x16, 625 for 25x25.
+     * Blanks may be written as '.', '0' or EMPTY.
+     * @param line The puzzle
+     * @return A new board with the given values set
+     * @throws IllegalArgumentException if the line is malformed or two givens conflict
+     */
+    public static GridBoard parse(CharSequence line) {
+        int boxSize = MIN_BOX_SIZE;
+        while (boxSize < MAX_BOX_SIZE && (long) boxSize * boxSize * boxSize * boxSize < line.length()) {
+            boxSize++;
+        }
+        if (boxSize * boxSize * boxSize * boxSize != line.length()) {
+            throw new IllegalArgumentException("A puzzle must have n^4 cells for a box size n");
+        }
+        GridBoard board = new GridBoard(boxSize);
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '.' || c == '0' || c == EMPTY) {
+                continue;
+            }
+            int value = valueOf(c);
+            if (value < 1 || value > board.geometry.side) {
+                throw new IllegalArgumentException("Invalid character '" + c + "' in puzzle");
+            }
+            if ((board.candidates[i] & (1L << (value - 1))) == 0) {
+                throw new IllegalArgumentException("Value " + c + " conflicts with another given");
+            }
+            board.place(i, value);
+        }
+        return board;
+    }
+
+    /**
+     * Converts a 9x9 board
+     * @param board The board to convert
+     * @return A new board with the same values
+     */
+    public static GridBoard of(Board board) {
+        GridBoard grid = new GridBoard(3);
+        for (int i = 0; i < grid.geometry.cells; i++) {
+            char value = board.valueAt(i);
+            if (value != Board.EMPTY) {
+                grid.place(i, value - '0');
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Converts this board to the 9x9 fast path
+     * @return A new Board with the same values
+     * @throws IllegalStateException if this board is not 9x9
+     */
+    public Board toBoard() {
+        if (geometry.side != Board.ROW_SIZE) {
+            throw new IllegalStateException("Only a 9x9 board can be converted");
+        }
+        Board board = new Board();
+        for (int i = 0; i < geometry.cells; i++) {
+            if (values[i] != 0) {
+                board.place(i, (char) ('0' + values[i]));
+            }
+        }
+        return board;
+    }
+
+    /**
+     * @param value A value from 1 to 35
+     * @return The symbol that stands for the value: '1'-'9', then 'A', 'B', ... 'Z'
+     * @throws IllegalArgumentException if the value has no symbol
+     */
+    public static char symbolOf(int value) {
+        if (value < 1 || value > 35) {
+            throw new IllegalArgumentException("No symbol for the value " + value);
+        }
+        return value <= 9 ? (char) ('0' + value) : (char) ('A' + value - 10);
+    }
+
+    /**
+     * @param symbol A symbol from symbolOf(); lower case letters are accepted too
+     * @return The value it stands for, or -1 if it is not a symbol
+     */
+    public static int valueOf(char symbol) {
+        if (symbol >= '1' && symbol <= '9') {
+            return symbol - '0';
+        }
+        if (symbol >= 'A' && symbol <= 'Z') {
+            return symbol - 'A' + 10;
+        }
+        if (symbol >= 'a' && symbol <= 'z') {
+            return symbol - 'a' + 10;
+        }
+        return -1;
+    }
+
+    private void checkPosition(int row, int col) {
+        if (row < 0 || row >= geometry.side || col < 0 || col >= geometry.side) {
+            throw new IllegalArgumentException("Row and column must be between 0-" + (geometry.side - 1));
+        }
+    }
+
+    public int getBoxSize() {
+        return geometry.boxSize;
+    }
+
+    /**
+     * @return The number of rows, columns and boxes, and the largest value
+     */
+    public int getSide() {
+        return geometry.side;
+    }
+
+    /**
+     * Gets the value at the specified position
+     * @param row Row index
+     * @param col Column index
+     * @return The value, or 0 if the cell is empty
+     */
+    public int getValue(int row, int col) {
+        checkPosition(row, col);
+        return values[row * geometry.side + col];
+    }
+
+    /**
+     * Gets the symbol at the specified position
+     * @param row Row index
+     * @param col Column index
+     * @return The symbol of the value, or EMPTY
+     */
+    public char getSymbol(int row, int col) {
+        int value = getValue(row, col);
+        return value == 0 ? EMPTY : symbolOf(value);
+    }
+
+    /**
+     * Gets the candidates for the specified position as a bitmask
+     * @param row Row index
+     * @param col Column index
+     * @return Mask of possible candidates, bit 0 for the value 1
+     */
+    public long getCandidateMask(int row, int col) {
+        checkPosition(row, col);
+        return candidates[row * geometry.side + col];
+    }
+
+    /**
+     * Sets the value at the specified position
+     * @param row Row index
+     * @param col Column index
+     * @param value The value to set, from 1 to the side
+     */
+    public void setValue(int row, int col, int value) {
+        checkPosition(row, col);
+        if (value < 1 || value > geometry.side) {
+            throw new IllegalArgumentException("Value must be between 1-" + geometry.side);
+        }
+        int index = row * geometry.side + col;
+        if (values[index] != 0) {
+            throw new IllegalArgumentException("Cell is already filled");
+        }
+        place(index, value);
+    }
+
+    /**
+     * Places a value in an empty cell without validating its arguments.
+     * @param index Cell index (row * side + col)
+     * @param value The value to set
+     */
+    void place(int index, int value) {
+        long bit = 1L << (value - 1);
+        if (trail != null) {
+            trailMasks[trailSize] = candidates[index];
+            trail[trailSize++] = index | (value << TRAIL_VALUE_SHIFT);
+        }
+        emptySpaces--;
+        values[index] = value;
+        candidates[index] = 0;
+        int side = geometry.side;
+        unitUsed[geometry.rowOf[index]] |= bit;
+        unitUsed[side + geometry.colOf[index]] |= bit;
+        unitUsed[2 * side + geometry.boxOf[index]] |= bit;
+
+        for (int peer : geometry.peers[index]) {
+            if ((candidates[peer] & bit) != 0) {
+                candidates[peer] &= ~bit;
+                if (trail != null) {
+                    trailMasks[trailSize] = bit;
+                    trail[trailSize++] = peer;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes candidates from an empty cell
+     * @param index Cell index (row * side + col)
+     * @param mask The candidates to remove
+     * @return true if any candidate was actually removed
+     */
+    boolean eliminate(int index, long mask) {
+        long removed = candidates[index] & mask;
+        if (removed == 0) {
+            return false;
+        }
+        candidates[index] &= ~removed;
+        if (trail != null) {
+            trailMasks[trailSize] = removed;
+            trail[trailSize++] = index;
+        }
+        return true;
+    }
+
+    int valueAt(int index) {
+        return values[index];
+    }
+
+    long candidatesAt(int index) {
+        return candidates[index];
+    }
+
+    long usedInUnit(int unit) {
+        return unitUsed[unit];
+    }
+
+    Geometry getGeometry() {
+        return geometry;
+    }
+
+    public int getEmptySpaces() {
+        return emptySpaces;
+    }
+
+    /**
+     * Checks whether the board can no longer be completed: some empty cell has
+     * no candidates left, or some row, column or box has a missing value that
+     * none of its empty cells can take.
+     * @return true if the board is a dead end
+     */
+    public boolean hasContradiction() {
+        for (int i = 0; i < geometry.cells; i++) {
+            if (candidates[i] == 0 && values[i] == 0) {
+                return true;
+            }
+        }
+        for (int u = 0; u < geometry.units.length; u++) {
+            long seen = unitUsed[u];
+            for (int cell : geometry.units[u]) {
+                seen |= candidates[cell];
+            }
+            if (seen != geometry.allCandidates) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the current state of the board so it can be restored later.
+     * The first call starts recording changes on the trail.
+     * @return A mark to pass to rollback()
+     */
+    public int mark() {
+        if (trail == null) {
+            // Along any path a cell is filled once and each candidate is removed once.
+            int capacity = geometry.cells + geometry.cells * geometry.side;
+            trail = new int[capacity];
+            trailMasks = new long[capacity];
+        }
+        return trailSize;
+    }
+
+    /**
+     * Undoes every assignment and elimination made since the given mark.
+     * @param mark A value previously returned by mark()
+     */
+    public void rollback(int mark) {
+        if (mark < 0 || mark > trailSize) {
+            throw new IllegalArgumentException("Invalid trail mark");
+        }
+        int side = geometry.side;
+        while (trailSize > mark) {
+            int entry = trail[--trailSize];
+            long mask = trailMasks[trailSize];
+            int index = entry & TRAIL_INDEX_MASK;
+            int value = entry >>> TRAIL_VALUE_SHIFT;
+            if (value == 0) {
+                candidates[index] |= mask;
+            } else {
+                long bit = 1L << (value - 1);
+                values[index] = 0;
+                candidates[index] = mask;
+                unitUsed[geometry.rowOf[index]] &= ~bit;
+                unitUsed[side + geometry.colOf[index]] &= ~bit;
+                unitUsed[2 * side + geometry.boxOf[index]] &= ~bit;
+                emptySpaces++;
+            }
+        }
+    }
+
+    /**
+     * Returns a string representation of the board
+     * @return The symbols row by row, with a space after each row
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(geometry.cells + geometry.side);
+        for (int i = 0; i < geometry.cells; i++) {
+            sb.append(values[i] == 0 ? EMPTY : symbolOf(values[i]));
+            if ((i + 1) % geometry.side == 0) {
+                sb.append(" ");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Creates a deep copy of the board
+     * @return A new board with the same values and candidates
+     */
+    public GridBoard copy() {
+        return new GridBoard(this);
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Arrays;
+
+/*
+ * This class solves GridBoards of any box size.
+ * 
+ * The search works in place on the board, with the trail undoing each failed
+ * branch, and branches on the empty cell with the fewest candidates. Between
+ * branches it places naked and hidden singles until neither applies, then looks
+ * for locked candidates (pointing and box/line reduction), which matter far more
+ * on large boards than on 9x9 ones.
+ * 
+ * A 9x9 board is converted and handed to Solver instead, so classic puzzles keep
+ * all of its propagation strategies and tuning.
+ */
+public class GridSolver {
+    private GridBoard board;
+    private final Solver classic = new Solver();
+    // segments[line * boxSize + k]: the candidates of a line's cells in its k-th box
+    // along it. Kept between calls and only reallocated for a larger box size.
+    private long[] segments = new long[0];
+
+    /**
+     * The number of "steps" that the solver has taken: placements plus candidates tried.
+     */
+    private int counter = 0;
+
+    public int getCounter() {
+        return counter;
+    }
+
+    public void resetCounter() {
+        counter = 0;
+    }
+
+    /**
+     * Solves a puzzle.
+     * @param puzzle The puzzle to solve. It is not modified.
+     * @return A solved copy of the puzzle, or null if the puzzle is unsolvable
+     */
+    public GridBoard solve(GridBoard puzzle) {
+        if (puzzle.getSide() == Board.ROW_SIZE) {
+            classic.resetCounter();
+            Board solution = classic.solve(puzzle.toBoard());
+            counter += classic.getCounter();
+            return solution == null ? null : GridBoard.of(solution);
+        }
+        board = puzzle.copy();
+        board.mark();
+        GridBoard solution = search() ? board : null;
+        board = null;
+        return solution;
+    }
+
+    private boolean search() {
+        if (!propagate()) {
+            return false;
+        }
+        if (board.getEmptySpaces() == 0) {
+            return true;
+        }
+        int index = chooseBranchCell();
+        if (index < 0) {
+            return false;
+        }
+        long candidates = board.candidatesAt(index);
+        for (long rest = candidates; rest != 0; rest &= rest - 1) {
+            counter++;
+            int mark = board.mark();
+            board.place(index, Long.numberOfTrailingZeros(rest) + 1);
+            if (search()) {
+                return true;
+            }
+            board.rollback(mark);
+        }
+        return false;
+    }
+
+    /**
+     * @return The empty cell with the fewest candidates, or -1 if some empty cell has none
+     */
+    private int chooseBranchCell() {
+        int cells = board.getGeometry().cells;
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        for (int i = 0; i < cells; i++) {
+            if (board.valueAt(i) != 0) {
+                continue;
+            }
+            int count = Long.bitCount(board.candidatesAt(i));
+            if (count < bestCount) {
+                if (count == 0) {
+                    return -1;
+                }
+                best = i;
+                bestCount = count;
+                if (count == 2) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Places naked and hidden singles until neither applies, then removes locked
+     * candidates and repeats while that makes progress.
+     * @return false if the board was found to be a dead end
+     */
+    private boolean propagate() {
+        GridBoard.Geometry geometry = board.getGeometry();
+        boolean changed = true;
+        while (changed) {
+            if (!propagateSingles(geometry)) {
+                return false;
+            }
+            changed = eliminateLocked(geometry, true) | eliminateLocked(geometry, false);
+        }
+        return true;
+    }
+
+    private boolean propagateSingles(GridBoard.Geometry geometry) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < geometry.cells; i++) {
+                if (board.valueAt(i) != 0) {
+                    continue;
+                }
+                long mask = board.candidatesAt(i);
+                if (mask == 0) {
+                    return false;
+                }
+                if ((mask & (mask - 1)) == 0) {
+                    board.place(i, Long.numberOfTrailingZeros(mask) + 1);
+                    counter++;
+                    changed = true;
+                }
+            }
+            for (int u = 0; u < geometry.units.length; u++) {
+                int[] cells = geometry.units[u];
+                long once = 0;
+                long twice = 0;
+                for (int cell : cells) {
+                    long mask = board.candidatesAt(cell);
+                    twice |= once & mask;
+                    once |= mask;
+                }
+                if ((once | board.usedInUnit(u)) != geometry.allCandidates) {
+                    return false;
+                }
+                for (long hidden = once & ~twice; hidden != 0; hidden &= hidden - 1) {
+                    long bit = hidden & -hidden;
+                    for (int cell : cells) {
+                        // An earlier placement in this pass may have taken the value.
+                        if ((board.candidatesAt(cell) & bit) != 0) {
+                            board.place(cell, Long.numberOfTrailingZeros(bit) + 1);
+                            counter++;
+                            changed = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Looks at every intersection of a line with a box. A value that the line can
+     * only take inside the box is removed from the rest of the box, and a value
+     * that the box can only take inside the line is removed from the rest of the line.
+     * @param rows true to use rows as the lines, false to use columns
+     * @return true if any candidate was removed
+     */
+    private boolean eliminateLocked(GridBoard.Geometry geometry, boolean rows) {
+        int n = geometry.boxSize;
+        int side = geometry.side;
+        if (segments.length < side * n) {
+            segments = new long[side * n];
+        }
+        long[] segments = this.segments;
+        Arrays.fill(segments, 0, side * n, 0L);
+        for (int line = 0; line < side; line++) {
+            for (int pos = 0; pos < side; pos++) {
+                segments[line * n + pos / n] |= board.candidatesAt(rows ? line * side + pos : pos * side + line);
+            }
+        }
+        boolean changed = false;
+        for (int line = 0; line < side; line++) {
+            int band = line / n;
+            for (int k = 0; k < n; k++) {
+                long lineRest = 0;
+                for (int other = 0; other < n; other++) {
+                    if (other != k) {
+                        lineRest |= segments[line * n + other];
+                    }
+                }
+                long boxRest = 0;
+                for (int other = band * n; other < band * n + n; other++) {
+                    if (other != line) {
+                        boxRest |= segments[other * n + k];
+                    }
+                }
+                long segment = segments[line * n + k];
+                long pointing = segment & ~boxRest;
+                long claiming = segment & ~lineRest;
+                if (pointing != 0) {
+                    // Only this line can hold the value within the box.
+                    for (int pos = 0; pos < side; pos++) {
+                        if (pos / n != k) {
+                            changed |= board.eliminate(rows ? line * side + pos : pos * side + line, pointing);
+                        }
+                    }
+                }
+                if (claiming != 0) {
+                    // Only this box can hold the value within the line.
+                    for (int other = band * n; other < band * n + n; other++) {
+                        for (int pos = k * n; other != line && pos < k * n + n; pos++) {
+                            changed |= board.eliminate(rows ? other * side + pos : pos * side + other, claiming);
+                        }
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/*
+ * This class reads a puzzle file through memory-mapped buffers.
+ * 
+ * The file has the same format that BatchSolver reads: one puzzle of 81 characters
+ * per line, blank lines ignored. Records are parsed straight from the mapped bytes
+ * into Boards, so no Strings or char arrays are created on the way. The file can be
+ * split into chunks that start and end on line boundaries, and each chunk can be
+ * read by a different thread.
+ */
+public class MappedPuzzleReader implements Closeable {
+    private static final int PUZZLE_LENGTH = Board.ROW_SIZE * Board.COL_SIZE;
+    // A single mapping cannot be larger than this.
+    private static final long MAX_CHUNK = Integer.MAX_VALUE;
+    // How many bytes to read at a time while looking for a line boundary.
+    private static final int SCAN_SIZE = 256;
+
+    private final FileChannel channel;
+    private final long size;
+
+    /**
+     * A range of whole lines of the file. A chunk maps its bytes the first time it is
+     * read, and it must only be read by one thread.
+     */
+    public final class Chunk implements Iterator<Board> {
+        private final long start;
+        private final long length;
+        private MappedByteBuffer buffer;
+        // The current record, found by hasNext(), or -1 if it has not been looked for.
+        private int recordStart = -1;
+        private int recordEnd;
+        // Where to start looking for the next record.
+        private int position;
+
+        Chunk(long start, long length) {
+            this.start = start;
+            this.length = length;
+        }
+
+        /**
+         * @return The offset in the file of the first byte of the chunk
+         */
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * @return The number of bytes in the chunk
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * Skips blank lines to find the next record
+         * @return true if there is another record in the chunk
+         * @throws UncheckedIOException if the chunk cannot be mapped
+         */
+        @Override
+        public boolean hasNext() {
+            if (recordStart >= 0) {
+                return true;
+            }
+            if (buffer == null) {
+                buffer = map(start, length);
+            }
+            int limit = buffer.limit();
+            while (position < limit) {
+                int lineStart = position;
+                int lineEnd = lineStart;
+                while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                position = lineEnd + 1;
+                // Trim spaces, tabs and the '\r' of CRLF line endings.
+                while (lineStart < lineEnd && (buffer.get(lineStart) & 0xFF) <= ' ') {
+                    lineStart++;
+                }
+                while (lineEnd > lineStart && (buffer.get(lineEnd - 1) & 0xFF) <= ' ') {
+                    lineEnd--;
+                }
+                if (lineStart < lineEnd) {
+                    recordStart = lineStart;
+                    recordEnd = lineEnd;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Parses the next record
+         * @return The puzzle, or null if the record is not a valid puzzle
+         */
+        @Override
+        public Board next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int offset = recordStart;
+            recordStart = -1;
+            if (recordEnd - offset != PUZZLE_LENGTH) {
+                return null;
+            }
+            try {
+                return Board.parse(buffer, offset);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Opens a puzzle file for reading
+     * @param file The file to read
+     * @throws IOException if the file cannot be opened
+     */
+    public MappedPuzzleReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        size = channel.size();
+    }
+
+    /**
+     * @return The size of the file in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Splits the file into chunks of roughly equal size. Each boundary is moved
+     * forward to the start of the next line, so no record is split between chunks.
+     * @param parts The number of chunks wanted. More are made if a chunk would be
+     *              too large to map, and fewer if the file has fewer lines.
+     * @return The chunks in file order
+     * @throws IOException if the file cannot be read
+     */
+    public List<Chunk> split(int parts) throws IOException {
+        if (parts < 1) {
+            throw new IllegalArgumentException("There must be at least one part");
+        }
+        parts = (int) Math.max(parts, (size + MAX_CHUNK - 1) / MAX_CHUNK);
+        List<Chunk> chunks = new ArrayList<>(parts);
+        long chunkStart = 0;
+        for (int i = 1; i <= parts && chunkStart < size; i++) {
+            long chunkEnd = i == parts ? size : Math.max(chunkStart, (long) ((double) size * i / parts));
+            if (chunkEnd < size) {
+                chunkEnd = nextLineStart(chunkEnd);
+            }
+            if (chunkEnd - chunkStart > MAX_CHUNK) {
+                throw new IOException("A line near offset " + chunkStart + " is too long");
+            }
+            if (chunkEnd > chunkStart) {
+                chunks.add(new Chunk(chunkStart, chunkEnd - chunkStart));
+            }
+            chunkStart = chunkEnd;
+        }
+        return chunks;
+    }
+
+    /**
+     * Reads the whole file, one chunk at a time
+     * @return The puzzles in file order, with null for records that are not valid puzzles
+     * @throws IOException if the file cannot be read
+     */
+    public Iterator<Board> puzzles() throws IOException {
+        Iterator<Chunk> chunks = split(1).iterator();
+        return new Iterator<Board>() {
+            private Chunk current;
+
+            @Override
+            public boolean hasNext() {
+                while (current == null || !current.hasNext()) {
+                    if (!chunks.hasNext()) {
+                        return false;
+                    }
+                    current = chunks.next();
+                }
+                return true;
+            }
+
+            @Override
+            public Board next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return The offset of the first line that starts at or after the position
+     */
+    private long nextLineStart(long position) throws IOException {
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_SIZE);
+        if (position == 0) {
+            return 0;
+        }
+        // A boundary right after a newline is already at the start of a line.
+        long offset = position - 1;
+        while (offset < size) {
+            scan.clear();
+            int read = channel.read(scan, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private MappedByteBuffer map(long start, long length) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * This class writes solutions to a file through memory-mapped buffers.
+ * 
+ * The output has the same format that BatchSolver writes: one line per puzzle with
+ * the solution, "unsolvable" or "invalid". The file is mapped a window at a time and
+ * a new window is mapped when the current one is full. When the writer is closed,
+ * the file is truncated to the bytes actually written.
+ * 
+ * That truncation needs a platform that allows a file to be truncated while parts of
+ * it are still mapped, as Linux and macOS do. Windows does not, and Java cannot unmap
+ * a buffer before the garbage collector frees it, so on Windows the writer fills a
+ * heap buffer instead and writes it through the file channel whenever it is full.
+ * The output is the same either way; isMapped() tells which way it is written.
+ */
+public class MappedSolutionWriter implements Closeable {
+    /**
+     * The longest line written for one puzzle: 81 digits and a newline.
+     */
+    public static final int MAX_LINE_LENGTH = Board.ROW_SIZE * Board.COL_SIZE + 1;
+    private static final byte[] UNSOLVABLE = "unsolvable\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] INVALID = "invalid\n".getBytes(StandardCharsets.US_ASCII);
+    private static final long WINDOW_SIZE = 64L << 20;
+    // The size of the buffer that replaces the window when the file is not mapped.
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final boolean mapped;
+    // The mapped window, or the heap buffer waiting to be written.
+    private ByteBuffer window;
+    // The offset in the file of the start of the current window.
+    private long windowStart = 0;
+
+    /**
+     * Creates or replaces an output file, mapped unless the platform cannot
+     * truncate a mapped file
+     * @param file The file to write
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public MappedSolutionWriter(Path file) throws IOException {
+        this(file, canTruncateWhileMapped());
+    }
+
+    /**
+     * Creates or replaces an output file
+     * @param file The file to write
+     * @param mapped true to write through mapped windows, false through the channel
+     * @throws IOException if the file cannot be created or mapped
+     */
+    MappedSolutionWriter(Path file, boolean mapped) throws IOException {
+        this.file = file;
+        this.mapped = mapped;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+        window = mapped ? channel.map(FileChannel.MapMode.READ_WRITE, 0, WINDOW_SIZE)
+                        : ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /**
+     * @return false on Windows, which cannot truncate a file while it is mapped
+     */
+    static boolean canTruncateWhileMapped() {
+        return !System.getProperty("os.name", "").startsWith("Windows");
+    }
+
+    /**
+     * @return true if the file is written through mapped windows, false if
+     *         through the channel
+     */
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * Appends the line for one puzzle to a buffer
+     * @param dest The buffer to write into, with at least MAX_LINE_LENGTH bytes remaining
+     * @param puzzle The puzzle, or null if the input was not a valid puzzle
+     * @param solution The solution, or null if the puzzle is unsolvable
+     */
+    public static void format(ByteBuffer dest, Board puzzle, Board solution) {
+        if (puzzle == null) {
+            dest.put(INVALID);
+        } else if (solution == null) {
+            dest.put(UNSOLVABLE);
+        } else {
+            int position = dest.position();
+            solution.getValues(dest, position);
+            dest.put(position + MAX_LINE_LENGTH - 1, (byte) '\n');
+            dest.position(position + MAX_LINE_LENGTH);
+        }
+    }
+
+    /**
+     * Writes the line for one puzzle
+     * @param puzzle The puzzle, or null if the input was not a valid puzzle
+     * @param solution The solution, or null if the puzzle is unsolvable
+     * @throws IOException if a new window cannot be mapped
+     */
+    public void write(Board puzzle, Board solution) throws IOException {
+        if (window.remaining() < MAX_LINE_LENGTH) {
+            nextWindow();
+        }
+        format(window, puzzle, solution);
+    }
+
+    /**
+     * Writes lines that were already formatted, for example by a worker thread
+     * @param lines The bytes from the position to the limit are written
+     * @throws IOException if a new window cannot be mapped
+     */
+    public void write(ByteBuffer lines) throws IOException {
+        while (lines.hasRemaining()) {
+            if (!window.hasRemaining()) {
+                nextWindow();
+            }
+            int count = Math.min(lines.remaining(), window.remaining());
+            ByteBuffer part = lines.duplicate();
+            part.limit(part.position() + count);
+            window.put(part);
+            lines.position(lines.position() + count);
+        }
+    }
+
+    /**
+     * @return The number of bytes written so far
+     */
+    public long getPosition() {
+        return windowStart + window.position();
+    }
+
+    /**
+     * Truncates the file to the bytes written, or writes the rest of the buffer,
+     * and closes it. Mapped data reaches the disk when the operating system
+     * flushes the mapped pages.
+     * @throws IOException if the file cannot be truncated or written
+     */
+    @Override
+    public void close() throws IOException {
+        if (!mapped) {
+            try {
+                nextWindow();
+            } finally {
+                channel.close();
+            }
+            return;
+        }
+        long length = getPosition();
+        try {
+            channel.truncate(length);
+        } catch (IOException e) {
+            throw new IOException("Could not truncate " + file + " to the " + length
+                                  + " bytes written while it is mapped", e);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void nextWindow() throws IOException {
+        if (!mapped) {
+            window.flip();
+            while (window.hasRemaining()) {
+                windowStart += channel.write(window, windowStart);
+            }
+            window.clear();
+            return;
+        }
+        windowStart += window.position();
+        window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, WINDOW_SIZE);
+    }
+}
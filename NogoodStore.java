@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Arrays;
+
+/*
+ * A bounded store of nogoods: sets of placements that a search has proven cannot
+ * all appear in a solution of the puzzle being solved.
+ * 
+ * A placement is encoded as a literal, cell * 9 + digit - 1. Every nogood is
+ * indexed under each of its literals, so that before a value is tried the search
+ * can look up the nogoods it would complete. Only the nogoods of one puzzle may
+ * be kept together, since they are proven for its givens.
+ * 
+ * When the store is full, a nogood is evicted by the clock (second chance)
+ * policy: nogoods that have pruned a branch since the hand last passed them are
+ * spared once.
+ */
+public class NogoodStore {
+    private static final int LITERALS = Board.ROW_SIZE * Board.COL_SIZE * Board.ROW_SIZE;
+
+    private final int capacity;
+    // The literals of the nogood in each slot, or null for a free slot.
+    private final int[][] slots;
+    private final boolean[] referenced;
+    // For each literal, the slots of the nogoods containing it.
+    private final int[][] index = new int[LITERALS][];
+    private final int[] indexSize = new int[LITERALS];
+    private int size;
+    private int hand;
+    private long learned;
+    private long evicted;
+    private long prunes;
+
+    /**
+     * Creates an empty store
+     * @param capacity The most nogoods kept at once
+     */
+    public NogoodStore(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.slots = new int[capacity][];
+        this.referenced = new boolean[capacity];
+    }
+
+    static int literal(int cell, char value) {
+        return cell * Board.ROW_SIZE + value - '1';
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The number of nogoods currently stored
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of nogoods added since the store was created or cleared
+     */
+    public long getLearned() {
+        return learned;
+    }
+
+    /**
+     * @return The number of nogoods evicted to make room for newer ones
+     */
+    public long getEvicted() {
+        return evicted;
+    }
+
+    /**
+     * @return The number of branches pruned because they completed a nogood
+     */
+    public long getPrunes() {
+        return prunes;
+    }
+
+    /**
+     * Removes every nogood, for reuse on another puzzle
+     */
+    public void clear() {
+        Arrays.fill(slots, null);
+        Arrays.fill(referenced, false);
+        Arrays.fill(indexSize, 0);
+        size = 0;
+        hand = 0;
+        learned = 0;
+        evicted = 0;
+        prunes = 0;
+    }
+
+    /**
+     * Stores a nogood, evicting an older one if the store is full
+     * @param literals The literals of the nogood in their first count elements
+     * @param count The number of literals
+     */
+    void add(int[] literals, int count) {
+        int slot = size < capacity ? freeSlot() : evict();
+        int[] nogood = Arrays.copyOf(literals, count);
+        slots[slot] = nogood;
+        referenced[slot] = false;
+        for (int literal : nogood) {
+            int[] slotsOf = index[literal];
+            if (slotsOf == null) {
+                slotsOf = index[literal] = new int[4];
+            } else if (indexSize[literal] == slotsOf.length) {
+                slotsOf = index[literal] = Arrays.copyOf(slotsOf, slotsOf.length * 2);
+            }
+            slotsOf[indexSize[literal]++] = slot;
+        }
+        size++;
+        learned++;
+    }
+
+    /**
+     * Checks whether placing a value would complete a nogood, given the values
+     * already on the board
+     * @param board The board being searched
+     * @param cell The index of the cell
+     * @param value The value about to be placed
+     * @return true if the placement can be skipped
+     */
+    boolean refutes(Board board, int cell, char value) {
+        int literal = literal(cell, value);
+        int[] slotsOf = index[literal];
+        for (int k = indexSize[literal] - 1; k >= 0; k--) {
+            int slot = slotsOf[k];
+            if (holdsWithout(board, slots[slot], literal)) {
+                referenced[slot] = true;
+                prunes++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean holdsWithout(Board board, int[] nogood, int skipped) {
+        for (int literal : nogood) {
+            if (literal != skipped
+                    && board.valueAt(literal / Board.ROW_SIZE) != (char) ('1' + literal % Board.ROW_SIZE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int freeSlot() {
+        while (slots[hand] != null) {
+            hand = (hand + 1) % capacity;
+        }
+        return hand;
+    }
+
+    private int evict() {
+        while (referenced[hand]) {
+            referenced[hand] = false;
+            hand = (hand + 1) % capacity;
+        }
+        int slot = hand;
+        for (int literal : slots[slot]) {
+            int[] slotsOf = index[literal];
+            int last = --indexSize[literal];
+            for (int k = 0; k <= last; k++) {
+                if (slotsOf[k] == slot) {
+                    slotsOf[k] = slotsOf[last];
+                    break;
+                }
+            }
+        }
+        slots[slot] = null;
+        size--;
+        evicted++;
+        hand = (hand + 1) % capacity;
+        return slot;
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/*
+ * This class solves many puzzles at once on a work-stealing ForkJoinPool.
+ * 
+ * Engines are not thread-safe, so every worker thread gets its own engine from the
+ * factory and reuses it for all the puzzles that thread solves. Each task solves
+ * one puzzle, except with a BitSlicedSolver, whose tasks solve a block of LANES
+ * puzzles so that every lane is filled.
+ */
+public class ParallelBatchSolver implements AutoCloseable {
+    // How many puzzles per worker may be queued ahead of the caller when streaming.
+    private static final int IN_FLIGHT_PER_THREAD = 64;
+    // How many chunks per worker may be queued ahead of the caller.
+    private static final int CHUNKS_PER_THREAD = 2;
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<SudokuEngine> engines;
+    // The puzzles per task, and how many tasks may be queued ahead of the caller.
+    private final int blockSize;
+    private final int maxInFlight;
+
+    /**
+     * The outcome of solving one puzzle.
+     */
+    public static final class Result {
+        private final long index;
+        private final Board puzzle;
+        private final Board solution;
+        private final int steps;
+
+        Result(long index, Board puzzle, Board solution, int steps) {
+            this.index = index;
+            this.puzzle = puzzle;
+            this.solution = solution;
+            this.steps = steps;
+        }
+
+        /**
+         * @return The position of the puzzle in the input, starting at 0
+         */
+        public long getIndex() {
+            return index;
+        }
+
+        /**
+         * @return The puzzle as it was given, or null if the input was null
+         */
+        public Board getPuzzle() {
+            return puzzle;
+        }
+
+        /**
+         * @return The solved board, or null if there is no solution
+         */
+        public Board getSolution() {
+            return solution;
+        }
+
+        /**
+         * @return The engine's step counter for this puzzle. A bit-sliced engine
+         *         counts a block of puzzles together, and its whole count is on the
+         *         first result of the block.
+         */
+        public int getSteps() {
+            return steps;
+        }
+    }
+
+    /**
+     * The formatted output of solving one chunk of a puzzle file.
+     */
+    public static final class ChunkResult {
+        private final ByteBuffer output;
+        private final long puzzles;
+        private final long unsolvable;
+        private final long invalid;
+        private final long steps;
+
+        ChunkResult(ByteBuffer output, long puzzles, long unsolvable, long invalid, long steps) {
+            this.output = output;
+            this.puzzles = puzzles;
+            this.unsolvable = unsolvable;
+            this.invalid = invalid;
+            this.steps = steps;
+        }
+
+        /**
+         * @return One line per puzzle, as written by MappedSolutionWriter, ready to be read
+         */
+        public ByteBuffer getOutput() {
+            return output;
+        }
+
+        public long getPuzzles() {
+            return puzzles;
+        }
+
+        public long getUnsolvable() {
+            return unsolvable;
+        }
+
+        public long getInvalid() {
+            return invalid;
+        }
+
+        /**
+         * @return The sum of the engine's step counters over the chunk
+         */
+        public long getSteps() {
+            return steps;
+        }
+    }
+
+    /**
+     * Creates a batch solver that uses every available processor
+     * @param engineFactory Creates one engine per worker thread
+     */
+    public ParallelBatchSolver(Supplier<SudokuEngine> engineFactory) {
+        this(engineFactory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a batch solver
+     * @param engineFactory Creates one engine per worker thread
+     * @param parallelism The number of worker threads
+     */
+    public ParallelBatchSolver(Supplier<SudokuEngine> engineFactory, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.pool = new ForkJoinPool(parallelism);
+        this.engines = ThreadLocal.withInitial(engineFactory);
+        this.blockSize = engineFactory.get() instanceof BitSlicedSolver ? BitSlicedSolver.LANES : 1;
+        this.maxInFlight = Math.max(2 * parallelism, parallelism * IN_FLIGHT_PER_THREAD / blockSize);
+    }
+
+    /**
+     * Solves every puzzle in a collection
+     * @param puzzles The puzzles; they are not modified
+     * @return The solutions in the order of the puzzles, with null for unsolvable ones
+     */
+    public List<Board> solveAll(Collection<Board> puzzles) {
+        Board[] input = puzzles.toArray(new Board[0]);
+        Board[] solutions = new Board[input.length];
+        int threshold = Math.max(blockSize, input.length / (pool.getParallelism() * 8));
+        pool.invoke(new SolveRange(input, solutions, 0, input.length, threshold));
+        List<Board> result = new ArrayList<>(solutions.length);
+        for (Board solution : solutions) {
+            result.add(solution);
+        }
+        return result;
+    }
+
+    /**
+     * Solves a stream of puzzles, handing each result to the consumer on the
+     * calling thread. Only a bounded number of puzzles are read ahead, so the
+     * input can be arbitrarily long.
+     * @param puzzles The puzzles; they are not modified. A null puzzle gives a
+     *                result with neither a puzzle nor a solution.
+     * @param ordered true to receive results in input order, false to receive them
+     *                as soon as they complete
+     * @param consumer Receives the results
+     */
+    public void solveAll(Iterator<Board> puzzles, boolean ordered, Consumer<Result> consumer) {
+        if (ordered) {
+            ArrayDeque<Future<Result[]>> window = new ArrayDeque<>();
+            long index = 0;
+            while (puzzles.hasNext()) {
+                Board[] block = nextBlock(puzzles);
+                long first = index;
+                index += block.length;
+                window.add(pool.submit(() -> solveBlock(first, block)));
+                if (window.size() >= maxInFlight) {
+                    deliver(await(window.poll()), consumer);
+                }
+            }
+            while (!window.isEmpty()) {
+                deliver(await(window.poll()), consumer);
+            }
+        } else {
+            CompletionService<Result[]> completed = new ExecutorCompletionService<>(pool);
+            int inFlight = 0;
+            long index = 0;
+            while (puzzles.hasNext()) {
+                Board[] block = nextBlock(puzzles);
+                long first = index;
+                index += block.length;
+                completed.submit(() -> solveBlock(first, block));
+                if (++inFlight >= maxInFlight) {
+                    deliver(await(take(completed)), consumer);
+                    inFlight--;
+                }
+            }
+            for (; inFlight > 0; inFlight--) {
+                deliver(await(take(completed)), consumer);
+            }
+        }
+    }
+
+    /**
+     * @return The next blockSize puzzles, or as many as are left
+     */
+    private Board[] nextBlock(Iterator<Board> puzzles) {
+        Board[] block = new Board[blockSize];
+        int count = 0;
+        while (count < blockSize && puzzles.hasNext()) {
+            block[count++] = puzzles.next();
+        }
+        return count == blockSize ? block : Arrays.copyOf(block, count);
+    }
+
+    private static void deliver(Result[] results, Consumer<Result> consumer) {
+        for (Result result : results) {
+            consumer.accept(result);
+        }
+    }
+
+    /**
+     * Solves the chunks of a puzzle file, one chunk per task. Each worker parses its
+     * chunk straight from the mapped file and formats the solutions into a buffer,
+     * which is handed to the consumer on the calling thread in chunk order. Only a
+     * few chunks per worker are in flight at once.
+     * @param chunks The chunks, in file order
+     * @param consumer Receives the output of each chunk
+     */
+    public void solveChunks(List<MappedPuzzleReader.Chunk> chunks, Consumer<ChunkResult> consumer) {
+        ArrayDeque<Future<ChunkResult>> window = new ArrayDeque<>();
+        int maxChunks = pool.getParallelism() * CHUNKS_PER_THREAD;
+        for (MappedPuzzleReader.Chunk chunk : chunks) {
+            window.add(pool.submit(() -> solveChunk(chunk)));
+            if (window.size() >= maxChunks) {
+                consumer.accept(await(window.poll()));
+            }
+        }
+        while (!window.isEmpty()) {
+            consumer.accept(await(window.poll()));
+        }
+    }
+
+    /**
+     * Stops the worker threads once the puzzles already submitted are solved
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Solves a block of puzzles from a stream
+     * @param first The position of the block's first puzzle in the input
+     * @param block The puzzles; they are not modified
+     * @return A result for each puzzle
+     */
+    private Result[] solveBlock(long first, Board[] block) {
+        Board[] copies = new Board[block.length];
+        for (int i = 0; i < block.length; i++) {
+            copies[i] = block[i] != null ? block[i].copy() : null;
+        }
+        Board[] solutions = new Board[block.length];
+        int steps = solveBlock(copies, 0, block.length, solutions, 0);
+        Result[] results = new Result[block.length];
+        for (int i = 0; i < block.length; i++) {
+            results[i] = new Result(first + i, block[i], solutions[i], i == 0 ? steps : 0);
+        }
+        return results;
+    }
+
+    /**
+     * Solves a range of puzzles on this thread's engine, which a bit-sliced
+     * engine does all at once
+     * @param puzzles The puzzles, which the engine may modify. Null entries give null solutions.
+     * @param from The index of the first puzzle to solve
+     * @param to The index after the last puzzle to solve
+     * @param solutions Receives the solution of each puzzle, or null if it is unsolvable
+     * @param offset The index in solutions for the puzzle at from
+     * @return The engine's step counter for the range
+     */
+    private int solveBlock(Board[] puzzles, int from, int to, Board[] solutions, int offset) {
+        SudokuEngine engine = engines.get();
+        engine.resetCounter();
+        if (engine instanceof BitSlicedSolver) {
+            ((BitSlicedSolver) engine).solveAll(puzzles, from, to, solutions, offset);
+        } else {
+            for (int i = from; i < to; i++) {
+                solutions[offset + i - from] = puzzles[i] != null ? engine.solve(puzzles[i]) : null;
+            }
+        }
+        return engine.getCounter();
+    }
+
+    private ChunkResult solveChunk(MappedPuzzleReader.Chunk chunk) {
+        // A line of output is rarely longer than the line it came from.
+        ByteBuffer output = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8,
+                chunk.getLength() + MappedSolutionWriter.MAX_LINE_LENGTH));
+        long puzzles = 0;
+        long unsolvable = 0;
+        long invalid = 0;
+        long steps = 0;
+        // The chunk's boards are parsed afresh, so the engine may solve them in place.
+        Board[] block = new Board[blockSize];
+        Board[] solutions = new Board[blockSize];
+        while (chunk.hasNext()) {
+            int count = 0;
+            while (count < blockSize && chunk.hasNext()) {
+                block[count++] = chunk.next();
+            }
+            steps += solveBlock(block, 0, count, solutions, 0);
+            for (int i = 0; i < count; i++) {
+                if (output.remaining() < MappedSolutionWriter.MAX_LINE_LENGTH) {
+                    ByteBuffer larger = ByteBuffer.allocate(output.capacity() * 2);
+                    output.flip();
+                    output = larger.put(output);
+                }
+                MappedSolutionWriter.format(output, block[i], solutions[i]);
+                puzzles++;
+                if (block[i] == null) {
+                    invalid++;
+                } else if (solutions[i] == null) {
+                    unsolvable++;
+                }
+            }
+        }
+        output.flip();
+        return new ChunkResult(output, puzzles, unsolvable, invalid, steps);
+    }
+
+    private static <T> Future<T> take(CompletionService<T> completed) {
+        try {
+            return completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a solution", e);
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a solution", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Splits a range of puzzles in half until it is small enough to solve directly.
+     * Idle workers steal the halves that have not been started yet.
+     */
+    private class SolveRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Board[] puzzles;
+        private final Board[] solutions;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        SolveRange(Board[] puzzles, Board[] solutions, int from, int to, int threshold) {
+            this.puzzles = puzzles;
+            this.solutions = solutions;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                Board[] copies = new Board[to - from];
+                for (int i = from; i < to; i++) {
+                    copies[i - from] = puzzles[i] != null ? puzzles[i].copy() : null;
+                }
+                solveBlock(copies, 0, copies.length, solutions, from);
+                return;
+            }
+            // Split on a block boundary, so that every block but the last fills the lanes.
+            int mid = from + Math.max(blockSize, (to - from) / 2 / blockSize * blockSize);
+            invokeAll(new SolveRange(puzzles, solutions, from, mid, threshold),
+                      new SolveRange(puzzles, solutions, mid, to, threshold));
+        }
+    }
+}
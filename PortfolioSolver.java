@@ -0,0 +1,559 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * This class solves a puzzle by racing several solver configurations against each
+ * other and taking the first answer.
+ * 
+ * Every configuration runs on its own thread with its own copy of the puzzle. The
+ * first one to find a solution, or to prove there is none, cancels the others
+ * through the budgets of their searches.
+ * 
+ * The winner of every race is recorded in a Routes table under a few cheap features
+ * of the puzzle: its clue count and a histogram of the candidate counts of its
+ * empty cells. Once enough puzzles with the same features have been raced, later
+ * puzzles like them are handed straight to the configuration that won most often,
+ * with a node limit. A puzzle that exceeds it is raced after all, and the routed
+ * configuration loses one of its wins.
+ */
+public class PortfolioSolver implements SudokuEngine {
+    // The threads that run the configurations of every race.
+    private static final ExecutorService RACERS = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "portfolio-racer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A way of searching: branch policy, tie-break, propagation strategies and
+     * whether to restart.
+     */
+    public static final class Configuration {
+        private final String name;
+        private final Solver.BranchPolicy branchPolicy;
+        private final Solver.TieBreak tieBreak;
+        private final Set<Propagator.Strategy> strategies;
+        private final long restartNodes;
+
+        /**
+         * Creates a configuration
+         * @param name A short name for reports and the routes file
+         * @param branchPolicy Which cell to branch on
+         * @param tieBreak How to choose among equally good cells
+         * @param strategies The propagation strategies
+         * @param restartNodes 0 to search once; otherwise the node limit of the first
+         *                     of a series of randomized searches, each allowed twice
+         *                     the nodes of the one before
+         */
+        public Configuration(String name, Solver.BranchPolicy branchPolicy, Solver.TieBreak tieBreak,
+                             Set<Propagator.Strategy> strategies, long restartNodes) {
+            this.name = name;
+            this.branchPolicy = branchPolicy;
+            this.tieBreak = tieBreak;
+            this.strategies = Collections.unmodifiableSet(EnumSet.copyOf(strategies));
+            this.restartNodes = restartNodes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Solver.BranchPolicy getBranchPolicy() {
+            return branchPolicy;
+        }
+
+        public Solver.TieBreak getTieBreak() {
+            return tieBreak;
+        }
+
+        public Set<Propagator.Strategy> getStrategies() {
+            return strategies;
+        }
+
+        public long getRestartNodes() {
+            return restartNodes;
+        }
+
+        Solver newSolver() {
+            Solver solver = new Solver();
+            solver.setBranchPolicy(branchPolicy);
+            solver.setTieBreak(tieBreak);
+            solver.setStrategies(strategies);
+            return solver;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * The configurations raced by default: cheap propagation, the default solver,
+     * every strategy with the most-constraining tie-break, and randomized restarts.
+     */
+    public static final List<Configuration> DEFAULT_CONFIGURATIONS = Collections.unmodifiableList(Arrays.asList(
+            new Configuration("singles", Solver.BranchPolicy.FEWEST_CANDIDATES, Solver.TieBreak.ROW_MAJOR,
+                              EnumSet.of(Propagator.Strategy.NAKED_SINGLES, Propagator.Strategy.HIDDEN_SINGLES), 0),
+            new Configuration("default", Solver.BranchPolicy.FEWEST_CANDIDATES, Solver.TieBreak.ROW_MAJOR,
+                              Propagator.DEFAULT_STRATEGIES, 0),
+            new Configuration("full", Solver.BranchPolicy.FEWEST_CANDIDATES, Solver.TieBreak.MOST_EMPTY_PEERS,
+                              EnumSet.allOf(Propagator.Strategy.class), 0),
+            new Configuration("restarts", Solver.BranchPolicy.FEWEST_CANDIDATES, Solver.TieBreak.RANDOM,
+                              Propagator.DEFAULT_STRATEGIES, 64)));
+
+    /**
+     * The record of which configuration won for which features. It can be shared
+     * by many PortfolioSolvers on different threads, and saved to a file.
+     */
+    public static final class Routes {
+        // Puzzles are routed after this many races with the same features.
+        private static final int MIN_RACES = 16;
+
+        private final List<Configuration> configurations;
+        private final Map<Integer, long[]> wins = new HashMap<>();
+
+        /**
+         * Creates an empty table
+         * @param configurations The configurations being raced, in race order
+         */
+        public Routes(List<Configuration> configurations) {
+            this.configurations = configurations;
+        }
+
+        public List<Configuration> getConfigurations() {
+            return configurations;
+        }
+
+        /**
+         * @param features The feature key of a puzzle
+         * @return The index of the configuration to use alone, or -1 to race
+         */
+        public synchronized int route(int features) {
+            long[] counts = wins.get(features);
+            if (counts == null) {
+                return -1;
+            }
+            long total = 0;
+            int best = 0;
+            boolean tied = false;
+            for (int i = 0; i < counts.length; i++) {
+                total += counts[i];
+                if (counts[i] > counts[best]) {
+                    best = i;
+                    tied = false;
+                } else if (i != best && counts[i] == counts[best]) {
+                    tied = true;
+                }
+            }
+            return total >= MIN_RACES && !tied ? best : -1;
+        }
+
+        /**
+         * Records the winner of a race
+         * @param features The feature key of the puzzle
+         * @param winner The index of the configuration that answered first
+         */
+        public synchronized void record(int features, int winner) {
+            wins.computeIfAbsent(features, k -> new long[configurations.size()])[winner]++;
+        }
+
+        /**
+         * Takes back one win of a configuration that was routed to and ran out of
+         * nodes, so that a poor route is eventually replaced
+         * @param features The feature key of the puzzle
+         * @param loser The index of the configuration
+         */
+        public synchronized void penalize(int features, int loser) {
+            long[] counts = wins.get(features);
+            if (counts != null && counts[loser] > 0) {
+                counts[loser]--;
+            }
+        }
+
+        /**
+         * @return The number of feature keys that are routed instead of raced
+         */
+        public synchronized int getRoutedKeys() {
+            int routed = 0;
+            for (Integer key : wins.keySet()) {
+                if (route(key) >= 0) {
+                    routed++;
+                }
+            }
+            return routed;
+        }
+
+        /**
+         * Writes the table as text: a header naming the configurations, then one line
+         * per feature key with its win counts in the same order.
+         * @param file The file to write
+         * @throws IOException if writing fails
+         */
+        public synchronized void save(Path file) throws IOException {
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+                out.write("features");
+                for (Configuration configuration : configurations) {
+                    out.write(' ');
+                    out.write(configuration.getName());
+                }
+                out.write('\n');
+                for (Map.Entry<Integer, long[]> entry : wins.entrySet()) {
+                    out.write(Integer.toString(entry.getKey()));
+                    for (long count : entry.getValue()) {
+                        out.write(' ');
+                        out.write(Long.toString(count));
+                    }
+                    out.write('\n');
+                }
+            }
+        }
+
+        /**
+         * Adds the wins saved in a file to this table. Configurations are matched by
+         * name; counts for configurations this table does not have are dropped.
+         * @param file A file written by save()
+         * @throws IOException if reading fails or the file is malformed
+         */
+        public synchronized void load(Path file) throws IOException {
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+                String header = in.readLine();
+                if (header == null || !header.startsWith("features")) {
+                    throw new IOException("Not a routes file: " + file);
+                }
+                String[] names = header.trim().split(" +");
+                int[] columns = new int[names.length];
+                for (int c = 1; c < names.length; c++) {
+                    columns[c] = -1;
+                    for (int i = 0; i < configurations.size(); i++) {
+                        if (configurations.get(i).getName().equals(names[c])) {
+                            columns[c] = i;
+                        }
+                    }
+                }
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+                    String[] fields = line.trim().split(" +");
+                    try {
+                        long[] counts = wins.computeIfAbsent(Integer.parseInt(fields[0]),
+                                                             k -> new long[configurations.size()]);
+                        for (int c = 1; c < fields.length && c < columns.length; c++) {
+                            if (columns[c] >= 0) {
+                                counts[columns[c]] += Long.parseLong(fields[c]);
+                            }
+                        }
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Malformed routes line: " + line);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * One race: the answer, and the budgets to cancel once there is one.
+     */
+    private static final class Race {
+        final AtomicBoolean finished = new AtomicBoolean();
+        final List<SolveBudget> budgets = new ArrayList<>();
+        final LinkedBlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+
+        /**
+         * @return A budget for the next search of a racer, already cancelled if the race is over
+         */
+        synchronized SolveBudget newBudget(long maxNodes) {
+            SolveBudget budget = new SolveBudget();
+            budget.setMaxNodes(maxNodes);
+            if (finished.get()) {
+                budget.cancel();
+            }
+            budgets.add(budget);
+            return budget;
+        }
+
+        synchronized void cancelAll() {
+            finished.set(true);
+            for (SolveBudget budget : budgets) {
+                budget.cancel();
+            }
+        }
+    }
+
+    /**
+     * How one configuration's search ended.
+     */
+    private static final class Outcome {
+        final int configuration;
+        final Solver solver;
+        final Board solution;
+        // true if the search ran to completion, so a null solution proves there is none
+        final boolean complete;
+        final RuntimeException error;
+
+        Outcome(int configuration, Solver solver, Board solution, boolean complete, RuntimeException error) {
+            this.configuration = configuration;
+            this.solver = solver;
+            this.solution = solution;
+            this.complete = complete;
+            this.error = error;
+        }
+    }
+
+    private final Routes routes;
+    private long routedNodeLimit = 10000;
+    private int counter = 0;
+    private SolveStats stats;
+    private Configuration lastWinner;
+    private boolean lastRouted;
+    private long races = 0;
+    private long routed = 0;
+    private long fallbacks = 0;
+
+    /**
+     * Creates a portfolio of the default configurations with its own routes table
+     */
+    public PortfolioSolver() {
+        this(new Routes(DEFAULT_CONFIGURATIONS));
+    }
+
+    /**
+     * Creates a portfolio that races the configurations of a routes table
+     * @param routes The table, which may be shared with other PortfolioSolvers
+     */
+    public PortfolioSolver(Routes routes) {
+        if (routes.getConfigurations().isEmpty()) {
+            throw new IllegalArgumentException("A portfolio needs at least one configuration");
+        }
+        this.routes = routes;
+    }
+
+    public Routes getRoutes() {
+        return routes;
+    }
+
+    /**
+     * @param routedNodeLimit The search nodes a routed configuration may use before
+     *                        the puzzle is raced instead
+     */
+    public void setRoutedNodeLimit(long routedNodeLimit) {
+        this.routedNodeLimit = routedNodeLimit;
+    }
+
+    /**
+     * @return The configuration that produced the last answer
+     */
+    public Configuration getLastWinner() {
+        return lastWinner;
+    }
+
+    /**
+     * @return true if the last answer came from a routed configuration rather than a race
+     */
+    public boolean wasLastRouted() {
+        return lastRouted;
+    }
+
+    public long getRaces() {
+        return races;
+    }
+
+    public long getRouted() {
+        return routed;
+    }
+
+    /**
+     * @return The number of routed solves that hit the node limit and were raced
+     */
+    public long getFallbacks() {
+        return fallbacks;
+    }
+
+    @Override
+    public int getCounter() {
+        return counter;
+    }
+
+    @Override
+    public void resetCounter() {
+        counter = 0;
+    }
+
+    /**
+     * @return The statistics of the configuration that answered the last solve
+     */
+    @Override
+    public SolveStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Solves a puzzle by routing or racing
+     * @param puzzle The puzzle; it is not modified
+     * @return The solution as a new board, or null if the puzzle has none
+     */
+    @Override
+    public Board solve(Board puzzle) {
+        int features = features(puzzle);
+        int route = routes.route(features);
+        if (route >= 0) {
+            Configuration configuration = routes.getConfigurations().get(route);
+            Solver solver = configuration.newSolver();
+            SolveBudget budget = new SolveBudget();
+            budget.setMaxNodes(routedNodeLimit);
+            solver.setBudget(budget);
+            Board solution = solver.solve(puzzle.copy());
+            if (solution != null || budget.getLimitReached() == null) {
+                routed++;
+                finish(configuration, solver, true);
+                return solution;
+            }
+            fallbacks++;
+            routes.penalize(features, route);
+        }
+        return race(puzzle, features);
+    }
+
+    private Board race(Board puzzle, int features) {
+        races++;
+        List<Configuration> configurations = routes.getConfigurations();
+        Race race = new Race();
+        for (int i = 0; i < configurations.size(); i++) {
+            int index = i;
+            Board copy = puzzle.copy();
+            RACERS.execute(() -> race.outcomes.add(run(race, index, configurations.get(index), copy)));
+        }
+
+        Outcome answer = null;
+        RuntimeException error = null;
+        try {
+            for (int received = 0; received < configurations.size() && answer == null; received++) {
+                Outcome outcome = race.outcomes.take();
+                if (outcome.error != null) {
+                    error = outcome.error;
+                } else if (outcome.solution != null || outcome.complete) {
+                    answer = outcome;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while racing", e);
+        } finally {
+            race.cancelAll();
+        }
+        if (answer == null) {
+            throw error != null ? error : new IllegalStateException("No configuration finished");
+        }
+        routes.record(features, answer.configuration);
+        finish(configurations.get(answer.configuration), answer.solver, false);
+        return answer.solution;
+    }
+
+    /**
+     * Runs one configuration of a race, restarting it if it is set up to.
+     */
+    private static Outcome run(Race race, int index, Configuration configuration, Board board) {
+        Solver solver = configuration.newSolver();
+        try {
+            long limit = configuration.getRestartNodes();
+            while (true) {
+                if (configuration.getRestartNodes() > 0) {
+                    solver.setRandomSeed(ThreadLocalRandom.current().nextLong());
+                }
+                SolveBudget budget = race.newBudget(limit);
+                solver.setBudget(budget);
+                Board solution = solver.solve(board);
+                SolveBudget.Limit reached = budget.getLimitReached();
+                if (reached != SolveBudget.Limit.NODES || limit == 0) {
+                    return new Outcome(index, solver, solution, solution != null || reached == null, null);
+                }
+                // The IN_PLACE search has rolled the board back; try again with more room.
+                limit = limit > Long.MAX_VALUE / 2 ? 0 : limit * 2;
+            }
+        } catch (RuntimeException e) {
+            return new Outcome(index, solver, null, false, e);
+        }
+    }
+
+    private void finish(Configuration winner, Solver solver, boolean wasRouted) {
+        lastWinner = winner;
+        lastRouted = wasRouted;
+        counter += solver.getCounter();
+        stats = solver.getStats();
+    }
+
+    /**
+     * Computes the feature key of a puzzle: its clue count in five bands, how
+     * many empty cells have at most two candidates, in four bands, and how many
+     * have seven or more, in three bands.
+     * @param puzzle The puzzle
+     * @return A small number identifying the combination of bands
+     */
+    public static int features(Board puzzle) {
+        int[] histogram = new int[Board.ROW_SIZE + 1];
+        int clues = 0;
+        for (int i = 0; i < Board.ROW_SIZE; i++) {
+            for (int j = 0; j < Board.COL_SIZE; j++) {
+                if (puzzle.getValue(i, j) != Board.EMPTY) {
+                    clues++;
+                } else {
+                    histogram[Integer.bitCount(puzzle.getCandidateMask(i, j))]++;
+                }
+            }
+        }
+        int clueBand = clues < 22 ? 0 : clues < 25 ? 1 : clues < 28 ? 2 : clues < 32 ? 3 : 4;
+        int narrow = histogram[0] + histogram[1] + histogram[2];
+        int narrowBand = narrow < 5 ? 0 : narrow < 10 ? 1 : narrow < 20 ? 2 : 3;
+        int wide = histogram[7] + histogram[8] + histogram[9];
+        int wideBand = wide == 0 ? 0 : wide < 5 ? 1 : 2;
+        return (clueBand * 4 + narrowBand) * 3 + wideBand;
+    }
+}
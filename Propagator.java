@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * This class applies constraint-propagation strategies to a Board until none of
+ * them can make further progress.
+ * 
+ * Work is driven by the units (rows, columns and boxes) that the board reports as
+ * changed. Each strategy keeps its own set of pending units; whenever a strategy
+ * changes the board, the units it touched become pending again for every strategy.
+ * The strategies are tried in order, so the cheap ones run to a fixpoint before
+ * the expensive ones look at a unit.
+ * 
+ * The units are the houses of the board's RuleSet, so the strategies also work on
+ * the diagonals of an X puzzle and the regions of a Jigsaw. The sums of Killer
+ * cages are enforced after the strategies reach a fixpoint, whichever strategies
+ * are chosen, since they are part of the rules rather than a way of solving.
+ */
+public class Propagator {
+    /**
+     * The available strategies, in their default order.
+     */
+    public enum Strategy {
+        NAKED_SINGLES,      // A cell with one candidate takes it
+        HIDDEN_SINGLES,     // A digit with one place in a unit goes there
+        POINTING,           // A digit confined to where a box meets another unit leaves the rest of that unit
+        BOX_LINE,           // A digit confined to where a line meets another unit leaves the rest of that unit
+        NAKED_PAIRS,        // Two cells of a unit holding the same two digits
+        HIDDEN_PAIRS,       // Two digits confined to the same two cells of a unit
+        NAKED_TRIPLES,      // Three cells of a unit holding only three digits between them
+        HIDDEN_TRIPLES      // Three digits confined to the same three cells of a unit
+    }
+
+    /**
+     * The strategies used when none are specified.
+     */
+    public static final Set<Strategy> DEFAULT_STRATEGIES = EnumSet.of(
+            Strategy.NAKED_SINGLES, Strategy.HIDDEN_SINGLES, Strategy.POINTING, Strategy.BOX_LINE);
+
+    private static final int UNIT_SIZE = Board.ROW_SIZE;
+
+    private final Strategy[] strategies;
+    private final int[] pending;
+    private final int[] positions = new int[UNIT_SIZE];
+    private int placements;
+
+    /**
+     * Creates a propagator with the default strategies
+     */
+    public Propagator() {
+        this(DEFAULT_STRATEGIES);
+    }
+
+    /**
+     * Creates a propagator that applies the given strategies in the given order
+     * @param strategies The strategies to use; duplicates are ignored
+     */
+    public Propagator(Iterable<Strategy> strategies) {
+        List<Strategy> order = new ArrayList<>();
+        for (Strategy strategy : strategies) {
+            if (!order.contains(strategy)) {
+                order.add(strategy);
+            }
+        }
+        this.strategies = order.toArray(new Strategy[0]);
+        this.pending = new int[this.strategies.length];
+    }
+
+    /**
+     * @return The strategies in the order they are applied
+     */
+    public List<Strategy> getStrategies() {
+        return Collections.unmodifiableList(Arrays.asList(strategies));
+    }
+
+    /**
+     * @return The number of values placed by propagation since this propagator was created
+     */
+    public int getPlacements() {
+        return placements;
+    }
+
+    /**
+     * Propagates the changes the board has seen since the last call
+     * @param board The board to update
+     * @return false if a contradiction was found, true once a fixpoint is reached
+     */
+    public boolean propagate(Board board) {
+        RuleSet rules = board.getRules();
+        int dirty = board.takeDirtyUnits();
+        for (int s = 0; s < strategies.length; s++) {
+            pending[s] = dirty;
+        }
+        int s = 0;
+        while (true) {
+            if (s == strategies.length) {
+                if (rules.cages.length == 0) {
+                    return true;
+                }
+                if (!cages(board, rules)) {
+                    return false;
+                }
+                int changed = board.takeDirtyUnits();
+                if (changed == 0) {
+                    return true;
+                }
+                for (int t = 0; t < strategies.length; t++) {
+                    pending[t] |= changed;
+                }
+                s = 0;
+                continue;
+            }
+            if (pending[s] == 0) {
+                s++;
+                continue;
+            }
+            int unit = Integer.numberOfTrailingZeros(pending[s]);
+            pending[s] &= pending[s] - 1;
+            if (!apply(strategies[s], board, rules, unit)) {
+                return false;
+            }
+            int changed = board.takeDirtyUnits();
+            if (changed != 0) {
+                for (int t = 0; t < strategies.length; t++) {
+                    pending[t] |= changed;
+                }
+                s = 0;
+            }
+        }
+    }
+
+    /**
+     * Restricts the empty cells of every cage to the digits that can still
+     * complete its sum
+     * @return false if some cage cannot reach its sum
+     */
+    private boolean cages(Board board, RuleSet rules) {
+        for (int c = 0; c < rules.cages.length; c++) {
+            int allowed = board.cageCandidates(c);
+            if (allowed < 0) {
+                return false;
+            }
+            for (int cell : rules.cages[c]) {
+                if (board.valueAt(cell) == Board.EMPTY) {
+                    board.eliminate(cell, Board.ALL_CANDIDATES & ~allowed);
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean apply(Strategy strategy, Board board, RuleSet rules, int unit) {
+        int[] cells = rules.units[unit];
+        switch (strategy) {
+            case NAKED_SINGLES:
+                return nakedSingles(board, cells);
+            case HIDDEN_SINGLES:
+                return hiddenSingles(board, cells, unit);
+            case POINTING:
+                return (rules.regionUnits & (1 << unit)) == 0 || intersections(board, rules, unit);
+            case BOX_LINE:
+                return (rules.regionUnits & (1 << unit)) != 0 || intersections(board, rules, unit);
+            case NAKED_PAIRS:
+                return nakedSubsets(board, cells, 2);
+            case HIDDEN_PAIRS:
+                return hiddenSubsets(board, cells, 2);
+            case NAKED_TRIPLES:
+                return nakedSubsets(board, cells, 3);
+            case HIDDEN_TRIPLES:
+                return hiddenSubsets(board, cells, 3);
+            default:
+                return true;
+        }
+    }
+
+    private boolean nakedSingles(Board board, int[] cells) {
+        for (int k = 0; k < UNIT_SIZE; k++) {
+            int cell = cells[k];
+            if (board.valueAt(cell) != Board.EMPTY) {
+                continue;
+            }
+            int mask = board.candidatesAt(cell);
+            if (mask == 0) {
+                return false;
+            }
+            if ((mask & (mask - 1)) == 0) {
+                placements++;
+                board.place(cell, Board.bitToValue(mask));
+            }
+        }
+        return true;
+    }
+
+    private boolean hiddenSingles(Board board, int[] cells, int unit) {
+        int once = 0;
+        int twice = 0;
+        for (int k = 0; k < UNIT_SIZE; k++) {
+            int mask = board.candidatesAt(cells[k]);
+            twice |= once & mask;
+            once |= mask;
+        }
+        if ((once | board.usedInUnit(unit)) != Board.ALL_CANDIDATES) {
+            // Some digit has nowhere to go in this unit.
+            return false;
+        }
+        for (int singles = once & ~twice; singles != 0; singles &= singles - 1) {
+            int bit = singles & -singles;
+            int k = 0;
+            while (k < UNIT_SIZE && (board.candidatesAt(cells[k]) & bit) == 0) {
+                k++;
+            }
+            if (k == UNIT_SIZE) {
+                // The cell was just filled with another digit that was also hidden there.
+                return false;
+            }
+            placements++;
+            board.place(cells[k], Board.bitToValue(bit));
+        }
+        return true;
+    }
+
+    /**
+     * Pointing and box/line reduction: a digit whose candidates in one unit all
+     * lie in another unit as well, such as one row of a box or one box along a
+     * row, cannot appear anywhere else in that other unit.
+     */
+    private boolean intersections(Board board, RuleSet rules, int unit) {
+        int[] cells = rules.units[unit];
+        int others = rules.allUnits & ~(1 << unit);
+        for (int open = Board.ALL_CANDIDATES & ~board.usedInUnit(unit); open != 0; open &= open - 1) {
+            int bit = open & -open;
+            int shared = others;
+            boolean seen = false;
+            for (int k = 0; k < UNIT_SIZE; k++) {
+                if ((board.candidatesAt(cells[k]) & bit) != 0) {
+                    shared &= rules.unitBits[cells[k]];
+                    seen = true;
+                }
+            }
+            if (!seen) {
+                continue;
+            }
+            for (; shared != 0; shared &= shared - 1) {
+                eliminateOutside(board, rules, Integer.numberOfTrailingZeros(shared), unit, bit);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes candidates from the cells of one unit that do not belong to another
+     */
+    private void eliminateOutside(Board board, RuleSet rules, int target, int keep, int mask) {
+        int[] cells = rules.units[target];
+        for (int k = 0; k < UNIT_SIZE; k++) {
+            int cell = cells[k];
+            if ((rules.unitBits[cell] & (1 << keep)) == 0) {
+                board.eliminate(cell, mask);
+            }
+        }
+    }
+
+    /**
+     * Naked pairs and triples: when size cells of a unit hold only size digits
+     * between them, no other cell of the unit can hold those digits.
+     */
+    private boolean nakedSubsets(Board board, int[] cells, int size) {
+        int count = 0;
+        for (int k = 0; k < UNIT_SIZE; k++) {
+            int n = Integer.bitCount(board.candidatesAt(cells[k]));
+            if (n >= 2 && n <= size) {
+                positions[count++] = k;
+            }
+        }
+        for (int a = 0; a < count; a++) {
+            for (int b = a + 1; b < count; b++) {
+                if (size == 2) {
+                    int union = board.candidatesAt(cells[positions[a]]) | board.candidatesAt(cells[positions[b]]);
+                    if (Integer.bitCount(union) == 2) {
+                        eliminateExcept(board, cells, union, (1 << positions[a]) | (1 << positions[b]));
+                    }
+                    continue;
+                }
+                for (int c = b + 1; c < count; c++) {
+                    int union = board.candidatesAt(cells[positions[a]])
+                              | board.candidatesAt(cells[positions[b]])
+                              | board.candidatesAt(cells[positions[c]]);
+                    int n = Integer.bitCount(union);
+                    if (n < 3) {
+                        // Three cells that share fewer than three digits.
+                        return false;
+                    }
+                    if (n == 3) {
+                        eliminateExcept(board, cells, union,
+                                (1 << positions[a]) | (1 << positions[b]) | (1 << positions[c]));
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes candidates from every cell of a unit except the given positions
+     */
+    private void eliminateExcept(Board board, int[] cells, int mask, int keep) {
+        for (int k = 0; k < UNIT_SIZE; k++) {
+            if ((keep & (1 << k)) == 0) {
+                board.eliminate(cells[k], mask);
+            }
+        }
+    }
+
+    /**
+     * Hidden pairs and triples: when size digits can only go in the same size
+     * cells of a unit, those cells cannot hold any other digit.
+     */
+    private boolean hiddenSubsets(Board board, int[] cells, int size) {
+        // positions[d] is the set of places in the unit where digit d can go.
+        for (int d = 0; d < UNIT_SIZE; d++) {
+            positions[d] = 0;
+        }
+        for (int k = 0; k < UNIT_SIZE; k++) {
+            for (int rest = board.candidatesAt(cells[k]); rest != 0; rest &= rest - 1) {
+                positions[Integer.numberOfTrailingZeros(rest)] |= 1 << k;
+            }
+        }
+        for (int a = 0; a < UNIT_SIZE; a++) {
+            if (!isSubsetCandidate(positions[a], size)) {
+                continue;
+            }
+            for (int b = a + 1; b < UNIT_SIZE; b++) {
+                if (!isSubsetCandidate(positions[b], size)) {
+                    continue;
+                }
+                if (size == 2) {
+                    int places = positions[a] | positions[b];
+                    if (Integer.bitCount(places) == 2) {
+                        keepOnly(board, cells, places, (1 << a) | (1 << b));
+                    }
+                    continue;
+                }
+                for (int c = b + 1; c < UNIT_SIZE; c++) {
+                    if (!isSubsetCandidate(positions[c], size)) {
+                        continue;
+                    }
+                    int places = positions[a] | positions[b] | positions[c];
+                    int n = Integer.bitCount(places);
+                    if (n < 3) {
+                        // Three digits that fit in fewer than three cells.
+                        return false;
+                    }
+                    if (n == 3) {
+                        keepOnly(board, cells, places, (1 << a) | (1 << b) | (1 << c));
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSubsetCandidate(int places, int size) {
+        int n = Integer.bitCount(places);
+        return n >= 2 && n <= size;
+    }
+
+    /**
+     * Restricts the cells at the given positions of a unit to the given digits
+     */
+    private void keepOnly(Board board, int[] cells, int places, int digits) {
+        for (int rest = places; rest != 0; rest &= rest - 1) {
+            board.eliminate(cells[Integer.numberOfTrailingZeros(rest)], Board.ALL_CANDIDATES & ~digits);
+        }
+    }
+}
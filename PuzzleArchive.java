@@ -0,0 +1,564 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * This class reads a packed binary file of puzzles and, optionally, their solutions.
+ * 
+ * The file starts with a HEADER_SIZE byte header:
+ *   0  magic "SDKA"
+ *   4  format version (short)
+ *   6  box size of the boards (byte), 3 for 9x9
+ *   7  flags (byte): FLAG_SOLUTIONS if any record has a solution
+ *   8  number of records (long)
+ *   16 offset of the index (long)
+ *   24 reserved (long)
+ * 
+ * Each record is a flag byte, a bitmap of the cells that hold clues (bit i of the
+ * bitmap is bit i % 8 of byte i / 8), the digits of the clues in cell order, four
+ * bits each, low nibble first, and, if the flag byte has RECORD_SOLUTION set, the
+ * digits of the solution in the empty cells, packed the same way. A typical 25-clue
+ * puzzle takes 25 bytes, 53 with its solution, against 82 bytes of text. A line
+ * that was not a puzzle is kept as a record of the flag byte alone, with
+ * RECORD_INVALID set, so that records are numbered like the lines they came from.
+ * Version 1 archives are read the same way; they have no invalid records.
+ * 
+ * The index at the end of the file holds count + 1 offsets (long): where each
+ * record starts, then where the index starts. Any record can be found with one
+ * read of the index, so threads can read disjoint ranges of the same archive.
+ * All numbers are big-endian.
+ */
+public class PuzzleArchive implements Closeable {
+    static final int MAGIC = 0x53444B41;
+    static final short VERSION = 2;
+    static final int HEADER_SIZE = 32;
+    static final int FLAG_SOLUTIONS = 1;
+    static final int RECORD_SOLUTION = 1;
+    static final int RECORD_INVALID = 2;
+    private static final int CELLS = Board.ROW_SIZE * Board.COL_SIZE;
+    private static final int BITMAP_SIZE = (CELLS + 7) / 8;
+    /**
+     * The largest record: flags, bitmap, and a nibble per cell for the clues and
+     * the solution together, with each half padded to a whole byte.
+     */
+    public static final int MAX_RECORD_SIZE = 1 + BITMAP_SIZE + CELLS / 2 + 2;
+    /**
+     * The most records an archive can hold, so that every offset fits in a long.
+     */
+    public static final long MAX_RECORDS = Long.MAX_VALUE / (MAX_RECORD_SIZE + Long.BYTES);
+    // How many records a cursor reads at a time.
+    private static final int CURSOR_BLOCK = 8192;
+
+    private final FileChannel channel;
+    private final long count;
+    private final int boxSize;
+    private final int flags;
+    private final long indexOffset;
+
+    /**
+     * Reads a range of records in order. A cursor must only be used by one thread,
+     * but any number of cursors can read the same archive at once.
+     */
+    public final class Cursor {
+        private final long end;
+        private long next;
+        private final ByteBuffer offsets = ByteBuffer.allocate((CURSOR_BLOCK + 1) * Long.BYTES);
+        private final ByteBuffer records = ByteBuffer.allocate(CURSOR_BLOCK * MAX_RECORD_SIZE);
+        private long blockEnd;
+        private long index = -1;
+        private int recordStart;
+
+        Cursor(long from, long to) {
+            this.next = from;
+            this.end = to;
+            this.blockEnd = from;
+        }
+
+        /**
+         * Moves to the next record of the range
+         * @return false if the range has been read
+         * @throws IOException if the file cannot be read
+         */
+        public boolean next() throws IOException {
+            if (next == end) {
+                return false;
+            }
+            if (next == blockEnd) {
+                readBlock();
+            }
+            index = next++;
+            recordStart = records.position();
+            records.position(recordStart + recordLength(records, recordStart));
+            return true;
+        }
+
+        /**
+         * @return The number of the current record
+         */
+        public long index() {
+            return index;
+        }
+
+        /**
+         * @return The puzzle of the current record, as a new board, or null if the
+         *         line it came from was not a puzzle
+         */
+        public Board puzzle() {
+            return decodePuzzle(records, recordStart);
+        }
+
+        /**
+         * @return The solution of the current record, as a new board, or null if it has none
+         */
+        public Board solution() {
+            return decodeSolution(records, recordStart);
+        }
+
+        /**
+         * @return true if the line the current record came from was not a puzzle
+         */
+        public boolean isInvalid() {
+            return (records.get(recordStart) & RECORD_INVALID) != 0;
+        }
+
+        /**
+         * Reads the offsets and bytes of the next block of records with two reads.
+         */
+        private void readBlock() throws IOException {
+            int n = (int) Math.min(CURSOR_BLOCK, end - next);
+            offsets.clear().limit((n + 1) * Long.BYTES);
+            readFully(offsets, indexOffset + next * Long.BYTES);
+            long first = offsets.getLong(0);
+            long last = offsets.getLong(n * Long.BYTES);
+            if (last - first > records.capacity() || last < first) {
+                throw new IOException("Corrupt archive index");
+            }
+            records.clear().limit((int) (last - first));
+            readFully(records, first);
+            records.position(0);
+            blockEnd = next + n;
+        }
+    }
+
+    /**
+     * Opens an archive for reading
+     * @param file The archive
+     * @throws IOException if the file cannot be read or is not an archive of 9x9 puzzles
+     */
+    public PuzzleArchive(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(header, 0);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a puzzle archive: " + file);
+            }
+            if (header.getShort(4) < 1 || header.getShort(4) > VERSION) {
+                throw new IOException("Unsupported archive version " + header.getShort(4));
+            }
+            boxSize = header.get(6);
+            flags = header.get(7);
+            count = header.getLong(8);
+            indexOffset = header.getLong(16);
+            if (boxSize != Board.BOX_SIZE) {
+                throw new IOException("Unsupported board size " + boxSize * boxSize + "x" + boxSize * boxSize);
+            }
+            if (count < 0 || count > MAX_RECORDS || indexOffset < HEADER_SIZE
+                    || indexOffset + (count + 1) * Long.BYTES > channel.size()) {
+                throw new IOException("Corrupt archive header");
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of records in the archive
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * @return The box size of the boards, 3 for 9x9
+     */
+    public int getBoxSize() {
+        return boxSize;
+    }
+
+    /**
+     * @return true if at least one record has a solution
+     */
+    public boolean hasSolutions() {
+        return (flags & FLAG_SOLUTIONS) != 0;
+    }
+
+    /**
+     * @param from The number of the first record to read
+     * @param to The number after the last record to read
+     * @return A cursor over the records in [from, to)
+     */
+    public Cursor cursor(long from, long to) {
+        if (from < 0 || to > count || from > to) {
+            throw new IndexOutOfBoundsException("Invalid range " + from + " to " + to + " of " + count);
+        }
+        return new Cursor(from, to);
+    }
+
+    /**
+     * Reads a single puzzle
+     * @param index The number of the record
+     * @return The puzzle, as a new board, or null if the record is invalid
+     * @throws IOException if the file cannot be read
+     */
+    public Board getPuzzle(long index) throws IOException {
+        return decodePuzzle(readRecord(index), 0);
+    }
+
+    /**
+     * Reads a single solution
+     * @param index The number of the record
+     * @return The solution, as a new board, or null if the record has none
+     * @throws IOException if the file cannot be read
+     */
+    public Board getSolution(long index) throws IOException {
+        return decodeSolution(readRecord(index), 0);
+    }
+
+    private ByteBuffer readRecord(long index) throws IOException {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Record " + index + " of " + count);
+        }
+        ByteBuffer offsets = ByteBuffer.allocate(2 * Long.BYTES);
+        readFully(offsets, indexOffset + index * Long.BYTES);
+        long start = offsets.getLong(0);
+        int length = (int) (offsets.getLong(Long.BYTES) - start);
+        if (length < 1 || length > MAX_RECORD_SIZE) {
+            throw new IOException("Corrupt archive index");
+        }
+        ByteBuffer record = ByteBuffer.allocate(length);
+        readFully(record, start);
+        return record;
+    }
+
+    private void readFully(ByteBuffer dest, long position) throws IOException {
+        while (dest.hasRemaining()) {
+            int n = channel.read(dest, position);
+            if (n < 0) {
+                throw new EOFException("Archive is truncated");
+            }
+            position += n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static final String USAGE = "Usage: java PuzzleArchive pack [-s] puzzles.txt archive\n"
+            + "       java PuzzleArchive unpack [-s] archive [from [to]]\n"
+            + "       java PuzzleArchive info archive";
+
+    /**
+     * Converts between puzzle text files and archives.
+     * pack stores each line of a text file but blank ones, solving it first with -s.
+     * A line that is not a puzzle becomes an invalid record, so records keep the
+     * numbering of the lines.
+     * unpack prints a range of puzzles, or with -s their solutions, as text.
+     */
+    public static void main(String[] args) {
+        try {
+            if (args.length >= 3 && args[0].equals("pack")) {
+                boolean solve = args[1].equals("-s");
+                int i = solve ? 2 : 1;
+                if (args.length != i + 2) {
+                    throw new IllegalArgumentException("pack needs an input and an output file");
+                }
+                pack(Paths.get(args[i]), Paths.get(args[i + 1]), solve);
+            } else if (args.length >= 2 && args[0].equals("unpack")) {
+                boolean solutions = args[1].equals("-s");
+                int i = solutions ? 2 : 1;
+                if (args.length <= i || args.length > i + 3) {
+                    throw new IllegalArgumentException("unpack needs an archive and at most a range");
+                }
+                try (PuzzleArchive archive = new PuzzleArchive(Paths.get(args[i]))) {
+                    long from = args.length > i + 1 ? Long.parseLong(args[i + 1]) : 0;
+                    long to = args.length > i + 2 ? Long.parseLong(args[i + 2]) : archive.size();
+                    Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII),
+                                                    1 << 16);
+                    unpack(archive, from, to, solutions, out);
+                    out.flush();
+                }
+            } else if (args.length == 2 && args[0].equals("info")) {
+                try (PuzzleArchive archive = new PuzzleArchive(Paths.get(args[1]))) {
+                    long bytes = Files.size(Paths.get(args[1]));
+                    System.out.printf("%d records of %dx%d puzzles%s, %d bytes (%.1f per record)%n",
+                                      archive.size(), Board.ROW_SIZE, Board.COL_SIZE,
+                                      archive.hasSolutions() ? " with solutions" : "",
+                                      bytes, archive.size() > 0 ? (double) bytes / archive.size() : 0.0);
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown command");
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("I/O error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Packs a text file, one record for each line that is not blank
+     * @param input The puzzles, one per line
+     * @param output The archive to write
+     * @param solve Whether to solve each puzzle and store its solution
+     * @throws IOException if a file cannot be read or written
+     */
+    static void pack(Path input, Path output, boolean solve) throws IOException {
+        long invalid = 0;
+        Solver solver = new Solver();
+        try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.US_ASCII);
+             PuzzleArchiveWriter out = new PuzzleArchiveWriter(output)) {
+            String text;
+            while ((text = in.readLine()) != null) {
+                text = text.trim();
+                if (text.isEmpty()) {
+                    continue;
+                }
+                Board puzzle;
+                try {
+                    puzzle = Board.parse(text);
+                } catch (IllegalArgumentException e) {
+                    out.writeInvalid();
+                    invalid++;
+                    continue;
+                }
+                out.write(puzzle, solve ? solver.solve(puzzle.copy()) : null);
+            }
+            System.err.println(out.getCount() + " records packed, " + invalid + " of them invalid lines");
+        }
+    }
+
+    /**
+     * Writes a range of records as text, one line each: the puzzle or solution,
+     * "unsolvable" for a missing solution, or "invalid"
+     * @param archive The archive
+     * @param from The number of the first record to write
+     * @param to The number after the last record to write
+     * @param solutions Whether to write the solutions rather than the puzzles
+     * @param out Where to write the lines
+     * @throws IOException if the archive cannot be read or out cannot be written
+     */
+    static void unpack(PuzzleArchive archive, long from, long to, boolean solutions, Writer out) throws IOException {
+        char[] line = new char[CELLS];
+        Cursor cursor = archive.cursor(from, to);
+        while (cursor.next()) {
+            if (cursor.isInvalid()) {
+                out.write("invalid\n");
+                continue;
+            }
+            Board board = solutions ? cursor.solution() : cursor.puzzle();
+            if (board == null) {
+                out.write("unsolvable\n");
+                continue;
+            }
+            board.getValues(line, 0);
+            for (int i = 0; i < CELLS; i++) {
+                if (line[i] == Board.EMPTY) {
+                    line[i] = '.';
+                }
+            }
+            out.write(line);
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Packs a puzzle and, optionally, its solution into a record
+     * @param dest Where to write the record, at its position, which is advanced past it
+     * @param puzzle The puzzle
+     * @param solution The solution, or null to store the puzzle alone
+     * @param scratch An array of at least 162 elements to copy the values into
+     * @throws IllegalArgumentException if the solution has empty cells
+     */
+    public static void encode(ByteBuffer dest, Board puzzle, Board solution, char[] scratch) {
+        if (solution != null && solution.getEmptySpaces() != 0) {
+            throw new IllegalArgumentException("A solution must fill every cell");
+        }
+        int position = dest.position();
+        dest.put(position++, solution != null ? (byte) RECORD_SOLUTION : 0);
+        puzzle.getValues(scratch, 0);
+        for (int b = 0; b < BITMAP_SIZE; b++) {
+            int bits = 0;
+            for (int k = 0; k < 8 && b * 8 + k < CELLS; k++) {
+                if (scratch[b * 8 + k] != Board.EMPTY) {
+                    bits |= 1 << k;
+                }
+            }
+            dest.put(position++, (byte) bits);
+        }
+        position = putNibbles(dest, position, scratch, 0, true);
+        if (solution != null) {
+            solution.getValues(scratch, CELLS);
+            position = putNibbles(dest, position, scratch, CELLS, false);
+        }
+        dest.position(position);
+    }
+
+    /**
+     * Writes the digits of the cells that are clues, or of those that are not,
+     * two to a byte.
+     * @param values The puzzle's values, then from digitsOffset the digits to write
+     * @return The position after the last byte written
+     */
+    private static int putNibbles(ByteBuffer dest, int position, char[] values, int digitsOffset, boolean clues) {
+        int pending = -1;
+        for (int i = 0; i < CELLS; i++) {
+            if ((values[i] != Board.EMPTY) != clues) {
+                continue;
+            }
+            int digit = values[digitsOffset + i] - '0';
+            if (pending < 0) {
+                pending = digit;
+            } else {
+                dest.put(position++, (byte) (pending | (digit << 4)));
+                pending = -1;
+            }
+        }
+        if (pending >= 0) {
+            dest.put(position++, (byte) pending);
+        }
+        return position;
+    }
+
+    /**
+     * @param src The bytes of the archive
+     * @param start The index in src of a record
+     * @return The length of the record in bytes
+     */
+    static int recordLength(ByteBuffer src, int start) {
+        if ((src.get(start) & RECORD_INVALID) != 0) {
+            return 1;
+        }
+        int clues = countClues(src, start);
+        int length = 1 + BITMAP_SIZE + (clues + 1) / 2;
+        if ((src.get(start) & RECORD_SOLUTION) != 0) {
+            length += (CELLS - clues + 1) / 2;
+        }
+        return length;
+    }
+
+    private static int countClues(ByteBuffer src, int start) {
+        int clues = 0;
+        for (int b = 0; b < BITMAP_SIZE; b++) {
+            clues += Integer.bitCount(src.get(start + 1 + b) & 0xFF);
+        }
+        return clues;
+    }
+
+    /**
+     * Unpacks the puzzle of a record
+     * @param src The bytes of the archive; its position is not changed
+     * @param start The index in src of the record
+     * @return The puzzle, as a new board, or null if the record is invalid
+     */
+    public static Board decodePuzzle(ByteBuffer src, int start) {
+        if ((src.get(start) & RECORD_INVALID) != 0) {
+            return null;
+        }
+        char[] values = new char[CELLS];
+        readClues(src, start, values);
+        return new Board(values);
+    }
+
+    /**
+     * Unpacks the solution of a record
+     * @param src The bytes of the archive; its position is not changed
+     * @param start The index in src of the record
+     * @return The solution, as a new board, or null if the record has none
+     */
+    public static Board decodeSolution(ByteBuffer src, int start) {
+        if ((src.get(start) & (RECORD_SOLUTION | RECORD_INVALID)) != RECORD_SOLUTION) {
+            return null;
+        }
+        char[] values = new char[CELLS];
+        int position = readClues(src, start, values);
+        int nibble = 0;
+        for (int i = 0; i < CELLS; i++) {
+            if (values[i] == Board.EMPTY) {
+                values[i] = digitAt(src, position, nibble++);
+            }
+        }
+        return new Board(values);
+    }
+
+    /**
+     * Fills values with the clues of a record and EMPTY elsewhere
+     * @return The index in src after the clue digits
+     */
+    private static int readClues(ByteBuffer src, int start, char[] values) {
+        int position = start + 1 + BITMAP_SIZE;
+        int nibble = 0;
+        for (int i = 0; i < CELLS; i++) {
+            if ((src.get(start + 1 + (i >>> 3)) & (1 << (i & 7))) != 0) {
+                values[i] = digitAt(src, position, nibble++);
+            } else {
+                values[i] = Board.EMPTY;
+            }
+        }
+        return position + (nibble + 1) / 2;
+    }
+
+    private static char digitAt(ByteBuffer src, int position, int nibble) {
+        int digit = (src.get(position + (nibble >>> 1)) >>> ((nibble & 1) * 4)) & 0xF;
+        if (digit < 1 || digit > 9) {
+            throw new IllegalStateException("Corrupt archive record");
+        }
+        return (char) ('0' + digit);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * This class writes the packed binary format that PuzzleArchive reads.
+ * 
+ * Records are encoded into a buffer and written as it fills, so the archive is
+ * streamed to disk. The offsets of the records are collected in a second buffer,
+ * which is spilled to a temporary file next to the archive whenever it fills, so
+ * the heap holds at most INDEX_BLOCK of them however many records are written.
+ * When the writer is closed the spilled offsets are copied after the records,
+ * followed by the rest, and the header is filled in last. An archive that was
+ * not closed has no index and cannot be read.
+ */
+public class PuzzleArchiveWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+    // How many offsets are held in memory before they are spilled.
+    private static final int INDEX_BLOCK = 8192;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final char[] scratch = new char[2 * Board.ROW_SIZE * Board.COL_SIZE];
+    private final ByteBuffer offsets = ByteBuffer.allocate(INDEX_BLOCK * Long.BYTES);
+    // The offsets spilled so far, or null until the first block fills.
+    private FileChannel spill;
+    private long spilled = 0;
+    private long count = 0;
+    // Where the buffer will be written in the file.
+    private long bufferStart = PuzzleArchive.HEADER_SIZE;
+    private int flags = 0;
+
+    /**
+     * Creates an archive, replacing any file of the same name
+     * @param file The archive to write
+     * @throws IOException if the file cannot be created
+     */
+    public PuzzleArchiveWriter(Path file) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Appends a puzzle without a solution
+     * @param puzzle The puzzle
+     * @throws IOException if writing fails
+     */
+    public void write(Board puzzle) throws IOException {
+        write(puzzle, null);
+    }
+
+    /**
+     * Appends a puzzle and its solution
+     * @param puzzle The puzzle
+     * @param solution The solution, or null if there is none
+     * @throws IOException if writing fails
+     * @throws IllegalStateException if the archive already holds MAX_RECORDS records
+     */
+    public void write(Board puzzle, Board solution) throws IOException {
+        startRecord();
+        PuzzleArchive.encode(buffer, puzzle, solution, scratch);
+        if (solution != null) {
+            flags |= PuzzleArchive.FLAG_SOLUTIONS;
+        }
+    }
+
+    /**
+     * Appends a record for a line that was not a puzzle, so that the records that
+     * follow keep the numbering of their lines
+     * @throws IOException if writing fails
+     * @throws IllegalStateException if the archive already holds MAX_RECORDS records
+     */
+    public void writeInvalid() throws IOException {
+        startRecord();
+        buffer.put((byte) PuzzleArchive.RECORD_INVALID);
+    }
+
+    /**
+     * Makes room for a record and adds its offset to the index
+     */
+    private void startRecord() throws IOException {
+        if (count == PuzzleArchive.MAX_RECORDS) {
+            throw new IllegalStateException("An archive holds at most " + PuzzleArchive.MAX_RECORDS + " records");
+        }
+        if (buffer.remaining() < PuzzleArchive.MAX_RECORD_SIZE) {
+            flush();
+        }
+        if (!offsets.hasRemaining()) {
+            spillOffsets();
+        }
+        offsets.putLong(bufferStart + buffer.position());
+        count++;
+    }
+
+    private void spillOffsets() throws IOException {
+        if (spill == null) {
+            Path directory = file.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(directory, file.getFileName() + ".", ".index");
+            spill = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                                     StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        offsets.flip();
+        writeFully(spill, offsets, spilled);
+        spilled += offsets.limit();
+        offsets.clear();
+    }
+
+    /**
+     * @return The number of records written so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Writes the index and the header, and closes the file
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            long indexOffset = bufferStart;
+            long copied = 0;
+            while (copied < spilled) {
+                copied += spill.transferTo(copied, spilled - copied, channel.position(bufferStart + copied));
+            }
+            bufferStart += spilled;
+            offsets.flip();
+            writeFully(channel, offsets, bufferStart);
+            bufferStart += offsets.limit();
+            buffer.putLong(indexOffset);
+            flush();
+
+            ByteBuffer header = ByteBuffer.allocate(PuzzleArchive.HEADER_SIZE);
+            header.putInt(PuzzleArchive.MAGIC);
+            header.putShort(PuzzleArchive.VERSION);
+            header.put((byte) Board.BOX_SIZE);
+            header.put((byte) flags);
+            header.putLong(count);
+            header.putLong(indexOffset);
+            header.putLong(0);
+            header.flip();
+            writeFully(channel, header, 0);
+        } finally {
+            try {
+                if (spill != null) {
+                    spill.close();
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        long position = bufferStart;
+        bufferStart += buffer.remaining();
+        writeFully(channel, buffer, position);
+        buffer.clear();
+    }
+
+    private static void writeFully(FileChannel dest, ByteBuffer src, long position) throws IOException {
+        while (src.hasRemaining()) {
+            position += dest.write(src, position);
+        }
+    }
+}
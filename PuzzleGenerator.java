@@ -0,0 +1,390 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/*
+ * This class generates puzzles with a unique solution and grades them.
+ * 
+ * Each puzzle starts from a random full grid. Clues are removed one at a time in a
+ * random order, and a removal is kept only if the puzzle still has one solution.
+ * Since the grid is already known to be a solution, the count-to-2 check reduces
+ * to a single search: the puzzle is unique exactly when no solution puts a
+ * different digit in the cell that was just emptied. The result is minimal: no
+ * remaining clue can be removed.
+ * 
+ * Puzzle i depends only on the seed and i, so a run can be reproduced, split up or
+ * resumed on any number of threads.
+ */
+public class PuzzleGenerator {
+    private static final String USAGE =
+            "Usage: java PuzzleGenerator [-n count] [-s seed] [-t threads] [-d easy|medium|hard|expert] [-p] [-o output-file]";
+    private static final int CELLS = Board.ROW_SIZE * Board.COL_SIZE;
+    // How many puzzles per worker may be generated ahead of the writer.
+    private static final int IN_FLIGHT_PER_THREAD = 16;
+
+    /**
+     * How hard a puzzle is, by the propagation it needs to be solved without branching.
+     */
+    public enum Difficulty {
+        EASY,               // Naked and hidden singles
+        MEDIUM,             // Also pointing and box/line reduction
+        HARD,               // Also naked and hidden pairs and triples
+        EXPERT              // Needs branching even with every strategy
+    }
+
+    private static final Set<Propagator.Strategy> EASY_STRATEGIES = EnumSet.of(
+            Propagator.Strategy.NAKED_SINGLES, Propagator.Strategy.HIDDEN_SINGLES);
+    private static final Set<Propagator.Strategy> MEDIUM_STRATEGIES = Propagator.DEFAULT_STRATEGIES;
+    private static final Set<Propagator.Strategy> HARD_STRATEGIES = EnumSet.allOf(Propagator.Strategy.class);
+
+    /**
+     * A generated puzzle and its grade.
+     */
+    public static final class Puzzle {
+        private final long index;
+        private final Board puzzle;
+        private final Board solution;
+        private final Difficulty difficulty;
+        private final int branches;
+
+        Puzzle(long index, Board puzzle, Board solution, Difficulty difficulty, int branches) {
+            this.index = index;
+            this.puzzle = puzzle;
+            this.solution = solution;
+            this.difficulty = difficulty;
+            this.branches = branches;
+        }
+
+        /**
+         * @return The position of the puzzle in the generator's sequence
+         */
+        public long getIndex() {
+            return index;
+        }
+
+        public Board getPuzzle() {
+            return puzzle;
+        }
+
+        public Board getSolution() {
+            return solution;
+        }
+
+        public int getClues() {
+            return CELLS - puzzle.getEmptySpaces();
+        }
+
+        public Difficulty getDifficulty() {
+            return difficulty;
+        }
+
+        /**
+         * @return The search nodes beyond the first that a Solver with every
+         *         strategy needed, 0 unless the puzzle is EXPERT
+         */
+        public int getBranches() {
+            return branches;
+        }
+
+        /**
+         * @return The puzzle as 81 characters with '.' for blanks
+         */
+        public String toLine() {
+            char[] line = new char[CELLS];
+            puzzle.getValues(line, 0);
+            for (int i = 0; i < CELLS; i++) {
+                if (line[i] == Board.EMPTY) {
+                    line[i] = '.';
+                }
+            }
+            return new String(line);
+        }
+    }
+
+    private final long seed;
+    private int minClues = 0;
+
+    /**
+     * Creates a generator
+     * @param seed The seed of the whole sequence of puzzles
+     */
+    public PuzzleGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Stops removing clues once a puzzle is down to this many, which gives
+     * easier puzzles. By default clues are removed until none can be.
+     * @param minClues The number of clues to keep at least
+     */
+    public void setMinClues(int minClues) {
+        this.minClues = minClues;
+    }
+
+    /**
+     * Generates one puzzle of the sequence
+     * @param index The position in the sequence
+     * @return The puzzle, its solution and its grade
+     */
+    public Puzzle generate(long index) {
+        Random random = new Random(mix(seed + index * 0x9E3779B97F4A7C15L));
+        char[] grid = randomGrid(random);
+
+        int[] order = new int[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            order[i] = i;
+        }
+        for (int i = CELLS - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        char[] values = grid.clone();
+        Solver solver = new Solver();
+        int clues = CELLS;
+        for (int k = 0; k < CELLS && clues > minClues; k++) {
+            int cell = order[k];
+            char value = values[cell];
+            values[cell] = Board.EMPTY;
+            // Look for a solution that puts another digit in the emptied cell.
+            Board other = new Board(values.clone());
+            other.eliminate(cell, 1 << (value - '1'));
+            if (solver.solve(other) != null) {
+                values[cell] = value;
+            } else {
+                clues--;
+            }
+        }
+
+        Board puzzle = new Board(values);
+        Difficulty difficulty = grade(puzzle);
+        int branches = 0;
+        if (difficulty == Difficulty.EXPERT) {
+            Solver full = new Solver();
+            full.setStrategies(HARD_STRATEGIES);
+            full.solve(puzzle.copy());
+            branches = full.getStats().getNodes() - 1;
+        }
+        return new Puzzle(index, puzzle, new Board(grid), difficulty, branches);
+    }
+
+    /**
+     * Grades a puzzle by the weakest set of strategies that solves it without branching
+     * @param puzzle The puzzle; it is not modified
+     * @return Its difficulty
+     */
+    public static Difficulty grade(Board puzzle) {
+        if (solvesWithoutBranching(puzzle, EASY_STRATEGIES)) {
+            return Difficulty.EASY;
+        }
+        if (solvesWithoutBranching(puzzle, MEDIUM_STRATEGIES)) {
+            return Difficulty.MEDIUM;
+        }
+        if (solvesWithoutBranching(puzzle, HARD_STRATEGIES)) {
+            return Difficulty.HARD;
+        }
+        return Difficulty.EXPERT;
+    }
+
+    private static boolean solvesWithoutBranching(Board puzzle, Set<Propagator.Strategy> strategies) {
+        Solver solver = new Solver();
+        solver.setStrategies(strategies);
+        return solver.solve(puzzle.copy()) != null && solver.getStats().getNodes() == 1;
+    }
+
+    /**
+     * Generates puzzles in order on a pool of threads
+     * @param count The number of puzzles to produce
+     * @param threads The number of generating threads
+     * @param only Keep only puzzles of this difficulty, or null to keep all
+     * @param consumer Receives the puzzles in sequence order, on the calling thread
+     */
+    public void generate(long count, int threads, Difficulty only, Consumer<Puzzle> consumer) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("There must be at least one thread");
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            ArrayDeque<Future<Puzzle>> window = new ArrayDeque<>();
+            int maxInFlight = threads * IN_FLIGHT_PER_THREAD;
+            long produced = 0;
+            long next = 0;
+            while (produced < count) {
+                while (window.size() < maxInFlight) {
+                    long index = next++;
+                    window.add(pool.submit(() -> generate(index)));
+                }
+                Puzzle puzzle = await(window.poll());
+                if (only == null || puzzle.getDifficulty() == only) {
+                    consumer.accept(puzzle);
+                    produced++;
+                }
+            }
+            for (Future<Puzzle> pending : window) {
+                pending.cancel(false);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return A random full grid, row by row
+     */
+    private static char[] randomGrid(Random random) {
+        Solver solver = new Solver(new Board());
+        solver.setTieBreak(Solver.TieBreak.RANDOM);
+        solver.setRandomSeed(random.nextLong());
+        char[] grid = new char[CELLS];
+        solver.solve().getValues(grid, 0);
+        // The solver tries digits in order, so relabel them to spread the grids evenly.
+        char[] relabel = {'1', '2', '3', '4', '5', '6', '7', '8', '9'};
+        for (int i = relabel.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            char swap = relabel[i];
+            relabel[i] = relabel[j];
+            relabel[j] = swap;
+        }
+        for (int i = 0; i < CELLS; i++) {
+            grid[i] = relabel[grid[i] - '1'];
+        }
+        return grid;
+    }
+
+    /**
+     * Spreads the bits of a seed so that neighbouring indexes give unrelated sequences.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static Puzzle await(Future<Puzzle> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a puzzle", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public static void main(String[] args) {
+        long count = 1;
+        long seed = System.nanoTime();
+        int threads = Runtime.getRuntime().availableProcessors();
+        Difficulty only = null;
+        boolean plain = false;
+        String outputFile = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-n") && i + 1 < args.length) {
+                    count = Long.parseLong(args[++i]);
+                } else if (args[i].equals("-s") && i + 1 < args.length) {
+                    seed = Long.parseLong(args[++i]);
+                } else if (args[i].equals("-t") && i + 1 < args.length) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-d") && i + 1 < args.length) {
+                    only = Difficulty.valueOf(args[++i].toUpperCase());
+                } else if (args[i].equals("-p")) {
+                    plain = true;
+                } else if (args[i].equals("-o") && i + 1 < args.length) {
+                    outputFile = args[++i];
+                } else {
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+            if (threads < 1 || count < 1) {
+                throw new IllegalArgumentException("The count and threads must be positive");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        PuzzleGenerator generator = new PuzzleGenerator(seed);
+        boolean plainLines = plain;
+        long start = System.nanoTime();
+        long[] byDifficulty = new long[Difficulty.values().length];
+        try (OutputStream os = outputFile == null ? System.out : new FileOutputStream(outputFile);
+             Writer out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.US_ASCII), 1 << 16)) {
+            generator.generate(count, threads, only, puzzle -> {
+                byDifficulty[puzzle.getDifficulty().ordinal()]++;
+                try {
+                    out.write(puzzle.toLine());
+                    if (!plainLines) {
+                        out.write(" " + puzzle.getDifficulty() + " " + puzzle.getBranches());
+                    }
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("I/O error: " + e.getMessage());
+            System.exit(1);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        StringBuilder summary = new StringBuilder(String.format(
+                "%d puzzles in %.3f s (%.1f puzzles/s), seed %d:", count, seconds, count / seconds, seed));
+        for (Difficulty d : Difficulty.values()) {
+            summary.append(' ').append(d).append(' ').append(byDifficulty[d.ordinal()]);
+        }
+        System.err.println(summary);
+    }
+}
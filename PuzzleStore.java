@@ -0,0 +1,630 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * This class holds a large batch of puzzles outside the Java heap, so that the
+ * heap stays the same size however many puzzles are pending.
+ * 
+ * Puzzles live in numbered slots, laid out as a structure of arrays in direct
+ * ByteBuffers: one array of cell values (a byte per cell, 0 for empty), one of
+ * candidate masks (a short per cell) and one of slot states. The arrays are split
+ * into chunks of up to CHUNK_SLOTS slots, so a store is not limited to the 2 GB of
+ * a single buffer. Chunks are allocated as the store fills up: each starts with
+ * room for the puzzles the store still expects, and doubles when that runs out,
+ * so a small batch takes little more memory than it needs and a batch larger than
+ * expected still fits.
+ * 
+ * solve() works on a slot in place: it applies naked and hidden singles directly
+ * to the slot's values and masks, which finishes most puzzles. Only a puzzle that
+ * needs to branch is hydrated into a Board for a Solver, and its solution is
+ * written back into the slot. hydrate() turns any slot into a Board on demand.
+ * 
+ * Puzzles are added from one thread. Once they are loaded, different slots may be
+ * solved and read from different threads at the same time. The store only holds
+ * classic puzzles.
+ */
+public class PuzzleStore {
+    /**
+     * The state of a slot.
+     */
+    public enum Status {
+        PENDING,    // Loaded and not solved yet, or its solve ran out of budget
+        SOLVED,     // The slot holds the solution
+        UNSOLVABLE, // The puzzle has no solution
+        INVALID     // The input was not a puzzle, or its givens conflict
+    }
+
+    private static final Status[] STATUSES = Status.values();
+    private static final int CELLS = Board.ROW_SIZE * Board.COL_SIZE;
+    private static final int CHUNK_SHIFT = 16;
+    /**
+     * The number of slots in each chunk of buffers.
+     */
+    public static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+    /**
+     * The off-heap bytes used by each slot: its values, masks and state.
+     */
+    public static final int SLOT_BYTES = CELLS + 2 * CELLS + 1;
+    // Slots handed to a solving thread at a time.
+    private static final int SOLVE_BLOCK = 1024;
+    // The fewest slots a chunk is allocated or grown by once the store holds more than expected.
+    private static final int MIN_CHUNK_SLOTS = 1024;
+    private static final long MAX_SLOTS = (long) Integer.MAX_VALUE << CHUNK_SHIFT;
+
+    /**
+     * The buffers of up to CHUNK_SLOTS consecutive slots.
+     */
+    private static final class Chunk {
+        final int slots;
+        final ByteBuffer values;
+        final ByteBuffer candidates;
+        final ByteBuffer status;
+
+        Chunk(int slots) {
+            this.slots = slots;
+            values = ByteBuffer.allocateDirect(slots * CELLS);
+            candidates = ByteBuffer.allocateDirect(slots * CELLS * 2).order(ByteOrder.nativeOrder());
+            status = ByteBuffer.allocateDirect(slots);
+        }
+
+        /**
+         * @return A chunk with room for more slots, holding the first used slots of this one
+         */
+        Chunk grow(int slots, int used) {
+            Chunk larger = new Chunk(slots);
+            copy(values, larger.values, used * CELLS);
+            copy(candidates, larger.candidates, used * CELLS * 2);
+            copy(status, larger.status, used);
+            return larger;
+        }
+
+        /**
+         * Copies the first bytes of a buffer, leaving both positions at 0 as
+         * every other access to a chunk is absolute
+         */
+        private static void copy(ByteBuffer from, ByteBuffer to, int bytes) {
+            ByteBuffer source = from.duplicate();
+            source.position(0).limit(bytes);
+            to.put(source).position(0);
+        }
+    }
+
+    private final long capacity;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private long size;
+    // Digits used in each unit of the puzzle being added.
+    private final int[] unitUsed = new int[Board.UNIT_COUNT];
+
+    /**
+     * Creates an empty store. Buffers are only allocated as slots are filled.
+     * @param capacity The number of puzzles expected, which sizes the buffers; the
+     *                 store grows past it if more are added
+     */
+    public PuzzleStore(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return The number of puzzles the store was sized for
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The number of slots filled
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return The bytes of direct memory allocated so far
+     */
+    public long getAllocatedBytes() {
+        long allocated = 0;
+        for (Chunk chunk : chunks) {
+            allocated += (long) chunk.slots * SLOT_BYTES;
+        }
+        return allocated;
+    }
+
+    /**
+     * Adds a puzzle from 81 ASCII bytes, row by row. Blanks may be written as
+     * '.', '0' or '_'. A malformed puzzle, or one whose givens conflict, still
+     * takes a slot, marked INVALID, so that slots keep the order of the input.
+     * @param source The bytes to read. Its position is not changed.
+     * @param offset The index in source of the first cell
+     * @return The slot of the puzzle
+     * @throws IndexOutOfBoundsException if source does not hold 81 bytes from
+     *         offset, in which case no slot is taken
+     * @throws IllegalStateException if the store already holds MAX_SLOTS slots
+     */
+    public long add(ByteBuffer source, int offset) {
+        if (offset < 0 || offset > source.limit() - CELLS) {
+            throw new IndexOutOfBoundsException(
+                    "No puzzle at " + offset + " in a buffer of " + source.limit() + " bytes");
+        }
+        long slot = nextSlot();
+        Chunk chunk = chunk(slot);
+        int base = (int) (slot & (CHUNK_SLOTS - 1)) * CELLS;
+        Arrays.fill(unitUsed, 0);
+        boolean valid = true;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int c = source.get(offset + cell) & 0xFF;
+            int digit = 0;
+            if (c >= '1' && c <= '9') {
+                digit = c - '0';
+                int bit = 1 << (digit - 1);
+                int units = 0;
+                for (int rest = unitBitsOf(cell); rest != 0; rest &= rest - 1) {
+                    int unit = Integer.numberOfTrailingZeros(rest);
+                    units |= unitUsed[unit] & bit;
+                    unitUsed[unit] |= bit;
+                }
+                valid &= units == 0;
+            } else if (c != '.' && c != '0' && c != Board.EMPTY) {
+                valid = false;
+            }
+            chunk.values.put(base + cell, (byte) digit);
+        }
+        if (!valid) {
+            for (int cell = 0; cell < CELLS; cell++) {
+                chunk.values.put(base + cell, (byte) 0);
+                chunk.candidates.putShort(2 * (base + cell), (short) 0);
+            }
+            setStatus(chunk, slot, Status.INVALID);
+            return slot;
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            int used = 0;
+            if (chunk.values.get(base + cell) == 0) {
+                for (int rest = unitBitsOf(cell); rest != 0; rest &= rest - 1) {
+                    used |= unitUsed[Integer.numberOfTrailingZeros(rest)];
+                }
+                used = Board.ALL_CANDIDATES & ~used;
+            }
+            chunk.candidates.putShort(2 * (base + cell), (short) used);
+        }
+        setStatus(chunk, slot, Status.PENDING);
+        return slot;
+    }
+
+    /**
+     * Adds a puzzle from a line of 81 characters, as add(ByteBuffer, int) does.
+     * A line of any other length is stored as INVALID.
+     * @param line The puzzle
+     * @return The slot of the puzzle
+     */
+    public long add(CharSequence line) {
+        if (line.length() != CELLS) {
+            return addInvalid();
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(CELLS);
+        for (int cell = 0; cell < CELLS; cell++) {
+            char c = line.charAt(cell);
+            bytes.put(cell, c < 128 ? (byte) c : (byte) '?');
+        }
+        return add(bytes, 0);
+    }
+
+    /**
+     * Adds the givens of a classic board
+     * @param board The puzzle
+     * @return The slot of the puzzle
+     * @throws IllegalArgumentException if the board does not follow the classic rules
+     */
+    public long add(Board board) {
+        if (board.getRules() != RuleSet.CLASSIC) {
+            throw new IllegalArgumentException("A PuzzleStore only holds classic puzzles");
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(CELLS);
+        board.getValues(bytes, 0);
+        return add(bytes, 0);
+    }
+
+    /**
+     * Takes a slot for input that is not a puzzle, so that slots keep the order of the input
+     * @return The slot, marked INVALID
+     */
+    public long addInvalid() {
+        long slot = nextSlot();
+        Chunk chunk = chunk(slot);
+        int base = (int) (slot & (CHUNK_SLOTS - 1)) * CELLS;
+        for (int cell = 0; cell < CELLS; cell++) {
+            chunk.values.put(base + cell, (byte) 0);
+            chunk.candidates.putShort(2 * (base + cell), (short) 0);
+        }
+        setStatus(chunk, slot, Status.INVALID);
+        return slot;
+    }
+
+    /**
+     * Takes the next slot, allocating or growing its chunk if it has no room
+     */
+    private long nextSlot() {
+        if (size == MAX_SLOTS) {
+            throw new IllegalStateException("The store is full");
+        }
+        int c = (int) (size >>> CHUNK_SHIFT);
+        int used = (int) (size & (CHUNK_SLOTS - 1));
+        if (c == chunks.size()) {
+            long expected = capacity - size;
+            chunks.add(new Chunk((int) (expected > 0 ? Math.min(expected, CHUNK_SLOTS) : MIN_CHUNK_SLOTS)));
+        } else if (used == chunks.get(c).slots) {
+            int slots = Math.min(Math.max(2 * used, MIN_CHUNK_SLOTS), CHUNK_SLOTS);
+            chunks.set(c, chunks.get(c).grow(slots, used));
+        }
+        return size++;
+    }
+
+    private Chunk chunk(long slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("No slot " + slot);
+        }
+        return chunks.get((int) (slot >>> CHUNK_SHIFT));
+    }
+
+    private static int unitBitsOf(int cell) {
+        return RuleSet.CLASSIC.unitBits[cell];
+    }
+
+    public Status getStatus(long slot) {
+        Chunk chunk = chunk(slot);
+        return STATUSES[chunk.status.get((int) (slot & (CHUNK_SLOTS - 1)))];
+    }
+
+    private static void setStatus(Chunk chunk, long slot, Status status) {
+        chunk.status.put((int) (slot & (CHUNK_SLOTS - 1)), (byte) status.ordinal());
+    }
+
+    /**
+     * Creates a Board from a slot: the puzzle if it is pending, or its solution
+     * @param slot The slot
+     * @return A new board with the slot's values
+     * @throws IllegalStateException if the slot is INVALID
+     */
+    public Board hydrate(long slot) {
+        Chunk chunk = chunk(slot);
+        if (getStatus(slot) == Status.INVALID) {
+            throw new IllegalStateException("Slot " + slot + " does not hold a puzzle");
+        }
+        int base = (int) (slot & (CHUNK_SLOTS - 1)) * CELLS;
+        char[] values = new char[CELLS];
+        for (int cell = 0; cell < CELLS; cell++) {
+            byte digit = chunk.values.get(base + cell);
+            values[cell] = digit == 0 ? Board.EMPTY : (char) ('0' + digit);
+        }
+        return new Board(values);
+    }
+
+    /**
+     * Writes the values of a slot as 81 ASCII bytes, with '.' for empty cells
+     * @param slot The slot
+     * @param dest The buffer to write into. Its position is not changed.
+     * @param offset The index in dest of the first cell
+     */
+    public void getValues(long slot, ByteBuffer dest, int offset) {
+        Chunk chunk = chunk(slot);
+        int base = (int) (slot & (CHUNK_SLOTS - 1)) * CELLS;
+        for (int cell = 0; cell < CELLS; cell++) {
+            byte digit = chunk.values.get(base + cell);
+            dest.put(offset + cell, digit == 0 ? (byte) '.' : (byte) ('0' + digit));
+        }
+    }
+
+    /**
+     * Solves the puzzle in a slot. Singles are placed in the slot itself; if
+     * that does not finish the puzzle, it is searched on a Board and the
+     * solution is copied back. Slots that are not PENDING are left alone.
+     * @param slot The slot
+     * @param solver The solver for puzzles that need to branch. Its budget, if
+     *               any, applies; a slot whose search runs out of budget stays PENDING.
+     * @return The new state of the slot
+     */
+    public Status solve(long slot, Solver solver) {
+        Chunk chunk = chunk(slot);
+        Status status = getStatus(slot);
+        if (status != Status.PENDING) {
+            return status;
+        }
+        int base = (int) (slot & (CHUNK_SLOTS - 1)) * CELLS;
+        if (!propagate(chunk, base)) {
+            status = Status.UNSOLVABLE;
+        } else if (isComplete(chunk, base)) {
+            status = Status.SOLVED;
+        } else {
+            Board solution = solver.solve(hydrate(slot));
+            if (solution != null) {
+                for (int cell = 0; cell < CELLS; cell++) {
+                    chunk.values.put(base + cell, (byte) (solution.valueAt(cell) - '0'));
+                    chunk.candidates.putShort(2 * (base + cell), (short) 0);
+                }
+                status = Status.SOLVED;
+            } else if (solver.getStats().getLimitReached() == null) {
+                status = Status.UNSOLVABLE;
+            }
+        }
+        setStatus(chunk, slot, status);
+        return status;
+    }
+
+    /**
+     * Solves every pending slot
+     * @param threads The number of threads to solve on, each with its own Solver
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public void solveAll(int threads) throws InterruptedException {
+        AtomicLong next = new AtomicLong();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                Solver solver = new Solver();
+                long from;
+                while ((from = next.getAndAdd(SOLVE_BLOCK)) < size) {
+                    long to = Math.min(size, from + SOLVE_BLOCK);
+                    for (long slot = from; slot < to; slot++) {
+                        solve(slot, solver);
+                    }
+                }
+            }, "store-solver-" + t);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    /**
+     * Counts the slots in a state
+     * @param status The state
+     * @return The number of slots in it
+     */
+    public long count(Status status) {
+        long count = 0;
+        for (long slot = 0; slot < size; slot++) {
+            if (chunks.get((int) (slot >>> CHUNK_SHIFT)).status.get((int) (slot & (CHUNK_SLOTS - 1))) == status.ordinal()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Places naked and hidden singles in a slot until there are none left
+     * @return false if the slot turned out to have no solution
+     */
+    private static boolean propagate(Chunk chunk, int base) {
+        ByteBuffer values = chunk.values;
+        ByteBuffer candidates = chunk.candidates;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int cell = 0; cell < CELLS; cell++) {
+                if (values.get(base + cell) != 0) {
+                    continue;
+                }
+                int mask = candidates.getShort(2 * (base + cell));
+                if (mask == 0) {
+                    return false;
+                }
+                if ((mask & (mask - 1)) == 0) {
+                    place(chunk, base, cell, mask);
+                    changed = true;
+                }
+            }
+            for (int u = 0; u < Board.UNIT_COUNT; u++) {
+                int[] cells = Board.UNITS[u];
+                int used = 0;
+                int once = 0;
+                int twice = 0;
+                for (int k = 0; k < Board.ROW_SIZE; k++) {
+                    int digit = values.get(base + cells[k]);
+                    if (digit != 0) {
+                        used |= 1 << (digit - 1);
+                    } else {
+                        int mask = candidates.getShort(2 * (base + cells[k]));
+                        twice |= once & mask;
+                        once |= mask;
+                    }
+                }
+                if ((once | used) != Board.ALL_CANDIDATES) {
+                    // Some digit has nowhere to go in this unit.
+                    return false;
+                }
+                for (int singles = once & ~twice; singles != 0; singles &= singles - 1) {
+                    int bit = singles & -singles;
+                    int k = 0;
+                    while (k < Board.ROW_SIZE && (candidates.getShort(2 * (base + cells[k])) & bit) == 0) {
+                        k++;
+                    }
+                    if (k == Board.ROW_SIZE) {
+                        // The cell was just filled with another digit that was also hidden there.
+                        return false;
+                    }
+                    place(chunk, base, cells[k], bit);
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void place(Chunk chunk, int base, int cell, int bit) {
+        chunk.values.put(base + cell, (byte) (Integer.numberOfTrailingZeros(bit) + 1));
+        chunk.candidates.putShort(2 * (base + cell), (short) 0);
+        for (int peer : Board.PEERS[cell]) {
+            int index = 2 * (base + peer);
+            int mask = chunk.candidates.getShort(index);
+            if ((mask & bit) != 0) {
+                chunk.candidates.putShort(index, (short) (mask & ~bit));
+            }
+        }
+    }
+
+    private static boolean isComplete(Chunk chunk, int base) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (chunk.values.get(base + cell) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loads a puzzle file into a store, solves it in place and writes the results
+     * in the format BatchSolver uses. Pass -XX:MaxDirectMemorySize to allow a store
+     * larger than the heap.
+     * @param args [-t threads] [-o output-file] input-file
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String output = null;
+        String input = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-t") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-o") && i + 1 < args.length) {
+                output = args[++i];
+            } else if (input == null && !args[i].startsWith("-")) {
+                input = args[i];
+            } else {
+                System.err.println("Usage: java PuzzleStore [-t threads] [-o output-file] input-file");
+                System.exit(2);
+            }
+        }
+        if (input == null) {
+            System.err.println("Usage: java PuzzleStore [-t threads] [-o output-file] input-file");
+            System.exit(2);
+        }
+        Path path = Paths.get(input);
+        long start = System.nanoTime();
+        // Most lines are a puzzle and its line break; the store grows if there are more.
+        PuzzleStore store = new PuzzleStore(Files.size(path) / (CELLS + 1) + 1);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            store.load(in);
+        }
+        long loaded = System.nanoTime();
+        store.solveAll(threads);
+        long solved = System.nanoTime();
+        try (OutputStream out = new BufferedOutputStream(
+                output == null ? System.out : Files.newOutputStream(Paths.get(output)), 1 << 16)) {
+            store.write(out);
+        }
+        long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        System.err.printf("%d puzzles: loaded in %.3f s, solved in %.3f s (%.1f puzzles/s), %d unsolvable, "
+                          + "%d invalid; %d MB off-heap, %d MB heap in use%n",
+                store.size(), (loaded - start) / 1e9, (solved - loaded) / 1e9,
+                store.size() / Math.max((solved - loaded) / 1e9, 1e-9),
+                store.count(Status.UNSOLVABLE), store.count(Status.INVALID),
+                store.getAllocatedBytes() >> 20, heap >> 20);
+    }
+
+    /**
+     * Adds every line of a puzzle file, as BatchSolver reads it: blank lines are
+     * skipped, and spaces and control characters at either end of a line ignored
+     * @param in The puzzles, one per line
+     * @throws IOException if reading fails
+     */
+    void load(InputStream in) throws IOException {
+        ByteBuffer line = ByteBuffer.allocate(CELLS);
+        int length = 0;
+        // Whether the line has a blank after its first character, and whether
+        // something other than a blank followed one, or the 81st character.
+        boolean gap = false;
+        boolean malformed = false;
+        int c;
+        while (true) {
+            c = in.read();
+            if (c == '\n' || c == -1) {
+                if (length == CELLS && !malformed) {
+                    add(line, 0);
+                } else if (length > 0) {
+                    addInvalid();
+                }
+                length = 0;
+                gap = false;
+                malformed = false;
+                if (c == -1) {
+                    return;
+                }
+            } else if (c <= ' ') {
+                gap = length > 0;
+            } else {
+                malformed |= gap || length == CELLS;
+                if (length < CELLS) {
+                    line.put(length++, (byte) c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes one line per slot: the solution, "unsolvable", "invalid" or, for a
+     * slot that is still pending, the puzzle as far as it was solved
+     * @param out Where to write the lines
+     * @throws IOException if writing fails
+     */
+    void write(OutputStream out) throws IOException {
+        ByteBuffer line = ByteBuffer.allocate(CELLS + 1);
+        line.put(CELLS, (byte) '\n');
+        for (long slot = 0; slot < size; slot++) {
+            Status status = getStatus(slot);
+            if (status == Status.UNSOLVABLE) {
+                out.write("unsolvable\n".getBytes(StandardCharsets.US_ASCII));
+            } else if (status == Status.INVALID) {
+                out.write("invalid\n".getBytes(StandardCharsets.US_ASCII));
+            } else {
+                getValues(slot, line, 0);
+                out.write(line.array(), 0, CELLS + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * This class describes the rules a Board is played by, as a constraint graph that
+ * is worked out once and shared by every board with the same rules.
+ * 
+ * The graph has two kinds of constraint. A house is a set of nine cells that holds
+ * every digit once: the rows and columns, the boxes or the irregular regions of a
+ * Jigsaw puzzle, and the two long diagonals of an X puzzle. A cage is a smaller set
+ * of cells that holds no digit twice and whose digits add up to a given sum, as in
+ * a Killer puzzle. Two cells are peers if they share a house or a cage, and placing
+ * a digit removes it from the candidates of every peer in a single walk of the
+ * cell's peer list.
+ * 
+ * Rule sets are immutable. Variants are built by starting from CLASSIC or jigsaw()
+ * and adding the diagonals or cages.
+ */
+public class RuleSet {
+    private static final int CELLS = Board.ROW_SIZE * Board.COL_SIZE;
+    private static final int SIZE = Board.ROW_SIZE;
+    // Unit sets are ints, one bit per house.
+    private static final int MAX_HOUSES = 32;
+    private static final int MAX_SUM = 45;
+    private static final int[] NONE = new int[0];
+
+    /**
+     * For each number of cells and each sum, the masks of the sets of distinct
+     * digits with that many digits and that sum.
+     */
+    private static final int[][][] COMBINATIONS = buildCombinations();
+
+    /**
+     * Standard Sudoku: rows, columns and 3x3 boxes.
+     */
+    public static final RuleSet CLASSIC = new RuleSet("classic", classicHouses(), boxMask(), new int[0][], new int[0]);
+
+    /**
+     * Sudoku X: the two long diagonals must also hold every digit once.
+     */
+    public static final RuleSet X_DIAGONAL = CLASSIC.withDiagonals();
+
+    private final String name;
+    final int unitCount;
+    // The cells of each house: rows 0-8 and columns 9-17, then the regions
+    // and, for an X puzzle, the diagonals.
+    final int[][] units;
+    // For each cell, the houses it belongs to, as indexes and as a unit set.
+    final int[][] cellUnits;
+    final int[] unitBits;
+    final int allUnits;
+    // The houses that are boxes or regions rather than lines.
+    final int regionUnits;
+    final int[][] peers;
+    // The peers of cell i again, as bits 0-63 in peerBits[2i] and 64-80 in peerBits[2i + 1].
+    private final long[] peerBits = new long[2 * CELLS];
+    final int[][] cages;
+    final int[] cageSums;
+
+    private RuleSet(String name, int[][] units, int regionUnits, int[][] cages, int[] cageSums) {
+        if (units.length > MAX_HOUSES) {
+            throw new IllegalArgumentException("At most " + MAX_HOUSES + " houses are supported");
+        }
+        this.name = name;
+        this.unitCount = units.length;
+        this.units = units;
+        this.regionUnits = regionUnits;
+        this.cages = cages;
+        this.cageSums = cageSums;
+        this.allUnits = unitCount == MAX_HOUSES ? -1 : (1 << unitCount) - 1;
+
+        int[] houseCount = new int[CELLS];
+        unitBits = new int[CELLS];
+        for (int u = 0; u < unitCount; u++) {
+            for (int cell : units[u]) {
+                houseCount[cell]++;
+                unitBits[cell] |= 1 << u;
+            }
+        }
+        cellUnits = new int[CELLS][];
+        for (int i = 0; i < CELLS; i++) {
+            cellUnits[i] = new int[houseCount[i]];
+            int n = 0;
+            for (int rest = unitBits[i]; rest != 0; rest &= rest - 1) {
+                cellUnits[i][n++] = Integer.numberOfTrailingZeros(rest);
+            }
+        }
+
+        boolean[][] linked = new boolean[CELLS][CELLS];
+        for (int[] unit : units) {
+            link(linked, unit);
+        }
+        for (int[] cage : cages) {
+            link(linked, cage);
+        }
+        peers = new int[CELLS][];
+        for (int i = 0; i < CELLS; i++) {
+            int n = 0;
+            int[] row = new int[CELLS];
+            for (int j = 0; j < CELLS; j++) {
+                if (j != i && linked[i][j]) {
+                    row[n++] = j;
+                    peerBits[2 * i + (j >>> 6)] |= 1L << j;
+                }
+            }
+            peers[i] = Arrays.copyOf(row, n);
+        }
+    }
+
+    private static void link(boolean[][] linked, int[] cells) {
+        for (int a : cells) {
+            for (int b : cells) {
+                linked[a][b] = true;
+            }
+        }
+    }
+
+    private static int[][] classicHouses() {
+        int[][] units = new int[3 * SIZE][SIZE];
+        for (int i = 0; i < CELLS; i++) {
+            int row = i / SIZE;
+            int col = i % SIZE;
+            int box = (row / Board.BOX_SIZE) * Board.BOX_SIZE + col / Board.BOX_SIZE;
+            units[row][col] = i;
+            units[SIZE + col][row] = i;
+            units[2 * SIZE + box][(row % Board.BOX_SIZE) * Board.BOX_SIZE + col % Board.BOX_SIZE] = i;
+        }
+        return units;
+    }
+
+    private static int boxMask() {
+        return ((1 << SIZE) - 1) << (2 * SIZE);
+    }
+
+    private static int[][][] buildCombinations() {
+        List<List<Integer>> found = new ArrayList<>();
+        for (int k = 0; k <= (SIZE + 1) * (MAX_SUM + 1); k++) {
+            found.add(new ArrayList<>());
+        }
+        for (int mask = 0; mask <= Board.ALL_CANDIDATES; mask++) {
+            int sum = 0;
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                sum += Integer.numberOfTrailingZeros(rest) + 1;
+            }
+            found.get(Integer.bitCount(mask) * (MAX_SUM + 1) + sum).add(mask);
+        }
+        int[][][] table = new int[SIZE + 1][MAX_SUM + 1][];
+        for (int size = 0; size <= SIZE; size++) {
+            for (int sum = 0; sum <= MAX_SUM; sum++) {
+                List<Integer> masks = found.get(size * (MAX_SUM + 1) + sum);
+                table[size][sum] = new int[masks.size()];
+                for (int k = 0; k < masks.size(); k++) {
+                    table[size][sum][k] = masks.get(k);
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @param size A number of cells, 0-9
+     * @param sum A total
+     * @return The masks of every set of size distinct digits adding up to sum;
+     *         empty if there is none
+     */
+    static int[] combinations(int size, int sum) {
+        if (sum < 0 || sum > MAX_SUM) {
+            return NONE;
+        }
+        return COMBINATIONS[size][sum];
+    }
+
+    /**
+     * Creates the rules of a Jigsaw puzzle, whose boxes are replaced by nine
+     * irregular regions of nine cells each
+     * @param regions 81 characters, row by row, giving the region of each cell
+     *                as a digit from '1' to '9'
+     * @return The rule set
+     * @throws IllegalArgumentException if the layout is malformed or a region
+     *         does not have exactly nine cells
+     */
+    public static RuleSet jigsaw(CharSequence regions) {
+        if (regions.length() != CELLS) {
+            throw new IllegalArgumentException("A region layout must have exactly 81 cells");
+        }
+        int[][] units = Arrays.copyOf(classicHouses(), 3 * SIZE);
+        int[] filled = new int[SIZE];
+        for (int r = 0; r < SIZE; r++) {
+            units[2 * SIZE + r] = new int[SIZE];
+        }
+        for (int i = 0; i < CELLS; i++) {
+            char c = regions.charAt(i);
+            if (c < '1' || c > '9') {
+                throw new IllegalArgumentException("Invalid region '" + c + "' in layout");
+            }
+            int r = c - '1';
+            if (filled[r] == SIZE) {
+                throw new IllegalArgumentException("Region " + c + " has more than nine cells");
+            }
+            units[2 * SIZE + r][filled[r]++] = i;
+        }
+        return new RuleSet("jigsaw", units, boxMask(), new int[0][], new int[0]);
+    }
+
+    /**
+     * Creates the rules of a Killer puzzle: classic Sudoku plus cages
+     * @param layout See withCages()
+     * @param sums The sum of each cage, in the order of their first cells
+     * @return The rule set
+     */
+    public static RuleSet killer(CharSequence layout, int... sums) {
+        return CLASSIC.withCages(layout, sums);
+    }
+
+    /**
+     * @return These rules with the two long diagonals added as houses
+     * @throws IllegalStateException if the diagonals are already houses
+     */
+    public RuleSet withDiagonals() {
+        if (unitCount > 3 * SIZE) {
+            throw new IllegalStateException("The diagonals are already houses");
+        }
+        int[][] withDiagonals = Arrays.copyOf(units, unitCount + 2);
+        withDiagonals[unitCount] = new int[SIZE];
+        withDiagonals[unitCount + 1] = new int[SIZE];
+        for (int k = 0; k < SIZE; k++) {
+            withDiagonals[unitCount][k] = k * SIZE + k;
+            withDiagonals[unitCount + 1][k] = k * SIZE + SIZE - 1 - k;
+        }
+        return new RuleSet(name + "+x", withDiagonals, regionUnits, cages, cageSums);
+    }
+
+    /**
+     * Adds Killer cages to these rules
+     * @param layout 81 characters, row by row. Cells with the same character
+     *               belong to the same cage; '.' marks a cell in no cage. Cages
+     *               are numbered in the order of their first cells.
+     * @param sums The sum of each cage, in that order
+     * @return These rules with the cages added
+     * @throws IllegalArgumentException if the layout is malformed, the number of
+     *         sums does not match, or a cage cannot reach its sum
+     */
+    public RuleSet withCages(CharSequence layout, int... sums) {
+        if (layout.length() != CELLS) {
+            throw new IllegalArgumentException("A cage layout must have exactly 81 cells");
+        }
+        Map<Character, List<Integer>> byLabel = new LinkedHashMap<>();
+        for (int i = 0; i < CELLS; i++) {
+            char c = layout.charAt(i);
+            if (c != '.') {
+                byLabel.computeIfAbsent(c, k -> new ArrayList<>()).add(i);
+            }
+        }
+        if (byLabel.size() != sums.length) {
+            throw new IllegalArgumentException("The layout has " + byLabel.size() + " cages but "
+                                               + sums.length + " sums were given");
+        }
+        int[][] added = new int[byLabel.size()][];
+        int c = 0;
+        for (Map.Entry<Character, List<Integer>> entry : byLabel.entrySet()) {
+            List<Integer> cells = entry.getValue();
+            if (cells.size() > SIZE || combinations(cells.size(), sums[c]).length == 0) {
+                throw new IllegalArgumentException("Cage '" + entry.getKey() + "' of " + cells.size()
+                                                   + " cells cannot add up to " + sums[c]);
+            }
+            added[c] = new int[cells.size()];
+            for (int k = 0; k < cells.size(); k++) {
+                added[c][k] = cells.get(k);
+            }
+            c++;
+        }
+        int[][] allCages = Arrays.copyOf(cages, cages.length + added.length);
+        System.arraycopy(added, 0, allCages, cages.length, added.length);
+        int[] allSums = Arrays.copyOf(cageSums, cageSums.length + sums.length);
+        System.arraycopy(sums, 0, allSums, cageSums.length, sums.length);
+        return new RuleSet(name + "+killer", units, regionUnits, allCages, allSums);
+    }
+
+    /**
+     * @return A short description, such as "classic" or "jigsaw+x"
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The number of houses: 27 for classic Sudoku, 29 with the diagonals
+     */
+    public int getHouseCount() {
+        return unitCount;
+    }
+
+    public int getCageCount() {
+        return cages.length;
+    }
+
+    /**
+     * @param cage A cage index
+     * @return A copy of the cells of the cage
+     */
+    public int[] getCageCells(int cage) {
+        return cages[cage].clone();
+    }
+
+    public int getCageSum(int cage) {
+        return cageSums[cage];
+    }
+
+    /**
+     * @param a A cell index (row * 9 + col)
+     * @param b Another cell index
+     * @return true if the two cells may not hold the same digit
+     */
+    public boolean arePeers(int a, int b) {
+        return (peerBits[2 * a + (b >>> 6)] & (1L << b)) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Arrays;
+
+/**
+ * A record of the values a search placed and took back, in order, for replaying
+ * it. Events are packed into an int array: the cell index in the low seven bits,
+ * then the digit and the kind of event. A search that runs on after the maximum
+ * number of events stops being recorded, and the trace is marked truncated.
+ */
+public class SearchTrace {
+    /**
+     * What happened to a cell.
+     */
+    public enum Kind {
+        PLACE,      // Propagation placed a value
+        GUESS,      // The search placed a value as one branch of several
+        UNDO        // A value was taken back on backtrack
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+    private static final int DIGIT_SHIFT = 7;
+    private static final int KIND_SHIFT = 11;
+    private static final int DEFAULT_MAX_EVENTS = 1 << 22;
+
+    private final int maxEvents;
+    private int[] events = new int[1024];
+    private int size = 0;
+    private boolean truncated = false;
+    // Set just before the search places a branch value, so that place() records a guess.
+    private boolean guessPending = false;
+
+    /**
+     * Creates a trace that records up to about four million events
+     */
+    public SearchTrace() {
+        this(DEFAULT_MAX_EVENTS);
+    }
+
+    /**
+     * Creates a trace
+     * @param maxEvents The number of events after which recording stops
+     */
+    public SearchTrace(int maxEvents) {
+        this.maxEvents = maxEvents;
+    }
+
+    /**
+     * @return The number of events recorded
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the search produced more events than were recorded
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public Kind getKind(int event) {
+        return KINDS[events[event] >>> KIND_SHIFT];
+    }
+
+    /**
+     * @return The index (row * 9 + col) of the cell the event changed
+     */
+    public int getCell(int event) {
+        return events[event] & 0x7F;
+    }
+
+    /**
+     * @return The digit placed, or Board.EMPTY for an UNDO
+     */
+    public char getValue(int event) {
+        int digit = (events[event] >>> DIGIT_SHIFT) & 0xF;
+        return digit == 0 ? Board.EMPTY : (char) ('0' + digit);
+    }
+
+    /**
+     * Forgets every event, so the trace can record another search
+     */
+    public void clear() {
+        size = 0;
+        truncated = false;
+        guessPending = false;
+    }
+
+    /**
+     * Marks the next placement as a branch of the search rather than a propagation.
+     */
+    void guessNext() {
+        guessPending = true;
+    }
+
+    void place(int cell, char value) {
+        Kind kind = guessPending ? Kind.GUESS : Kind.PLACE;
+        guessPending = false;
+        add(cell | ((value - '0') << DIGIT_SHIFT) | (kind.ordinal() << KIND_SHIFT));
+    }
+
+    void undo(int cell) {
+        add(cell | (Kind.UNDO.ordinal() << KIND_SHIFT));
+    }
+
+    private void add(int event) {
+        if (size == maxEvents) {
+            truncated = true;
+            return;
+        }
+        if (size == events.length) {
+            events = Arrays.copyOf(events, (int) Math.min(maxEvents, 2L * events.length));
+        }
+        events[size++] = event;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits on the work a Solver may do for one solve. Every search node is
+ * charged to the budget, including nodes searched by child solvers and by the
+ * other threads of a PARALLEL search; once a limit is reached the search gives
+ * up and solve() returns null. A budget is used up by one solve and should not
+ * be reused.
+ * 
+ * Another thread may cancel the search or watch its progress through the budget.
+ */
+public class SolveBudget {
+    /**
+     * The limit that stopped a search.
+     */
+    public enum Limit {
+        NODES,      // The maximum number of search nodes was reached
+        TIME,       // The deadline passed
+        CANCELLED   // cancel() was called
+    }
+
+    // The clock is read only every this many nodes, plus the first.
+    private static final int CLOCK_INTERVAL = 64;
+
+    private final AtomicLong nodes = new AtomicLong();
+    private long maxNodes = 0;
+    private boolean hasDeadline = false;
+    private long deadline;
+    private volatile Limit limitReached;
+    // The depth of the node charged last, for progress reports.
+    private volatile int depth;
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * @param maxNodes The number of search nodes after which to give up, or 0 for no limit
+     */
+    public void setMaxNodes(long maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Gives up once the clock passes a point in time
+     * @param deadline A value of System.nanoTime()
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+        this.hasDeadline = true;
+    }
+
+    /**
+     * Gives up once the given time has passed from now
+     * @param timeout The time allowed
+     * @param unit The unit of timeout
+     */
+    public void setTimeout(long timeout, TimeUnit unit) {
+        setDeadline(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * @return The deadline as a value of System.nanoTime(), if there is one
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    /**
+     * @return The number of search nodes charged so far
+     */
+    public long getNodes() {
+        return nodes.get();
+    }
+
+    /**
+     * @return The branching depth of the node the search charged last
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Asks the search to stop. It gives up at its next search node.
+     */
+    public void cancel() {
+        if (limitReached == null) {
+            limitReached = Limit.CANCELLED;
+        }
+    }
+
+    /**
+     * @return The limit that stopped the search, or null if none was reached
+     */
+    public Limit getLimitReached() {
+        return limitReached;
+    }
+
+    /**
+     * Charges one search node to the budget
+     * @param depth The branching depth of the node
+     * @return false if a limit has been reached and the search should stop
+     */
+    boolean charge(int depth) {
+        if (limitReached != null) {
+            return false;
+        }
+        this.depth = depth;
+        long n = nodes.incrementAndGet();
+        if (maxNodes > 0 && n > maxNodes) {
+            limitReached = Limit.NODES;
+            return false;
+        }
+        if (hasDeadline && (n == 1 || n % CLOCK_INTERVAL == 0) && System.nanoTime() - deadline >= 0) {
+            limitReached = Limit.TIME;
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder events emitted by the engines. They cost almost nothing
+ * unless a recording is running, for example with
+ * java -XX:StartFlightRecording=filename=solve.jfr BatchSolver puzzles.txt
+ * Each event type is checked before an event is created, so a solve without a
+ * recording allocates nothing here.
+ */
+public final class SolveEvents {
+    private SolveEvents() {
+    }
+
+    @Name("sudoku.SolveStart")
+    @Label("Solve Start")
+    @Category("Sudoku")
+    @Description("An engine started solving a puzzle")
+    public static class SolveStart extends Event {
+        @Label("Engine")
+        String engine;
+
+        @Label("Empty Cells")
+        int emptyCells;
+    }
+
+    @Name("sudoku.SolveEnd")
+    @Label("Solve")
+    @Category("Sudoku")
+    @Description("An engine finished solving a puzzle; the duration covers the whole solve")
+    public static class SolveEnd extends Event {
+        @Label("Engine")
+        String engine;
+
+        @Label("Empty Cells")
+        int emptyCells;
+
+        @Label("Solved")
+        boolean solved;
+
+        @Label("Nodes")
+        int nodes;
+
+        @Label("Propagation Placements")
+        int propagationPlacements;
+
+        @Label("Backtracks")
+        int backtracks;
+
+        @Label("Max Depth")
+        int maxDepth;
+
+        @Label("Propagation Time")
+        @Timespan
+        long propagationNanos;
+
+        @Label("Cache Hit")
+        boolean cacheHit;
+
+        @Label("Limit Reached")
+        @Description("The budget limit that stopped the search, if any")
+        String limitReached;
+    }
+
+    @Name("sudoku.BacktrackMilestone")
+    @Label("Backtrack Milestone")
+    @Category("Sudoku")
+    @Description("A search reached another power of ten backtracks")
+    public static class BacktrackMilestone extends Event {
+        @Label("Backtracks")
+        int backtracks;
+
+        @Label("Nodes")
+        int nodes;
+
+        @Label("Depth")
+        int depth;
+    }
+
+    // Enabled and disabled as recordings start and stop.
+    private static final EventType SOLVE_START = EventType.getEventType(SolveStart.class);
+    private static final EventType SOLVE_END = EventType.getEventType(SolveEnd.class);
+    private static final EventType BACKTRACK_MILESTONE = EventType.getEventType(BacktrackMilestone.class);
+
+    /**
+     * Records the start of a solve
+     * @param engine A short name for the engine
+     * @param emptyCells The number of empty cells in the puzzle
+     * @return The end event, already timing the solve, or null if it is not being
+     *         recorded; pass it to end() either way
+     */
+    static SolveEnd begin(String engine, int emptyCells) {
+        if (SOLVE_START.isEnabled()) {
+            SolveStart start = new SolveStart();
+            start.engine = engine;
+            start.emptyCells = emptyCells;
+            start.commit();
+        }
+        if (!SOLVE_END.isEnabled()) {
+            return null;
+        }
+        SolveEnd end = new SolveEnd();
+        end.engine = engine;
+        end.emptyCells = emptyCells;
+        end.begin();
+        return end;
+    }
+
+    /**
+     * Records the end of a solve
+     * @param end The event returned by begin(), which may be null
+     * @param stats The statistics of the solve
+     */
+    static void end(SolveEnd end, SolveStats stats) {
+        if (end == null) {
+            return;
+        }
+        end.end();
+        if (end.shouldCommit()) {
+            end.solved = stats.isSolved();
+            end.nodes = stats.getNodes();
+            end.propagationPlacements = stats.getPropagationPlacements();
+            end.backtracks = stats.getBacktracks();
+            end.maxDepth = stats.getMaxDepth();
+            end.propagationNanos = stats.getPropagationNanos();
+            end.cacheHit = stats.isCacheHit();
+            end.limitReached = stats.getLimitReached() != null ? stats.getLimitReached().name() : null;
+            end.commit();
+        }
+    }
+
+    static void backtrackMilestone(int backtracks, int nodes, int depth) {
+        if (BACKTRACK_MILESTONE.isEnabled()) {
+            BacktrackMilestone event = new BacktrackMilestone();
+            event.backtracks = backtracks;
+            event.nodes = nodes;
+            event.depth = depth;
+            event.commit();
+        }
+    }
+}
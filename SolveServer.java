@@ -0,0 +1,587 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This is an HTTP front end for the solver, for other programs on the same machine.
+ * 
+ * POST /solve takes one puzzle per line in the request body and answers with one
+ * line per puzzle, in the same order: the solution, "invalid" if the line is not a
+ * puzzle, "unsolvable" if it has no solution, or "node-limit" or "time-limit" if the
+ * solver gave up. The query parameters nodes (search nodes per puzzle) and ms (time
+ * for the whole request, counted from its arrival) tighten the server's budgets.
+ * 
+ * Puzzles wait in a bounded queue for a fixed pool of workers. Each worker takes
+ * whatever has queued up, up to BATCH_SIZE puzzles, and solves them in a row with
+ * one Solver. A request whose puzzles do not all fit in the queue is refused with
+ * 429 instead of being queued, so a burst cannot grow the backlog without bound.
+ * The body is read a line at a time, and a line longer than MAX_LINE_LENGTH or a
+ * body that could not hold only acceptable lines is refused with 413 as soon as
+ * that shows, so no request is buffered beyond what it may legitimately hold. If
+ * solving one puzzle fails, the request is answered with 500 and its other
+ * puzzles are dropped from the queue or cancelled.
+ * 
+ * GET /metrics reports the queue depth, counters and latency percentiles as plain
+ * text, one "name value" pair per line.
+ */
+public class SolveServer {
+    private static final String USAGE =
+            "Usage: java SolveServer [-p port] [-t threads] [-q queue-capacity] [-n max-nodes] [-l time-limit-ms]";
+    // The most puzzles a worker takes from the queue at once.
+    private static final int BATCH_SIZE = 32;
+    // The most puzzles accepted in one request, if the queue can hold that many.
+    private static final int MAX_PUZZLES_PER_REQUEST = 10000;
+    // Threads that read request bodies and queue their puzzles.
+    private static final int HANDLER_THREADS = 2;
+    /**
+     * The longest line accepted in a request body, leaving room for padding around
+     * the 81 cells of a puzzle.
+     */
+    public static final int MAX_LINE_LENGTH = 1024;
+    private static final int CELLS = Board.ROW_SIZE * Board.COL_SIZE;
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final List<Thread> workers = new ArrayList<>();
+    private final LinkedBlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+    // One permit per free place in the queue.
+    private final Semaphore capacity;
+    private final int queueCapacity;
+    // A larger request could never be admitted, so it is refused outright.
+    private final int maxPuzzlesPerRequest;
+    // Room for that many lines of the longest length, blank lines included.
+    private final long maxBodyBytes;
+    private final long maxNodes;
+    private final long timeLimitMillis;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong solved = new AtomicLong();
+    private final AtomicLong unsolvable = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong nodeLimited = new AtomicLong();
+    private final AtomicLong timeLimited = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final Histogram requestLatency = new Histogram();
+    private final Histogram queueWait = new Histogram();
+
+    /**
+     * A puzzle waiting to be solved, and where its answer goes.
+     */
+    private static final class Job {
+        final Request request;
+        final int index;
+        final Board puzzle;
+        final long queuedAt;
+
+        Job(Request request, int index, Board puzzle, long queuedAt) {
+            this.request = request;
+            this.index = index;
+            this.puzzle = puzzle;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    /**
+     * An HTTP request whose answer is sent when its last puzzle is done.
+     */
+    private final class Request {
+        final HttpExchange exchange;
+        final long receivedAt;
+        final String[] results;
+        final long maxNodes;
+        final long deadline;
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicBoolean responded = new AtomicBoolean();
+        // The budgets of the puzzles being solved now, so that a failure can cancel them.
+        final Set<SolveBudget> running = ConcurrentHashMap.newKeySet();
+        volatile boolean failed;
+
+        Request(HttpExchange exchange, long receivedAt, int puzzles, long maxNodes, long deadline) {
+            this.exchange = exchange;
+            this.receivedAt = receivedAt;
+            this.results = new String[puzzles];
+            this.maxNodes = maxNodes;
+            this.deadline = deadline;
+        }
+
+        void complete(int index, String result) {
+            results[index] = result;
+            if (pending.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+
+        void finish() {
+            StringBuilder body = new StringBuilder(results.length * (CELLS + 1));
+            for (String line : results) {
+                body.append(line).append('\n');
+            }
+            respond(200, body.toString());
+        }
+
+        void respond(int status, String body) {
+            if (responded.compareAndSet(false, true)) {
+                send(exchange, status, body);
+                requestLatency.record(System.nanoTime() - receivedAt);
+            }
+        }
+
+        /**
+         * Answers with an error and stops the other puzzles of the request: queued
+         * ones are removed and their places freed, running ones are cancelled, and
+         * any a worker has already taken are skipped.
+         */
+        void fail(int status, String body) {
+            failed = true;
+            respond(status, body);
+            for (SolveBudget budget : running) {
+                budget.cancel();
+            }
+            AtomicInteger dropped = new AtomicInteger();
+            queue.removeIf(job -> job.request == this && dropped.incrementAndGet() > 0);
+            capacity.release(dropped.get());
+            cancelled.addAndGet(dropped.get());
+        }
+    }
+
+    /**
+     * A latency histogram with power-of-two microsecond buckets.
+     */
+    private static final class Histogram {
+        private static final int BUCKETS = 40;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            long micros = Math.max(1, nanos / 1000);
+            int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+            counts.incrementAndGet(bucket);
+            max.accumulateAndGet(micros, Math::max);
+        }
+
+        /**
+         * @return The upper bound in microseconds of the bucket holding the given
+         *         fraction of recorded values, or 0 if none were recorded
+         */
+        long percentile(double fraction) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += counts.get(i);
+            }
+            long rank = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank && seen > 0) {
+                    return Math.min(2L << i, max.get());
+                }
+            }
+            return 0;
+        }
+
+        void report(StringBuilder sb, String name) {
+            sb.append(name).append("_p50_us ").append(percentile(0.50)).append('\n');
+            sb.append(name).append("_p90_us ").append(percentile(0.90)).append('\n');
+            sb.append(name).append("_p99_us ").append(percentile(0.99)).append('\n');
+            sb.append(name).append("_max_us ").append(max.get()).append('\n');
+        }
+    }
+
+    /**
+     * Creates a server on the loopback interface. It does not accept requests until started.
+     * @param port The port to listen on, or 0 for any free port
+     * @param threads The number of solving threads
+     * @param queueCapacity The most puzzles that may wait for a solving thread
+     * @param maxNodes The most search nodes per puzzle, or 0 for no limit
+     * @param timeLimitMillis The most time per request, or 0 for no limit
+     * @throws IOException if the port cannot be bound
+     */
+    public SolveServer(int port, int threads, int queueCapacity, long maxNodes, long timeLimitMillis)
+            throws IOException {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("There must be at least one thread and one queue place");
+        }
+        this.queueCapacity = queueCapacity;
+        this.maxPuzzlesPerRequest = Math.min(MAX_PUZZLES_PER_REQUEST, queueCapacity);
+        this.maxBodyBytes = (long) maxPuzzlesPerRequest * (MAX_LINE_LENGTH + 2);
+        this.capacity = new Semaphore(queueCapacity);
+        this.maxNodes = maxNodes;
+        this.timeLimitMillis = timeLimitMillis;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        handlers = Executors.newFixedThreadPool(HANDLER_THREADS);
+        server.setExecutor(handlers);
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/metrics", this::handleMetrics);
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::work, "solve-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+    }
+
+    public void start() {
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, answers the queued ones with 503 and stops the workers
+     */
+    public void stop() {
+        server.stop(0);
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        List<Job> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        for (Job job : abandoned) {
+            job.request.respond(503, "Shutting down\n");
+        }
+        handlers.shutdown();
+    }
+
+    /**
+     * @return The port the server listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return The number of puzzles waiting for a solving thread
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        long receivedAt = System.nanoTime();
+        requests.incrementAndGet();
+        if (!exchange.getRequestMethod().equals("POST")) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            send(exchange, 405, "Use POST\n");
+            return;
+        }
+        long nodes = maxNodes;
+        long millis = timeLimitMillis;
+        try {
+            nodes = tighten(nodes, queryParameter(exchange.getRequestURI(), "nodes"));
+            millis = tighten(millis, queryParameter(exchange.getRequestURI(), "ms"));
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, e.getMessage() + "\n");
+            return;
+        }
+
+        List<String> lines = new ArrayList<>();
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        String tooLarge = length != null && length.matches("[0-9]{1,18}") && Long.parseLong(length) > maxBodyBytes
+                ? "At most " + maxBodyBytes + " bytes per request\n"
+                : readLines(exchange.getRequestBody(), lines);
+        if (tooLarge != null) {
+            send(exchange, 413, tooLarge);
+            return;
+        }
+
+        long deadline = millis > 0 ? receivedAt + TimeUnit.MILLISECONDS.toNanos(millis) : 0;
+        Request request = new Request(exchange, receivedAt, lines.size(), nodes, deadline);
+        List<Job> jobs = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            Board puzzle = parseOrNull(lines.get(i));
+            if (puzzle == null) {
+                invalid.incrementAndGet();
+                request.results[i] = "invalid";
+            } else {
+                jobs.add(new Job(request, i, puzzle, receivedAt));
+            }
+        }
+        if (jobs.isEmpty()) {
+            request.finish();
+            return;
+        }
+        if (!capacity.tryAcquire(jobs.size())) {
+            rejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            request.respond(429, "Queue full\n");
+            return;
+        }
+        request.pending.set(jobs.size());
+        queue.addAll(jobs);
+    }
+
+    /**
+     * Reads the lines of a request body that are not blank, without ever holding
+     * more than one line of at most MAX_LINE_LENGTH bytes beyond them. A line ends
+     * at a line feed, a carriage return, or both.
+     * @param body The request body, which is closed
+     * @param lines Receives the lines
+     * @return null, or the reason for refusing the request with 413
+     * @throws IOException if the body cannot be read
+     */
+    private String readLines(InputStream body, List<String> lines) throws IOException {
+        StringBuilder line = new StringBuilder();
+        long total = 0;
+        boolean afterReturn = false;
+        try (InputStream in = new BufferedInputStream(body)) {
+            int c;
+            while (true) {
+                c = in.read();
+                if (c == '\n' && afterReturn) {
+                    afterReturn = false;
+                    continue;
+                }
+                afterReturn = c == '\r';
+                if (c == '\n' || c == '\r' || c == -1) {
+                    if (line.toString().trim().isEmpty()) {
+                        line.setLength(0);
+                    } else if (lines.size() == maxPuzzlesPerRequest) {
+                        return "At most " + maxPuzzlesPerRequest + " puzzles per request\n";
+                    } else {
+                        lines.add(line.toString());
+                        line.setLength(0);
+                    }
+                    if (c == -1) {
+                        return null;
+                    }
+                } else if (line.length() == MAX_LINE_LENGTH) {
+                    return "Lines may be at most " + MAX_LINE_LENGTH + " bytes long\n";
+                } else {
+                    line.append((char) c);
+                }
+                if (++total > maxBodyBytes) {
+                    return "At most " + maxBodyBytes + " bytes per request\n";
+                }
+            }
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("queue_depth ").append(queue.size()).append('\n');
+        sb.append("queue_capacity ").append(queueCapacity).append('\n');
+        sb.append("workers ").append(workers.size()).append('\n');
+        sb.append("requests ").append(requests.get()).append('\n');
+        sb.append("rejected ").append(rejected.get()).append('\n');
+        sb.append("batches ").append(batches.get()).append('\n');
+        sb.append("solved ").append(solved.get()).append('\n');
+        sb.append("unsolvable ").append(unsolvable.get()).append('\n');
+        sb.append("invalid ").append(invalid.get()).append('\n');
+        sb.append("node_limited ").append(nodeLimited.get()).append('\n');
+        sb.append("time_limited ").append(timeLimited.get()).append('\n');
+        sb.append("cancelled ").append(cancelled.get()).append('\n');
+        requestLatency.report(sb, "request_latency");
+        queueWait.report(sb, "queue_wait");
+        send(exchange, 200, sb.toString());
+    }
+
+    /**
+     * The loop of a solving thread: take a batch of queued puzzles and solve them.
+     */
+    private void work() {
+        Solver solver = new Solver();
+        List<Job> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                capacity.release(batch.size());
+                batches.incrementAndGet();
+                for (Job job : batch) {
+                    solve(solver, job);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Stopped by stop().
+        }
+    }
+
+    private void solve(Solver solver, Job job) {
+        queueWait.record(System.nanoTime() - job.queuedAt);
+        Request request = job.request;
+        SolveBudget budget = new SolveBudget();
+        budget.setMaxNodes(request.maxNodes);
+        if (request.deadline != 0) {
+            budget.setDeadline(request.deadline);
+        }
+        String result;
+        // Registered before the check, so that a failure in between still cancels it.
+        request.running.add(budget);
+        try {
+            if (request.failed) {
+                cancelled.incrementAndGet();
+                return;
+            }
+            solver.setBudget(budget);
+            Board solution = solver.solve(job.puzzle);
+            if (solution != null) {
+                solved.incrementAndGet();
+                char[] values = new char[CELLS];
+                solution.getValues(values, 0);
+                result = new String(values);
+            } else if (budget.getLimitReached() == SolveBudget.Limit.NODES) {
+                nodeLimited.incrementAndGet();
+                result = "node-limit";
+            } else if (budget.getLimitReached() == SolveBudget.Limit.TIME) {
+                timeLimited.incrementAndGet();
+                result = "time-limit";
+            } else {
+                unsolvable.incrementAndGet();
+                result = "unsolvable";
+            }
+        } catch (RuntimeException e) {
+            request.fail(500, "Internal error\n");
+            return;
+        } finally {
+            request.running.remove(budget);
+        }
+        request.complete(job.index, result);
+    }
+
+    /**
+     * @return The lower of a server limit and a requested limit, where 0 means no limit
+     */
+    private static long tighten(long limit, String requested) {
+        if (requested == null) {
+            return limit;
+        }
+        long value;
+        try {
+            value = Long.parseLong(requested);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + requested);
+        }
+        if (value <= 0) {
+            throw new IllegalArgumentException("Limits must be positive: " + requested);
+        }
+        return limit == 0 ? value : Math.min(limit, value);
+    }
+
+    private static String queryParameter(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return pair.substring(eq + 1);
+            }
+        }
+        return null;
+    }
+
+    private static Board parseOrNull(String text) {
+        try {
+            return Board.parse(text.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+        try (OutputStream os = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(status, bytes.length);
+            os.write(bytes);
+        } catch (IOException e) {
+            // The client went away; there is no one left to tell.
+        } finally {
+            exchange.close();
+        }
+    }
+
+    public static void main(String[] args) {
+        int port = 8080;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int queueCapacity = 4096;
+        long maxNodes = 0;
+        long timeLimitMillis = 0;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-p") && i + 1 < args.length) {
+                    port = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-t") && i + 1 < args.length) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-q") && i + 1 < args.length) {
+                    queueCapacity = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-n") && i + 1 < args.length) {
+                    maxNodes = Long.parseLong(args[++i]);
+                } else if (args[i].equals("-l") && i + 1 < args.length) {
+                    timeLimitMillis = Long.parseLong(args[++i]);
+                } else {
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            SolveServer server = new SolveServer(port, threads, queueCapacity, maxNodes, timeLimitMillis);
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            System.err.println("Listening on http://localhost:" + server.getPort() + "/solve");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Cannot start the server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * Statistics collected by an engine for a single solve.
+ * Search nodes and backtracks count only branching; values placed by
+ * propagation are counted separately. When a Solver was asked to compare
+ * against the row-major branching of the original solver, the baseline
+ * statistics are included.
+ */
+public class SolveStats {
+    private final String engine;
+    private final Solver.BranchPolicy branchPolicy;
+    private final Solver.TieBreak tieBreak;
+    int nodes;
+    int steps;
+    int propagationPlacements;
+    int backtracks;
+    int maxDepth;
+    long propagationNanos;
+    long elapsedNanos;
+    boolean solved;
+    boolean cacheHit;
+    SolveBudget.Limit limitReached;
+    int restarts;
+    long nogoodsLearned;
+    long nogoodPrunes;
+    private SolveStats baseline;
+
+    /**
+     * Creates empty statistics for a Solver
+     * @param branchPolicy The solver's branch policy
+     * @param tieBreak The solver's tie-break
+     */
+    public SolveStats(Solver.BranchPolicy branchPolicy, Solver.TieBreak tieBreak) {
+        this.engine = branchPolicy + "/" + tieBreak;
+        this.branchPolicy = branchPolicy;
+        this.tieBreak = tieBreak;
+    }
+
+    /**
+     * Creates empty statistics for an engine without branch settings
+     * @param engine A short name for the engine
+     */
+    public SolveStats(String engine) {
+        this.engine = engine;
+        this.branchPolicy = null;
+        this.tieBreak = null;
+    }
+
+    /**
+     * @return A short description of the engine and its settings
+     */
+    public String getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return The branch policy, or null if the engine has none
+     */
+    public Solver.BranchPolicy getBranchPolicy() {
+        return branchPolicy;
+    }
+
+    /**
+     * @return The tie-break, or null if the engine has none
+     */
+    public Solver.TieBreak getTieBreak() {
+        return tieBreak;
+    }
+
+    /**
+     * @return The number of search nodes visited
+     */
+    public int getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return The engine's step counter for this solve: placements plus candidates tried
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return The number of values placed by propagation rather than by branching
+     */
+    public int getPropagationPlacements() {
+        return propagationPlacements;
+    }
+
+    /**
+     * @return The number of candidates that were tried and failed
+     */
+    public int getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * @return The deepest branching level reached
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getPropagationNanos() {
+        return propagationNanos;
+    }
+
+    /**
+     * @return The wall time not spent in propagation
+     */
+    public long getSearchNanos() {
+        return elapsedNanos - propagationNanos;
+    }
+
+    /**
+     * @return The wall time of the whole solve
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public boolean isSolved() {
+        return solved;
+    }
+
+    /**
+     * @return true if the solution came from a SolutionCache instead of a search
+     */
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    /**
+     * @return The budget limit that stopped the search, or null if it ran to completion
+     */
+    public SolveBudget.Limit getLimitReached() {
+        return limitReached;
+    }
+
+    /**
+     * @return The number of times a LEARNING search started over
+     */
+    public int getRestarts() {
+        return restarts;
+    }
+
+    /**
+     * @return The number of refuted branches a LEARNING search remembered
+     */
+    public long getNogoodsLearned() {
+        return nogoodsLearned;
+    }
+
+    /**
+     * @return The number of branches a LEARNING search skipped because they repeated a refuted one
+     */
+    public long getNogoodPrunes() {
+        return nogoodPrunes;
+    }
+
+    /**
+     * @return The statistics of the baseline solve, or null if no comparison was made
+     */
+    public SolveStats getBaseline() {
+        return baseline;
+    }
+
+    void setBaseline(SolveStats baseline) {
+        this.baseline = baseline;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(engine).append(": ")
+          .append(nodes).append(" nodes, ")
+          .append(propagationPlacements).append(" propagated, ")
+          .append(backtracks).append(" backtracks, depth ")
+          .append(maxDepth).append(", ")
+          .append(String.format("%.3f", elapsedNanos / 1e6)).append(" ms (")
+          .append(String.format("%.3f", propagationNanos / 1e6)).append(" ms propagating)");
+        if (cacheHit) {
+            sb.append(" from cache");
+        }
+        if (nogoodsLearned > 0 || restarts > 0) {
+            sb.append(", ").append(restarts).append(" restarts, ")
+              .append(nogoodsLearned).append(" nogoods learned, ")
+              .append(nogoodPrunes).append(" branches pruned");
+        }
+        if (limitReached != null) {
+            sb.append(", stopped by the ").append(limitReached).append(" limit");
+        }
+        if (baseline != null) {
+            sb.append(" [").append(baseline.engine).append(": ")
+              .append(baseline.nodes).append(" nodes in ")
+              .append(String.format("%.3f", baseline.elapsedNanos / 1e6)).append(" ms]");
+        }
+        return sb.toString();
+    }
+}
@@ -27,16 +27,116 @@
  * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
-public class Solver {
-    private final Board board;
-    private static int iteration = 0;
+public class Solver implements SudokuEngine {
+    /**
+     * How the search explores branches.
+     */
+    public enum SearchMode {
+        COPY,       // Copy the board and create a new Solver for every candidate tried
+        IN_PLACE,   // Mutate one board and roll it back from its trail on backtrack
+        PARALLEL,   // Fork the branches near the top of the tree as fork-join tasks
+        LEARNING    // IN_PLACE, skipping branches refuted before and restarting with random ties
+    }
+
+    /**
+     * Which cell the search branches on.
+     */
+    public enum BranchPolicy {
+        FIRST_CELL,         // First cell in row-major order with more than one candidate
+        FEWEST_CANDIDATES   // Cell with the fewest remaining candidates (MRV)
+    }
+
+    /**
+     * How FEWEST_CANDIDATES chooses between cells with the same number of candidates.
+     */
+    public enum TieBreak {
+        ROW_MAJOR,          // The first one in row-major order
+        MOST_EMPTY_PEERS,   // The one that constrains the most empty cells
+        RANDOM              // A uniformly random one
+    }
+
+    private Board board;
+    private SearchMode searchMode = SearchMode.IN_PLACE;
+    private BranchPolicy branchPolicy = BranchPolicy.FEWEST_CANDIDATES;
+    private TieBreak tieBreak = TieBreak.ROW_MAJOR;
+    private Random random = new Random();
+    private Propagator propagator = new Propagator();
+    private boolean compareWithBaseline = false;
+    private SolveStats stats;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private SolutionCache cache;
+    private SolveBudget budget;
+    private SearchTrace trace;
+
+    /**
+     * Set by whichever branch of a PARALLEL search finds a solution first, so the
+     * others can give up. Null for a search that runs on one thread.
+     */
+    private AtomicBoolean stopFlag;
+
+    // Solution counting: the IN_PLACE search stops once solutionLimit solutions are found.
+    private int solutionLimit = 1;
+    private int solutionsFound;
+    private Board firstSolution;
+    private Board witness;
+
+    /**
+     * How many branches deep this solver is. COPY mode creates a child solver
+     * one level deeper for every candidate it tries.
+     */
+    private int iteration = 0;
 
     /**
      * The number of "steps" that the Solver has taken.
      */
-    private static int counter = 0;
+    private int counter = 0;
+
+    // The first backtrack count reported to Flight Recorder; later ones are ten times apart.
+    private static final int FIRST_BACKTRACK_MILESTONE = 1000;
+    // The engine named in Flight Recorder events, for each branch policy and tie-break.
+    private static final String[][] ENGINE_NAMES = buildEngineNames();
+
+    // Metrics for the current solve. IN_PLACE tracks its depth below this
+    // solver's iteration in depth.
+    private int nodesVisited;
+    private int propagationPlacements;
+    private int backtracks;
+    private int nextMilestone = FIRST_BACKTRACK_MILESTONE;
+    private int depth;
+    private int maxDepth;
+    private long propagationNanos;
+
+    // LEARNING runs restart after RESTART_NODES times the next term of the Luby sequence.
+    private static final int RESTART_NODES = 64;
+    // Refuted branches are only learned if refuting them took at least this many nodes.
+    private static final int MIN_LEARNED_NODES = 2;
+    // Fewer clues never pin down one solution, and they are the slowest to canonicalize.
+    private static final int MIN_CACHED_CLUES = 17;
+
+    /**
+     * The nogoods of a LEARNING search, while it runs; null otherwise. The
+     * decisions on the path to the current node are kept as their literals,
+     * and the run is abandoned when nodesVisited reaches restartAt.
+     */
+    private NogoodStore nogoods;
+    private NogoodStore nogoodStore;
+    private int nogoodCapacity = 4096;
+    private int[] decisions;
+    private int restartAt = Integer.MAX_VALUE;
+    // Set when the search gave up on a branch without refuting it.
+    private boolean aborted;
+    private boolean shuffleValues;
+    private int restarts;
+    private long nogoodsLearned;
+    private long nogoodPrunes;
 
     /**
      * Creates a new Solver instance with the given Sudoku board
@@ -46,72 +146,798 @@ public class Solver {
         this.board = board;
     }
 
+    /**
+     * Creates a new Solver instance without a board, for use as a SudokuEngine
+     */
+    public Solver() {
+        this(null);
+    }
+
+    @Override
     public int getCounter() {
         return counter;
     }
 
+    @Override
     public void resetCounter() {
         counter = 0;
     }
 
+    public SearchMode getSearchMode() {
+        return searchMode;
+    }
+
+    public void setSearchMode(SearchMode searchMode) {
+        this.searchMode = searchMode;
+    }
+
+    public BranchPolicy getBranchPolicy() {
+        return branchPolicy;
+    }
+
+    public void setBranchPolicy(BranchPolicy branchPolicy) {
+        this.branchPolicy = branchPolicy;
+    }
+
+    public TieBreak getTieBreak() {
+        return tieBreak;
+    }
+
+    public void setTieBreak(TieBreak tieBreak) {
+        this.tieBreak = tieBreak;
+    }
+
+    /**
+     * @return The propagation strategies in the order they are applied
+     */
+    public List<Propagator.Strategy> getStrategies() {
+        return propagator.getStrategies();
+    }
+
+    /**
+     * Chooses the propagation strategies run before each branch
+     * @param strategies The strategies, in the order they should be applied
+     */
+    public void setStrategies(Iterable<Propagator.Strategy> strategies) {
+        propagator = new Propagator(strategies);
+    }
+
+    /**
+     * Chooses the pool that runs PARALLEL searches
+     * @param pool The pool; the common pool is used by default
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Seeds the random number generator used by the RANDOM tie-break
+     * @param seed The seed
+     */
+    public void setRandomSeed(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * Limits the number of nogoods a LEARNING search keeps. When the limit is
+     * reached, the nogoods that have pruned least recently are forgotten.
+     * @param nogoodCapacity The most nogoods kept at once
+     */
+    public void setNogoodCapacity(int nogoodCapacity) {
+        if (nogoodCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.nogoodCapacity = nogoodCapacity;
+    }
+
+    public int getNogoodCapacity() {
+        return nogoodCapacity;
+    }
+
+    /**
+     * Puts a cache of solutions in front of solve(). A puzzle that is a symmetry of
+     * one already solved is answered by mapping the cached solution back instead
+     * of searching.
+     * @param cache The cache, which may be shared with other solvers, or null for none
+     */
+    public void setCache(SolutionCache cache) {
+        this.cache = cache;
+    }
+
+    public SolutionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Limits the nodes and time of the next solve() or countSolutions(). When a
+     * limit is reached, solve() returns null and the stats tell which limit it was.
+     * A budget is spent by one search, so it is detached when that search returns
+     * and later searches are unlimited until another budget is set.
+     * @param budget A fresh budget, or null for no limits
+     */
+    public void setBudget(SolveBudget budget) {
+        this.budget = budget;
+    }
+
+    public SolveBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Records the values that solve() and countSolutions() place and take back,
+     * for replaying the search. Only the IN_PLACE and LEARNING searches are
+     * recorded, since the other modes work on copies of the board.
+     * @param trace The trace to append to, or null for none
+     */
+    public void setTrace(SearchTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * When enabled, solve() also solves a copy of the board with the FIRST_CELL
+     * policy and records its node count and time in the stats.
+     * @param compareWithBaseline Whether to run the baseline comparison
+     */
+    public void setCompareWithBaseline(boolean compareWithBaseline) {
+        this.compareWithBaseline = compareWithBaseline;
+    }
+
+    /**
+     * @return The statistics of the last call to solve(), or null before the first call
+     */
+    @Override
+    public SolveStats getStats() {
+        return stats;
+    }
+
     /**
      * Attempts to solve the Sudoku puzzle, recursively.
      * @return The solved board, or null if the puzzle is unsolvable
      * @discussion: This method will modify that board that is passed in.
-     *              If recursion needs to occur, a copy of the board is made
-     *              before the recursive call.
+     *              In COPY mode, a copy of the board is made before each
+     *              recursive call. In IN_PLACE mode the board itself is the
+     *              search state; if no solution is found it is rolled back
+     *              to the state it was passed in with, as it is in PARALLEL
+     *              mode, which propagates on it before forking copies.
      */
     public Board solve() {
-        // First step: Find all the cells that have a single candidate
-        // and set their value to that candidate.
-        // Repeat as long as there are cells that have a single candidate.
-        for (int i = 0; i < Board.ROW_SIZE; i++) {
-            for (int j = 0; j < Board.COL_SIZE; j++) {
-                Set<Character> candidates = board.getCandidates(i, j);
-                if (candidates.size() == 1) {
-                    counter++;
-                    board.setValue(i, j, candidates.iterator().next());
-                    // Every time a cell is given a value, we start over.
-                    i = 0;
-                    j = 0;
-                }
+        try {
+            return solveWithBudget();
+        } finally {
+            budget = null;
+        }
+    }
+
+    /**
+     * The body of solve(), run with the budget still attached
+     */
+    private Board solveWithBudget() {
+        Board baselineBoard = compareWithBaseline ? board.copy() : null;
+        int startCounter = counter;
+        SolveEvents.SolveEnd event = SolveEvents.begin(engineName(), board.getEmptySpaces());
+        long start = System.nanoTime();
+        resetMetrics();
+        SymmetryTransform transform = null;
+        String key = null;
+        // The symmetries of classic Sudoku do not all preserve variant rules.
+        if (cache != null && board.getRules() == RuleSet.CLASSIC
+                && Board.ROW_SIZE * Board.COL_SIZE - board.getEmptySpaces() >= MIN_CACHED_CLUES) {
+            transform = SymmetryTransform.canonicalize(board);
+            key = transform.apply(board);
+            String cached = cache.get(key);
+            if (cached != null) {
+                transform.unapply(cached, board);
+                stats = collectStats(0, System.nanoTime() - start, true);
+                stats.cacheHit = true;
+                SolveEvents.end(event, stats);
+                return board;
+            }
+        }
+        Board solution;
+        if (searchMode == SearchMode.IN_PLACE) {
+            board.setTrace(trace);
+            int dirty = board.getDirtyUnits();
+            int mark = board.mark();
+            solution = solveInPlace() ? board : null;
+            if (solution == null) {
+                board.rollback(mark);
+                board.setDirtyUnits(dirty);
             }
+            board.setTrace(null);
+        } else if (searchMode == SearchMode.LEARNING) {
+            solution = solveWithRestarts() ? board : null;
+        } else if (searchMode == SearchMode.PARALLEL) {
+            solution = solveInParallel();
+        } else {
+            solution = solveByCopying();
+        }
+        stats = collectStats(counter - startCounter, System.nanoTime() - start, solution != null);
+        SolveEvents.end(event, stats);
+        if (solution == null && stats.getLimitReached() != null) {
+            // Gave up; there is nothing to compare or cache.
+            return null;
+        }
+        if (key != null && solution != null) {
+            cache.put(key, transform.apply(solution));
+        }
+
+        if (baselineBoard != null) {
+            Solver baseline = new Solver(baselineBoard);
+            baseline.setSearchMode(searchMode);
+            baseline.setBranchPolicy(BranchPolicy.FIRST_CELL);
+            baseline.solve();
+            stats.setBaseline(baseline.getStats());
+        }
+        return solution;
+    }
+
+    /**
+     * Counts the solutions of the puzzle, stopping as soon as the limit is
+     * reached. This always uses the IN_PLACE search with this solver's
+     * propagation and branching settings, and leaves the board as it was.
+     * Like solve(), it uses up the budget and detaches it.
+     * @param limit The number of solutions after which to stop counting
+     * @return The number of solutions found, at most limit, or -1 if the budget
+     *         ran out before the count was known
+     */
+    public int countSolutions(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        int startCounter = counter;
+        SolveEvents.SolveEnd event = SolveEvents.begin(engineName(), board.getEmptySpaces());
+        long start = System.nanoTime();
+        resetMetrics();
+        solutionLimit = limit;
+        solutionsFound = 0;
+        firstSolution = null;
+        witness = null;
+        board.setTrace(trace);
+        // The givens may not have been propagated yet; they must still be after the count.
+        int dirty = board.getDirtyUnits();
+        int mark = board.mark();
+        try {
+            solveInPlace();
+        } finally {
+            board.rollback(mark);
+            board.setTrace(null);
+            board.setDirtyUnits(dirty);
+            solutionLimit = 1;
+            stats = collectStats(counter - startCounter, System.nanoTime() - start, solutionsFound > 0);
+            budget = null;
+        }
+        SolveEvents.end(event, stats);
+        return stats.getLimitReached() != null ? -1 : solutionsFound;
+    }
+
+    /**
+     * Checks whether the puzzle has exactly one solution. The search stops at
+     * the second solution, which is then available from getWitness().
+     * @return true if the puzzle has a unique solution, or false if it has none,
+     *         has several, or the budget ran out before that was settled
+     */
+    public boolean isUnique() {
+        return countSolutions(2) == 1;
+    }
+
+    /**
+     * @return The first solution found by the last countSolutions() or isUnique(),
+     *         or null if there was none
+     */
+    public Board getFirstSolution() {
+        return firstSolution;
+    }
+
+    /**
+     * @return A second solution found by the last countSolutions() or isUnique(),
+     *         proving the puzzle is not unique, or null if there was none
+     */
+    public Board getWitness() {
+        return witness;
+    }
+
+    /**
+     * Solves the given board with this solver's settings. The board becomes
+     * the one this solver works on.
+     * @param puzzle The puzzle to solve
+     * @return The solved board, or null if the puzzle is unsolvable
+     */
+    @Override
+    public Board solve(Board puzzle) {
+        this.board = puzzle;
+        return solve();
+    }
+
+    /**
+     * The COPY mode search.
+     * If recursion needs to occur, a copy of the board is made
+     * before the recursive call.
+     * @return The solved board, or null if the puzzle is unsolvable
+     */
+    private Board solveByCopying() {
+        if (!withinBudget()) {
+            return null;
+        }
+        visitNode();
+        if (!propagate()) {
+            return null;
         }
-        // When we reach here, we have set the value of every cell that has a single candidate.
+        // When we reach here, propagation can make no more progress.
         // If there are no empty spaces, we solved it.
         if (board.getEmptySpaces() == 0) {
             return board;
         }
+        // Give up on this branch as soon as it cannot be completed.
+        if (board.hasContradiction()) {
+            return null;
+        }
 
-        // Second step: Find the first cell that has multiple candidates.
+        // Second step: Choose a cell that has multiple candidates.
         // Try each candidate.
         // If a candidate solves the puzzle, return the solved board.
         // If a candidate does not solve the puzzle, try the next candidate.
         // If all candidates have been tried and no solution is found, return null.
-        int myIteration = iteration;
+        int cell = chooseBranchCell();
+        if (cell < 0) {
+            // None of the spaces have any candidates left.
+            return null;
+        }
+        int row = cell / Board.ROW_SIZE;
+        int col = cell % Board.ROW_SIZE;
+        int candidates = board.getCandidateMask(row, col);
+        for (int rest = candidates; rest != 0; rest &= rest - 1) {
+            char candidate = Board.bitToValue(rest & -rest);
+            counter++;
+            Board copy = board.copy();
+            copy.setValue(row, col, candidate);
+            Solver child = childSolver(copy);
+            Board solution = child.solveByCopying();
+            absorb(child);
+            if (solution != null) {
+                return solution;
+            }
+            countBacktrack();
+        }
+        // We have tried all of the candidates for this space and none of them worked.
+        return null;
+    }
+
+    /**
+     * The IN_PLACE counterpart of solveByCopying(). Each candidate is tried on
+     * the same board, which is rolled back to the trail mark taken before the
+     * branch when the candidate fails.
+     * @return true if the board has been solved
+     */
+    private boolean solveInPlace() {
+        if ((stopFlag != null && stopFlag.get()) || !withinBudget() || nodesVisited >= restartAt) {
+            aborted = true;
+            return false;
+        }
+        visitNode();
+        if (!propagate()) {
+            return false;
+        }
+        if (board.getEmptySpaces() == 0) {
+            return foundSolution();
+        }
+        if (board.hasContradiction()) {
+            return false;
+        }
+
+        int cell = chooseBranchCell();
+        if (cell < 0) {
+            return false;
+        }
+        int row = cell / Board.ROW_SIZE;
+        int col = cell % Board.ROW_SIZE;
+        int candidates = board.getCandidateMask(row, col);
+        // Restarted LEARNING runs try the candidates from a random digit onwards.
+        int shift = shuffleValues ? random.nextInt(Board.ROW_SIZE) : 0;
+        int order = rotate(candidates, shift);
+        int mark = board.mark();
+        for (int rest = order; rest != 0; rest &= rest - 1) {
+            char value = Board.bitToValue(rotate(rest & -rest, Board.ROW_SIZE - shift));
+            if (nogoods != null && nogoods.refutes(board, cell, value)) {
+                continue;
+            }
+            counter++;
+            if (trace != null) {
+                trace.guessNext();
+            }
+            board.setValue(row, col, value);
+            int nodesBefore = nodesVisited;
+            if (nogoods != null) {
+                decisions[depth] = NogoodStore.literal(cell, value);
+            }
+            depth++;
+            boolean solved = solveInPlace();
+            depth--;
+            if (solved) {
+                return true;
+            }
+            board.rollback(mark);
+            // The board was at a propagation fixpoint when it was marked.
+            board.takeDirtyUnits();
+            countBacktrack();
+            if (nogoods != null && !aborted && nodesVisited - nodesBefore >= MIN_LEARNED_NODES) {
+                // No solution has the decisions that led here; skip them wherever they recur.
+                nogoods.add(decisions, depth + 1);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The LEARNING search: runs of the IN_PLACE search that remember the
+     * decisions of every branch they refute as a nogood, and skip any later
+     * branch that would repeat one. Runs are restarted after a Luby sequence
+     * of node limits (64, 64, 128, 64, 64, 128, 256, ...); the first branches
+     * with the configured tie-break and later ones with random ties, so each
+     * run meets the dead ends in a different order while the nogoods carry
+     * over from run to run.
+     * @return true if the board has been solved; otherwise it is rolled back
+     */
+    private boolean solveWithRestarts() {
+        if (nogoodStore == null || nogoodStore.getCapacity() != nogoodCapacity) {
+            nogoodStore = new NogoodStore(nogoodCapacity);
+        } else {
+            nogoodStore.clear();
+        }
+        if (decisions == null) {
+            decisions = new int[Board.ROW_SIZE * Board.COL_SIZE];
+        }
+        TieBreak configured = tieBreak;
+        nogoods = nogoodStore;
+        board.setTrace(trace);
+        int dirty = board.getDirtyUnits();
+        int mark = board.mark();
+        try {
+            for (int run = 1; ; run++) {
+                restartAt = (int) Math.min(Integer.MAX_VALUE, nodesVisited + (long) RESTART_NODES * luby(run));
+                aborted = false;
+                if (solveInPlace()) {
+                    return true;
+                }
+                board.rollback(mark);
+                board.setDirtyUnits(dirty);
+                if (!aborted || (budget != null && budget.getLimitReached() != null)) {
+                    // Refuted the whole puzzle, or ran out of budget.
+                    return false;
+                }
+                restarts++;
+                tieBreak = TieBreak.RANDOM;
+                shuffleValues = true;
+            }
+        } finally {
+            tieBreak = configured;
+            shuffleValues = false;
+            restartAt = Integer.MAX_VALUE;
+            nogoods = null;
+            nogoodsLearned = nogoodStore.getLearned();
+            nogoodPrunes = nogoodStore.getPrunes();
+            board.setTrace(null);
+        }
+    }
+
+    /**
+     * Rotates a candidate mask so that the digit shift + 1 comes first
+     */
+    private static int rotate(int mask, int shift) {
+        return ((mask >>> shift) | (mask << (Board.ROW_SIZE - shift))) & Board.ALL_CANDIDATES;
+    }
+
+    /**
+     * @param i A position in the Luby sequence, from 1
+     * @return The term at that position: 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ...
+     */
+    private static int luby(int i) {
+        while (true) {
+            int k = 1;
+            while ((1 << k) - 1 < i) {
+                k++;
+            }
+            if (i == (1 << k) - 1) {
+                return 1 << (k - 1);
+            }
+            // Within a block of 2^k - 1 terms, the second half repeats the first.
+            i -= (1 << (k - 1)) - 1;
+        }
+    }
+
+    /**
+     * The PARALLEL search. Branches are forked as subtasks while the pool is short
+     * of queued work; below that, each subtask runs the IN_PLACE search on its own
+     * copy of the board. The first solution found stops every other subtask.
+     * The root propagates on the board itself, which is rolled back if no
+     * solution is found.
+     * @return The solved board, or null if the puzzle is unsolvable
+     */
+    private Board solveInParallel() {
+        AtomicReference<Board> solution = new AtomicReference<>();
+        Solver root = parallelChild(board);
+        root.iteration = iteration;
+        int dirty = board.getDirtyUnits();
+        int mark = board.mark();
+        pool.invoke(new ParallelBranch(root, solution, this));
+        if (solution.get() == null) {
+            board.rollback(mark);
+            board.setDirtyUnits(dirty);
+        }
+        return solution.get();
+    }
+
+    /**
+     * One subtree of a PARALLEL search, searched by its own solver.
+     */
+    private static class ParallelBranch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        // Never fork more than this many levels deep, even when the pool is idle.
+        private static final int MAX_SPLIT_DEPTH = 12;
+        // Fork only while the pool has at most this many more queued tasks than idle workers.
+        private static final int MAX_SURPLUS_TASKS = 2;
+
+        private final Solver solver;
+        private final AtomicReference<Board> solution;
+        // The solver that started the search, which adds up every subtask's metrics.
+        private final Solver totals;
+
+        ParallelBranch(Solver solver, AtomicReference<Board> solution, Solver totals) {
+            this.solver = solver;
+            this.solution = solution;
+            this.totals = totals;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                search();
+            } finally {
+                synchronized (totals) {
+                    totals.absorb(solver);
+                }
+            }
+        }
+
+        private void search() {
+            Board board = solver.board;
+            if (solver.stopFlag.get()) {
+                return;
+            }
+            if (solver.iteration >= MAX_SPLIT_DEPTH || getSurplusQueuedTaskCount() > MAX_SURPLUS_TASKS) {
+                // Enough work is queued for the other threads; keep this subtree here.
+                int mark = board.mark();
+                if (solver.solveInPlace()) {
+                    publish(board);
+                } else {
+                    board.rollback(mark);
+                }
+                return;
+            }
+
+            if (!solver.withinBudget()) {
+                return;
+            }
+            solver.visitNode();
+            if (!solver.propagate() || board.hasContradiction()) {
+                return;
+            }
+            if (board.getEmptySpaces() == 0) {
+                publish(board);
+                return;
+            }
+            int cell = solver.chooseBranchCell();
+            if (cell < 0) {
+                return;
+            }
+            List<ParallelBranch> branches = new ArrayList<>();
+            for (int rest = board.candidatesAt(cell); rest != 0; rest &= rest - 1) {
+                solver.counter++;
+                Board copy = board.copy();
+                copy.place(cell, Board.bitToValue(rest & -rest));
+                branches.add(new ParallelBranch(solver.parallelChild(copy), solution, totals));
+            }
+            invokeAll(branches);
+        }
+
+        private void publish(Board board) {
+            if (solution.compareAndSet(null, board)) {
+                solver.stopFlag.set(true);
+            }
+        }
+    }
+
+    /**
+     * Records a complete board found by the IN_PLACE search.
+     * @return true if the search should stop here
+     */
+    private boolean foundSolution() {
+        solutionsFound++;
+        if (solutionLimit > 1) {
+            // The search will roll the board back, so keep copies.
+            if (firstSolution == null) {
+                firstSolution = board.copy();
+            } else if (witness == null) {
+                witness = board.copy();
+            }
+        }
+        return solutionsFound >= solutionLimit;
+    }
+
+    /**
+     * Creates a solver for a PARALLEL subtask. It has its own propagator, since
+     * propagators cannot be shared between threads, and shares the stop flag.
+     */
+    private Solver parallelChild(Board copy) {
+        Solver child = childSolver(copy);
+        child.propagator = new Propagator(propagator.getStrategies());
+        child.stopFlag = stopFlag != null ? stopFlag : new AtomicBoolean();
+        return child;
+    }
+
+    /**
+     * Creates a solver for a copied board that searches the same way as this one.
+     */
+    private Solver childSolver(Board copy) {
+        Solver child = new Solver(copy);
+        child.searchMode = searchMode;
+        child.branchPolicy = branchPolicy;
+        child.tieBreak = tieBreak;
+        child.random = random;
+        child.propagator = propagator;
+        child.stopFlag = stopFlag;
+        child.pool = pool;
+        child.budget = budget;
+        child.iteration = iteration + 1;
+        child.resetMetrics();
+        return child;
+    }
+
+    /**
+     * Picks the cell to branch on according to the branch policy and tie-break.
+     * @return The index (row * 9 + col) of the cell, or -1 if there is none
+     */
+    private int chooseBranchCell() {
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        int bestPeers = -1;
+        int ties = 0;
         for (int i = 0; i < Board.ROW_SIZE; i++) {
             for (int j = 0; j < Board.COL_SIZE; j++) {
-                Set<Character> candidates = board.getCandidates(i, j);
-                if (candidates.size() > 1) {
-                    // Try each candidate.
-                    for (char candidate : candidates) {
-                        counter++;
-                        iteration = myIteration + 1;
-                        Board copy = board.copy();
-                        copy.setValue(i, j, candidate);
-                        Solver solver = new Solver(copy);
-                        Board solution = solver.solve();
-                        if (solution != null) {
-                            return solution;
-                        }
+                int count = Integer.bitCount(board.getCandidateMask(i, j));
+                if (branchPolicy == BranchPolicy.FIRST_CELL) {
+                    if (count > 1) {
+                        return i * Board.ROW_SIZE + j;
+                    }
+                    continue;
+                }
+                if (count == 0 || count > bestCount) {
+                    continue;
+                }
+                if (count < bestCount) {
+                    best = i * Board.ROW_SIZE + j;
+                    bestCount = count;
+                    ties = 1;
+                    if (tieBreak == TieBreak.MOST_EMPTY_PEERS) {
+                        bestPeers = board.countEmptyPeers(i, j);
+                    } else if (tieBreak == TieBreak.ROW_MAJOR && count <= 2) {
+                        // Nothing later in row-major order can beat this cell.
+                        return best;
+                    }
+                } else if (tieBreak == TieBreak.MOST_EMPTY_PEERS) {
+                    int peers = board.countEmptyPeers(i, j);
+                    if (peers > bestPeers) {
+                        best = i * Board.ROW_SIZE + j;
+                        bestPeers = peers;
+                    }
+                } else if (tieBreak == TieBreak.RANDOM) {
+                    ties++;
+                    if (random.nextInt(ties) == 0) {
+                        best = i * Board.ROW_SIZE + j;
                     }
-                    // We have tried all of the candidates for this space and none of them worked.
-                    return null;
                 }
             }
         }
-        // None of the spaces have any candidates left.
-        return null;
+        return best;
+    }
+
+    private static String[][] buildEngineNames() {
+        String[][] names = new String[BranchPolicy.values().length][TieBreak.values().length];
+        for (BranchPolicy policy : BranchPolicy.values()) {
+            for (TieBreak tie : TieBreak.values()) {
+                names[policy.ordinal()][tie.ordinal()] = policy + "/" + tie;
+            }
+        }
+        return names;
+    }
+
+    private String engineName() {
+        return ENGINE_NAMES[branchPolicy.ordinal()][tieBreak.ordinal()];
+    }
+
+    private void resetMetrics() {
+        nodesVisited = 0;
+        propagationPlacements = 0;
+        backtracks = 0;
+        nextMilestone = FIRST_BACKTRACK_MILESTONE;
+        depth = 0;
+        maxDepth = 0;
+        propagationNanos = 0;
+        restarts = 0;
+        nogoodsLearned = 0;
+        nogoodPrunes = 0;
+    }
+
+    private SolveStats collectStats(int steps, long elapsedNanos, boolean solved) {
+        SolveStats result = new SolveStats(branchPolicy, tieBreak);
+        result.nodes = nodesVisited;
+        result.steps = steps;
+        result.propagationPlacements = propagationPlacements;
+        result.backtracks = backtracks;
+        result.maxDepth = maxDepth;
+        result.propagationNanos = propagationNanos;
+        result.elapsedNanos = elapsedNanos;
+        result.solved = solved;
+        result.limitReached = budget != null ? budget.getLimitReached() : null;
+        result.restarts = restarts;
+        result.nogoodsLearned = nogoodsLearned;
+        result.nogoodPrunes = nogoodPrunes;
+        return result;
+    }
+
+    /**
+     * Charges a search node to the budget, if there is one.
+     * @return false if the budget has run out
+     */
+    private boolean withinBudget() {
+        return budget == null || budget.charge(iteration + depth);
+    }
+
+    private void visitNode() {
+        nodesVisited++;
+        if (iteration + depth > maxDepth) {
+            maxDepth = iteration + depth;
+        }
+    }
+
+    private void countBacktrack() {
+        backtracks++;
+        checkMilestone();
+    }
+
+    private void checkMilestone() {
+        while (backtracks >= nextMilestone) {
+            SolveEvents.backtrackMilestone(backtracks, nodesVisited, iteration + depth);
+            nextMilestone = nextMilestone > Integer.MAX_VALUE / 10 ? Integer.MAX_VALUE : nextMilestone * 10;
+        }
+    }
+
+    /**
+     * Adds the steps and metrics of a child solver to this one.
+     */
+    private void absorb(Solver child) {
+        counter += child.counter;
+        nodesVisited += child.nodesVisited;
+        propagationPlacements += child.propagationPlacements;
+        backtracks += child.backtracks;
+        propagationNanos += child.propagationNanos;
+        maxDepth = Math.max(maxDepth, child.maxDepth);
+        checkMilestone();
+    }
+
+    /**
+     * First step: Apply the propagation strategies until none of them can
+     * place a value or remove a candidate.
+     * @return false if propagation found a contradiction
+     */
+    private boolean propagate() {
+        long start = System.nanoTime();
+        int placed = propagator.getPlacements();
+        boolean consistent = propagator.propagate(board);
+        placed = propagator.getPlacements() - placed;
+        counter += placed;
+        propagationPlacements += placed;
+        propagationNanos += System.nanoTime() - start;
+        return consistent;
     }
 
 }
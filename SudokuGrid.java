@@ -0,0 +1,559 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * This is the Sudoku grid of the user interface, painted as a single component.
+ * 
+ * The values are kept in a Board that is updated on every keystroke, so that
+ * repeated values and cells left without candidates can be marked at once. Digits
+ * are drawn from images rendered once per style and cell size, and a change to a
+ * cell repaints only the cells it affects.
+ * 
+ * The grid can also replay a SearchTrace, showing the values a search placed and
+ * took back, at a chosen number of steps per second.
+ */
+public class SudokuGrid extends JComponent {
+    private static final long serialVersionUID = 1L;
+    private static final int CELLS = Board.ROW_SIZE * Board.COL_SIZE;
+    private static final int PREFERRED_CELL_SIZE = 50;
+    private static final int MARGIN = 10;
+    // The fonts below are sized for cells of PREFERRED_CELL_SIZE pixels and scaled with them.
+    private static final Font entryFont = new Font("Arial", Font.PLAIN, 24);
+    private static final Font givenSpaceFont = new Font("Arial", Font.ITALIC, 24);
+    private static final Font derivedSpaceFont = new Font("Arial", Font.BOLD, 36);
+    private static final Font candidateFont = new Font("Arial", Font.PLAIN, 11);
+    private static final Color lightBackground = new Color(255, 255, 255);
+    private static final Color darkBackground = new Color(240, 240, 240);
+    private static final Color focusedBackground = new Color(255, 255, 200);
+    private static final Color deadBackground = new Color(255, 210, 210); // Pink
+    private static final Color entryColor = new Color(0, 0, 0);
+    private static final Color givenFontColor = new Color(128, 128, 128); // Gray
+    private static final Color derivedFontColor = new Color(0, 0, 128); // Dark blue
+    private static final Color conflictFontColor = new Color(200, 0, 0); // Red
+    private static final Color candidateFontColor = new Color(150, 150, 150); // Light gray
+    private static final Color guessFontColor = new Color(200, 100, 0); // Orange
+    // How often a replay advances; each tick applies as many steps as the speed calls for.
+    private static final int REPLAY_TICK_MILLIS = 15;
+
+    /**
+     * Where the value of a cell came from.
+     */
+    public enum CellState {
+        ENTRY,      // User input before solving
+        GIVEN,      // Initial values
+        DERIVED     // Solved values
+    }
+
+    /**
+     * How a digit is drawn. Each style has its own cached glyphs.
+     */
+    private enum Style {
+        ENTRY,      // A value being typed
+        CONFLICT,   // A typed value repeated among its peers
+        GIVEN,      // A value of the puzzle
+        DERIVED,    // A value of the solution, or placed by propagation in a replay
+        GUESS,      // A value the search guessed, in a replay
+        CANDIDATE   // A pencil mark
+    }
+
+    private final Board board = new Board();
+    private final CellState[] states = new CellState[CELLS];
+    private final boolean[] conflicts = new boolean[CELLS];
+    private final boolean[] dead = new boolean[CELLS];
+    private int selected = 0;
+    private boolean editable = true;
+    private boolean showCandidates = false;
+
+    // Glyphs rendered for the current cell size, by style and digit.
+    private final BufferedImage[][] glyphs = new BufferedImage[Style.values().length][10];
+    private int glyphCellSize = 0;
+
+    // The replay, if one is running: the values shown and the style of each.
+    private char[] replayValues;
+    private Style[] replayStyles;
+    private SearchTrace replayTrace;
+    private int replayPosition;
+    private double replayBacklog;
+    private double stepsPerSecond = 1000;
+    private long lastTick;
+    private IntConsumer replayListener;
+    private final Timer replayTimer = new Timer(REPLAY_TICK_MILLIS, e -> advanceReplay());
+
+    /**
+     * Creates an empty grid
+     */
+    public SudokuGrid() {
+        Arrays.fill(states, CellState.ENTRY);
+        int size = Board.ROW_SIZE * PREFERRED_CELL_SIZE + 2 * MARGIN;
+        setPreferredSize(new Dimension(size, size));
+        setFocusable(true);
+        setOpaque(true);
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int cell = cellAt(e.getX(), e.getY());
+                if (cell >= 0) {
+                    select(cell);
+                }
+                requestFocusInWindow();
+            }
+        });
+
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (!editable || replayValues != null) return;
+
+                int row = selected / Board.ROW_SIZE;
+                int col = selected % Board.ROW_SIZE;
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_UP:
+                        if (row > 0) select(selected - Board.ROW_SIZE);
+                        break;
+                    case KeyEvent.VK_DOWN:
+                        if (row < Board.ROW_SIZE - 1) select(selected + Board.ROW_SIZE);
+                        break;
+                    case KeyEvent.VK_LEFT:
+                        if (col > 0) select(selected - 1);
+                        break;
+                    case KeyEvent.VK_RIGHT:
+                        if (col < Board.COL_SIZE - 1) select(selected + 1);
+                        break;
+                    case KeyEvent.VK_BACK_SPACE:
+                    case KeyEvent.VK_DELETE:
+                        if (states[selected] == CellState.ENTRY) {
+                            setValue(row, col, Board.EMPTY);
+                        }
+                        break;
+                    default:
+                        if (e.getKeyChar() >= '1' && e.getKeyChar() <= '9' && states[selected] == CellState.ENTRY) {
+                            setValue(row, col, e.getKeyChar());
+                        }
+                        break;
+                }
+            }
+        });
+
+        addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusGained(FocusEvent e) {
+                repaintCell(selected);
+            }
+
+            @Override
+            public void focusLost(FocusEvent e) {
+                repaintCell(selected);
+            }
+        });
+    }
+
+    /**
+     * Sets or clears the value of a cell and updates the marks of the cell and its peers
+     * @param row Row index (0-8)
+     * @param col Column index (0-8)
+     * @param value The value (1-9), or Board.EMPTY to clear the cell
+     */
+    public void setValue(int row, int col, char value) {
+        char old = board.getValue(row, col);
+        if (old == value) {
+            return;
+        }
+        if (old != Board.EMPTY) {
+            board.clearValue(row, col);
+        }
+        if (value != Board.EMPTY) {
+            board.setValue(row, col, value);
+        }
+        int index = row * Board.ROW_SIZE + col;
+        repaintCell(index);
+        updateMarks(index);
+    }
+
+    public char getValue(int row, int col) {
+        return board.getValue(row, col);
+    }
+
+    public void setState(int row, int col, CellState state) {
+        int index = row * Board.ROW_SIZE + col;
+        if (states[index] != state) {
+            states[index] = state;
+            repaintCell(index);
+        }
+    }
+
+    public CellState getState(int row, int col) {
+        return states[row * Board.ROW_SIZE + col];
+    }
+
+    /**
+     * @return A copy of the values on the grid
+     */
+    public Board copyBoard() {
+        return board.copy();
+    }
+
+    /**
+     * @return true if some value is repeated in a row, column or box
+     */
+    public boolean hasConflicts() {
+        for (boolean conflict : conflicts) {
+            if (conflict) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Empties every cell and makes it editable again
+     */
+    public void clear() {
+        for (int i = 0; i < CELLS; i++) {
+            setValue(i / Board.ROW_SIZE, i % Board.ROW_SIZE, Board.EMPTY);
+            setState(i / Board.ROW_SIZE, i % Board.ROW_SIZE, CellState.ENTRY);
+        }
+    }
+
+    /**
+     * @param editable Whether the keyboard changes the values
+     */
+    public void setEditable(boolean editable) {
+        this.editable = editable;
+        repaintCell(selected);
+    }
+
+    /**
+     * @param showCandidates Whether empty cells show their candidates as pencil marks
+     */
+    public void setShowCandidates(boolean showCandidates) {
+        this.showCandidates = showCandidates;
+        repaint();
+    }
+
+    /**
+     * Starts replaying a search from the values of the GIVEN cells. The steps are
+     * shown at the current speed until the trace ends or stopReplay() is called.
+     * @param trace The search to replay
+     * @param listener Told the number of steps shown after every tick, or null
+     */
+    public void startReplay(SearchTrace trace, IntConsumer listener) {
+        replayValues = new char[CELLS];
+        replayStyles = new Style[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            boolean given = states[i] == CellState.GIVEN;
+            replayValues[i] = given ? board.getValue(i / Board.ROW_SIZE, i % Board.ROW_SIZE) : Board.EMPTY;
+            replayStyles[i] = Style.GIVEN;
+        }
+        replayTrace = trace;
+        replayPosition = 0;
+        replayBacklog = 0;
+        replayListener = listener;
+        lastTick = System.nanoTime();
+        replayTimer.start();
+        repaint();
+    }
+
+    /**
+     * Ends a replay and shows the grid's own values again
+     */
+    public void stopReplay() {
+        replayTimer.stop();
+        replayValues = null;
+        replayStyles = null;
+        replayTrace = null;
+        replayListener = null;
+        repaint();
+    }
+
+    public boolean isReplaying() {
+        return replayValues != null;
+    }
+
+    /**
+     * Pauses or resumes a replay
+     * @param paused Whether the replay should stand still
+     */
+    public void setReplayPaused(boolean paused) {
+        if (replayValues == null) {
+            return;
+        }
+        if (paused) {
+            replayTimer.stop();
+        } else if (!replayTimer.isRunning()) {
+            lastTick = System.nanoTime();
+            replayTimer.start();
+        }
+    }
+
+    public boolean isReplayPaused() {
+        return replayValues != null && !replayTimer.isRunning();
+    }
+
+    /**
+     * @param stepsPerSecond How many steps of the trace a replay shows per second
+     */
+    public void setReplaySpeed(double stepsPerSecond) {
+        this.stepsPerSecond = stepsPerSecond;
+    }
+
+    /**
+     * Shows the next steps of the replay, as many as the time since the last tick allows.
+     */
+    private void advanceReplay() {
+        long now = System.nanoTime();
+        replayBacklog += stepsPerSecond * (now - lastTick) / 1e9;
+        lastTick = now;
+        int steps = (int) Math.min(replayBacklog, replayTrace.size() - replayPosition);
+        replayBacklog -= steps;
+        for (int k = 0; k < steps; k++) {
+            int event = replayPosition++;
+            int cell = replayTrace.getCell(event);
+            replayValues[cell] = replayTrace.getValue(event);
+            replayStyles[cell] = replayTrace.getKind(event) == SearchTrace.Kind.GUESS ? Style.GUESS : Style.DERIVED;
+            repaintCell(cell);
+        }
+        if (replayPosition == replayTrace.size()) {
+            replayTimer.stop();
+        }
+        if (replayListener != null) {
+            replayListener.accept(replayPosition);
+        }
+    }
+
+    private void select(int cell) {
+        if (cell != selected) {
+            int old = selected;
+            selected = cell;
+            repaintCell(old);
+            repaintCell(cell);
+        }
+    }
+
+    /**
+     * Updates the conflict and dead-cell marks after the value of a cell changed.
+     * Only the cell and its peers can be affected.
+     */
+    private void updateMarks(int index) {
+        markCell(index);
+        for (int peer : Board.PEERS[index]) {
+            markCell(peer);
+        }
+    }
+
+    private void markCell(int index) {
+        int row = index / Board.ROW_SIZE;
+        int col = index % Board.ROW_SIZE;
+        boolean conflict = board.hasConflict(row, col);
+        boolean isDead = board.getValue(row, col) == Board.EMPTY && board.getCandidateMask(row, col) == 0;
+        if (conflict != conflicts[index] || isDead != dead[index]) {
+            conflicts[index] = conflict;
+            dead[index] = isDead;
+            repaintCell(index);
+        } else if (showCandidates) {
+            // The pencil marks may have changed.
+            repaintCell(index);
+        }
+    }
+
+    private int cellSize() {
+        return Math.max(1, (Math.min(getWidth(), getHeight()) - 2 * MARGIN) / Board.ROW_SIZE);
+    }
+
+    private int originX() {
+        return (getWidth() - cellSize() * Board.COL_SIZE) / 2;
+    }
+
+    private int originY() {
+        return (getHeight() - cellSize() * Board.ROW_SIZE) / 2;
+    }
+
+    private void repaintCell(int index) {
+        int size = cellSize();
+        repaint(originX() + (index % Board.ROW_SIZE) * size - 1, originY() + (index / Board.ROW_SIZE) * size - 1,
+                size + 2, size + 2);
+    }
+
+    /**
+     * @return The index of the cell at a point, or -1 if the point is outside the grid
+     */
+    private int cellAt(int x, int y) {
+        int size = cellSize();
+        int col = Math.floorDiv(x - originX(), size);
+        int row = Math.floorDiv(y - originY(), size);
+        if (row < 0 || row >= Board.ROW_SIZE || col < 0 || col >= Board.COL_SIZE) {
+            return -1;
+        }
+        return row * Board.ROW_SIZE + col;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2d = (Graphics2D) g;
+        Rectangle clip = g2d.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g2d.setColor(getParent() != null ? getParent().getBackground() : lightBackground);
+        g2d.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int size = cellSize();
+        int x0 = originX();
+        int y0 = originY();
+        if (size != glyphCellSize) {
+            renderGlyphs(size);
+        }
+        // Paint only the cells that intersect the area being repainted.
+        int firstCol = Math.max(0, (clip.x - x0) / size);
+        int lastCol = Math.min(Board.COL_SIZE - 1, (clip.x + clip.width - x0) / size);
+        int firstRow = Math.max(0, (clip.y - y0) / size);
+        int lastRow = Math.min(Board.ROW_SIZE - 1, (clip.y + clip.height - y0) / size);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                paintCell(g2d, row * Board.ROW_SIZE + col, x0 + col * size, y0 + row * size, size);
+            }
+        }
+
+        // Grid lines, thicker around the boxes
+        g2d.setColor(Color.BLACK);
+        for (int k = 0; k <= Board.ROW_SIZE; k++) {
+            int width = k % Board.BOX_SIZE == 0 ? 3 : 1;
+            g2d.fillRect(x0 + k * size - width / 2, y0, width, size * Board.ROW_SIZE);
+            g2d.fillRect(x0, y0 + k * size - width / 2, size * Board.COL_SIZE, width);
+        }
+    }
+
+    private void paintCell(Graphics2D g2d, int index, int x, int y, int size) {
+        int row = index / Board.ROW_SIZE;
+        int col = index % Board.ROW_SIZE;
+        boolean replaying = replayValues != null;
+        Color background;
+        if (!replaying && editable && index == selected && states[index] == CellState.ENTRY && isFocusOwner()) {
+            background = focusedBackground;
+        } else if (!replaying && dead[index]) {
+            background = deadBackground;
+        } else if ((row / Board.BOX_SIZE + col / Board.BOX_SIZE) % 2 == 0) {
+            background = darkBackground;
+        } else {
+            background = lightBackground;
+        }
+        g2d.setColor(background);
+        g2d.fillRect(x, y, size, size);
+
+        char value = replaying ? replayValues[index] : board.getValue(row, col);
+        if (value != Board.EMPTY) {
+            Style style = replaying ? replayStyles[index] : styleOf(index);
+            g2d.drawImage(glyphs[style.ordinal()][value - '0'], x, y, null);
+        } else if (!replaying && showCandidates && states[index] == CellState.ENTRY) {
+            // Pencil marks: each candidate in its place in a 3x3 grid
+            int third = size / Board.BOX_SIZE;
+            BufferedImage[] marks = glyphs[Style.CANDIDATE.ordinal()];
+            for (int rest = board.getCandidateMask(row, col); rest != 0; rest &= rest - 1) {
+                int digit = Integer.numberOfTrailingZeros(rest);
+                g2d.drawImage(marks[digit + 1], x + (digit % Board.BOX_SIZE) * third,
+                              y + (digit / Board.BOX_SIZE) * third, null);
+            }
+        }
+    }
+
+    private Style styleOf(int index) {
+        switch (states[index]) {
+            case GIVEN:
+                return Style.GIVEN;
+            case DERIVED:
+                return Style.DERIVED;
+            default:
+                return conflicts[index] ? Style.CONFLICT : Style.ENTRY;
+        }
+    }
+
+    /**
+     * Draws every digit in every style at the given cell size, so painting a
+     * cell is a single image copy.
+     */
+    private void renderGlyphs(int size) {
+        double scale = (double) size / PREFERRED_CELL_SIZE;
+        for (Style style : Style.values()) {
+            Font font;
+            Color color;
+            int box = size;
+            switch (style) {
+                case CONFLICT:
+                    font = entryFont;
+                    color = conflictFontColor;
+                    break;
+                case GIVEN:
+                    font = givenSpaceFont;
+                    color = givenFontColor;
+                    break;
+                case DERIVED:
+                    font = derivedSpaceFont;
+                    color = derivedFontColor;
+                    break;
+                case GUESS:
+                    font = derivedSpaceFont;
+                    color = guessFontColor;
+                    break;
+                case CANDIDATE:
+                    font = candidateFont;
+                    color = candidateFontColor;
+                    box = Math.max(1, size / Board.BOX_SIZE);
+                    break;
+                default:
+                    font = entryFont;
+                    color = entryColor;
+                    break;
+            }
+            Font scaled = font.deriveFont((float) (font.getSize2D() * scale));
+            for (int digit = 1; digit <= 9; digit++) {
+                BufferedImage image = new BufferedImage(box, box, BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g = image.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                g.setFont(scaled);
+                g.setColor(color);
+                FontMetrics fm = g.getFontMetrics();
+                String text = String.valueOf(digit);
+                int x = (box - fm.stringWidth(text)) / 2;
+                int y = ((box - fm.getHeight()) / 2) + fm.getAscent();
+                g.drawString(text, x, y);
+                g.dispose();
+                glyphs[style.ordinal()][digit] = image;
+            }
+        }
+        glyphCellSize = size;
+    }
+}
@@ -29,8 +29,12 @@
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.KeyEvent;
 import java.awt.event.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is the main class and user interface for the Sudoku Solver.
@@ -41,208 +45,43 @@ public class SudokuSolver {
     private static JButton solveButton;
     private static JLabel messageLabel;
     private static JButton clearButton;
-    private static SudokuCellPanel[][] cells;
-    private static Color lightBackground = new Color(255, 255, 255);
-    private static Color darkBackground = new Color(240, 240, 240);
-    private static Color focusedBackground = new Color(255, 255, 200);
-    private static Color entryColor = new Color(0, 0, 0);
-    private static Font entryFont = new Font("Arial", Font.PLAIN, 24);
-    private static Font givenSpaceFont = new Font("Arial", Font.ITALIC, 24);
-    private static Font derivedSpaceFont = new Font("Arial", Font.BOLD, 36);
-    private static Color givenFontColor = new Color(128, 128, 128); // Gray
-    private static Color derivedFontColor = new Color(0, 0, 128); // Dark blue
+    private static JButton replayButton;
+    private static JButton pauseButton;
+    private static JSlider speedSlider;
+    private static SudokuGrid grid;
     private static String instructionsMessage = "Use mouse or arrow keys to navigate and type numbers 1-9 to set values.";
-
-    private static class SudokuCellPanel extends JPanel {
-        private String value = "";
-        private boolean isFocused = false;
-        private CellState state = CellState.ENTRY;
-        private final int row;
-        private final int col;
-
-        private enum CellState {
-            ENTRY,      // User input before solving
-            GIVEN,      // Initial values
-            DERIVED    // Solved values
-        }
-
-        public SudokuCellPanel(int row, int col) {
-            this.row = row;
-            this.col = col;
-            setPreferredSize(new Dimension(50, 50));
-            setFocusable(true);
-            setBorder(BorderFactory.createLineBorder(Color.BLACK));
-            
-            addMouseListener(new MouseAdapter() {
-                @Override
-                public void mouseClicked(MouseEvent e) {
-                    if (state == CellState.ENTRY) {
-                        requestFocusInWindow();
-                    }
-                }
-            });
-
-            addKeyListener(new KeyAdapter() {
-                @Override
-                public void keyPressed(KeyEvent e) {
-                    if (isSolved || state != CellState.ENTRY) return;
-
-                    switch (e.getKeyCode()) {
-                        case KeyEvent.VK_UP:
-                            if (row > 0) {
-                                cells[row][col].setFocused(false);
-                                cells[row-1][col].requestFocusInWindow();
-                            }
-                            break;
-                        case KeyEvent.VK_DOWN:
-                            if (row < 8) {
-                                cells[row][col].setFocused(false);
-                                cells[row+1][col].requestFocusInWindow();
-                            }
-                            break;
-                        case KeyEvent.VK_LEFT:
-                            if (col > 0) {
-                                cells[row][col].setFocused(false);
-                                cells[row][col-1].requestFocusInWindow();
-                            }
-                            break;
-                        case KeyEvent.VK_RIGHT:
-                            if (col < 8) {
-                                cells[row][col].setFocused(false);
-                                cells[row][col+1].requestFocusInWindow();
-                            }
-                            break;
-                        case KeyEvent.VK_BACK_SPACE:
-                        case KeyEvent.VK_DELETE:
-                            setValue("");
-                            break;
-                        default:
-                            if (e.getKeyChar() >= '1' && e.getKeyChar() <= '9') {
-                                setValue(String.valueOf(e.getKeyChar()));
-                            }
-                            break;
-                    }
-                }
-            });
-
-            addFocusListener(new FocusAdapter() {
-                @Override
-                public void focusGained(FocusEvent e) {
-                    if (state == CellState.ENTRY) {
-                        setFocused(true);
-                    }
-                }
-
-                @Override
-                public void focusLost(FocusEvent e) {
-                    setFocused(false);
-                }
-            });
-        }
-
-        public void setValue(String value) {
-            this.value = value;
-            repaint();
-        }
-
-        public String getValue() {
-            return value;
-        }
-
-        public void setFocused(boolean focused) {
-            isFocused = focused;
-            repaint();
-        }
-
-        public void setState(CellState newState) {
-            state = newState;
-            repaint();
-        }
-
-        public CellState getState() {
-            return state;
-        }
-
-        @Override
-        protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
-            Graphics2D g2d = (Graphics2D) g;
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-            // Draw background
-            if (isFocused && state == CellState.ENTRY) {
-                setBackground(focusedBackground);
-            } else if ((row / 3 + col / 3) % 2 == 0) {
-                setBackground(darkBackground);
-            } else {
-                setBackground(lightBackground);
-            }
-
-            // Draw value
-            if (!value.isEmpty()) {
-                switch (state) {
-                    case ENTRY:
-                        g2d.setFont(entryFont);
-                        g2d.setColor(entryColor);
-                        break;
-                    case GIVEN:
-                        g2d.setFont(givenSpaceFont);
-                        g2d.setColor(givenFontColor);
-                        break;
-                    case DERIVED:
-                        g2d.setFont(derivedSpaceFont);
-                        g2d.setColor(derivedFontColor);
-                        break;
-                }
-                
-                FontMetrics fm = g2d.getFontMetrics();
-                int x = (getWidth() - fm.stringWidth(value)) / 2;
-                int y = ((getHeight() - fm.getHeight()) / 2) + fm.getAscent();
-                g2d.drawString(value, x, y);
-            }
-        }
-    }
+    // A search that takes longer than this is given up.
+    private static final long TIME_LIMIT_SECONDS = 60;
+    // The replay speed slider runs from 10 to 100,000 steps per second on a log scale.
+    private static final int SPEED_STEPS_PER_DECADE = 100;
+    private static final int MIN_SPEED_DECADE = 1;
+    private static final int MAX_SPEED_DECADE = 5;
+    private static final AsyncSolver asyncSolver = new AsyncSolver(Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "solver");
+        thread.setDaemon(true);
+        return thread;
+    }));
+    // The search behind the last solution, for replaying it.
+    private static SearchTrace lastTrace;
 
     private static void setIsSolved(Boolean aIsSolved) {
         if (isSolved != aIsSolved) {
             isSolved = aIsSolved;
             solveButton.setEnabled(!isSolved);
+            grid.setEditable(!isSolved);
         }
     }
 
     public static void main(String[] args) {
         JFrame frame = new JFrame("Sudoku Solver");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setSize(500, 600);
+        frame.setSize(500, 640);
 
         JPanel mainPanel = new JPanel();
         mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.Y_AXIS));
-        
-        JPanel gridPanel = new JPanel(new GridLayout(9, 9, 1, 1));
-        gridPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-        
-        cells = new SudokuCellPanel[9][9];
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                cells[i][j] = new SudokuCellPanel(i, j);
-                gridPanel.add(cells[i][j]);
-            }
-        }
-        cells[0][0].requestFocusInWindow();
-
-        // Create a wrapper panel to maintain square aspect ratio
-        JPanel wrapperPanel = new JPanel() {
-            @Override
-            public Dimension getPreferredSize() {
-                Dimension d = super.getPreferredSize();
-                int size = Math.min(d.width, d.height);
-                return new Dimension(size, size);
-            }
-        };
-        wrapperPanel.setLayout(new BorderLayout());
-        wrapperPanel.add(gridPanel, BorderLayout.CENTER);
 
-        mainPanel.add(wrapperPanel);
+        grid = new SudokuGrid();
+        mainPanel.add(grid);
         mainPanel.add(Box.createVerticalStrut(10));
         
         messageLabel = new JLabel(instructionsMessage);
@@ -256,73 +95,217 @@ public class SudokuSolver {
         
         clearButton = new JButton("Clear board");
         clearButton.addActionListener(e -> {
-            for (int i = 0; i < 9; i++) {
-                for (int j = 0; j < 9; j++) {
-                    cells[i][j].setValue("");
-                    cells[i][j].setState(SudokuCellPanel.CellState.ENTRY);
-                }
-            }
+            stopReplay();
+            grid.clear();
+            lastTrace = null;
+            replayButton.setEnabled(false);
             setIsSolved(false);
             messageLabel.setText(instructionsMessage);
+            grid.requestFocusInWindow();
         });
         
         solveButton = new JButton("Solve Sudoku");
         solveButton.addActionListener(e -> {
+            if (grid.hasConflicts()) {
+                messageLabel.setText("Fix the values shown in red first.");
+                return;
+            }
+
             // Create and show the calculating dialog
             JDialog calculatingDialog = new JDialog(frame, "Calculating", true);
             calculatingDialog.setLayout(new BorderLayout());
+            calculatingDialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
             
             JLabel calculatingLabel = new JLabel("Calculating solution...", SwingConstants.CENTER);
             calculatingLabel.setFont(new Font("Arial", Font.PLAIN, 14));
-            calculatingLabel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
-            calculatingDialog.add(calculatingLabel, BorderLayout.CENTER);
+            calculatingLabel.setBorder(BorderFactory.createEmptyBorder(20, 20, 5, 20));
+            calculatingDialog.add(calculatingLabel, BorderLayout.NORTH);
+
+            JLabel progressLabel = new JLabel("Starting...", SwingConstants.CENTER);
+            progressLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+            progressLabel.setBorder(BorderFactory.createEmptyBorder(5, 20, 10, 20));
+            calculatingDialog.add(progressLabel, BorderLayout.CENTER);
+
+            JButton cancelButton = new JButton("Cancel");
+            JPanel cancelPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+            cancelPanel.add(cancelButton);
+            calculatingDialog.add(cancelPanel, BorderLayout.SOUTH);
             
             calculatingDialog.pack();
             calculatingDialog.setLocationRelativeTo(frame);
-            
-            new Thread(() -> {
-                SwingUtilities.invokeLater(() -> calculatingDialog.setVisible(true));
-                
-                solveSudoku();
-                
-                SwingUtilities.invokeLater(() -> calculatingDialog.dispose());
-            }).start();
+
+            CompletableFuture<Board> future = solveSudoku(calculatingDialog, progressLabel);
+            cancelButton.addActionListener(event -> future.cancel(true));
+            calculatingDialog.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosing(WindowEvent event) {
+                    future.cancel(true);
+                }
+            });
+            if (!future.isDone()) {
+                calculatingDialog.setVisible(true);
+            }
         });
         
+        JCheckBox candidatesCheckBox = new JCheckBox("Show candidates");
+        candidatesCheckBox.setFocusable(false);
+        candidatesCheckBox.addActionListener(e -> grid.setShowCandidates(candidatesCheckBox.isSelected()));
+
         buttonPanel.add(clearButton);
         buttonPanel.add(solveButton);
+        buttonPanel.add(candidatesCheckBox);
         mainPanel.add(buttonPanel);
+        mainPanel.add(Box.createVerticalStrut(5));
+
+        // Replay of the last search
+        JPanel replayPanel = new JPanel();
+        replayPanel.setLayout(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        replayPanel.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        replayButton = new JButton("Replay search");
+        replayButton.setEnabled(false);
+        replayButton.addActionListener(e -> {
+            if (grid.isReplaying()) {
+                stopReplay();
+            } else {
+                startReplay();
+            }
+        });
+
+        pauseButton = new JButton("Pause");
+        pauseButton.setEnabled(false);
+        pauseButton.addActionListener(e -> {
+            boolean pause = !grid.isReplayPaused();
+            grid.setReplayPaused(pause);
+            pauseButton.setText(pause ? "Resume" : "Pause");
+        });
+
+        speedSlider = new JSlider(MIN_SPEED_DECADE * SPEED_STEPS_PER_DECADE, MAX_SPEED_DECADE * SPEED_STEPS_PER_DECADE,
+                                  3 * SPEED_STEPS_PER_DECADE);
+        speedSlider.setFocusable(false);
+        speedSlider.setPreferredSize(new Dimension(120, speedSlider.getPreferredSize().height));
+        JLabel speedLabel = new JLabel();
+        speedSlider.addChangeListener(e -> {
+            double speed = replaySpeed();
+            grid.setReplaySpeed(speed);
+            speedLabel.setText(String.format("%,.0f steps/s", speed));
+        });
+        grid.setReplaySpeed(replaySpeed());
+        speedLabel.setText(String.format("%,.0f steps/s", replaySpeed()));
+
+        replayPanel.add(replayButton);
+        replayPanel.add(pauseButton);
+        replayPanel.add(speedSlider);
+        replayPanel.add(speedLabel);
+        mainPanel.add(replayPanel);
         
         frame.add(mainPanel);
         frame.setVisible(true);
+        grid.requestFocusInWindow();
+    }
+
+    /**
+     * @return The replay speed chosen on the slider, in steps per second
+     */
+    private static double replaySpeed() {
+        return Math.pow(10, (double) speedSlider.getValue() / SPEED_STEPS_PER_DECADE);
+    }
+
+    private static void startReplay() {
+        int steps = lastTrace.size();
+        String suffix = lastTrace.isTruncated() ? " (recording stopped early)" : "";
+        grid.startReplay(lastTrace, shown -> {
+            messageLabel.setText(String.format("Step %,d of %,d%s", shown, steps, suffix));
+            if (shown == steps) {
+                pauseButton.setEnabled(false);
+            }
+        });
+        replayButton.setText("Stop replay");
+        pauseButton.setText("Pause");
+        pauseButton.setEnabled(true);
+        clearButton.setEnabled(false);
+    }
+
+    private static void stopReplay() {
+        if (grid.isReplaying()) {
+            grid.stopReplay();
+            messageLabel.setText("Showing the solution.");
+        }
+        replayButton.setText("Replay search");
+        pauseButton.setText("Pause");
+        pauseButton.setEnabled(false);
+        clearButton.setEnabled(true);
     }
 
-    private static void solveSudoku() {
-        Board board = new Board();
+    /**
+     * Starts solving the puzzle on the grid in the background. The dialog is
+     * closed and the grid updated when the solve finishes or is cancelled.
+     * @param dialog The dialog shown while solving
+     * @param progressLabel Shows the progress of the search
+     * @return The solve, which can be cancelled
+     */
+    private static CompletableFuture<Board> solveSudoku(JDialog dialog, JLabel progressLabel) {
+        Board board = grid.copyBoard();
 
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                String value = cells[i][j].getValue();
-                if (!value.isEmpty()) {
-                    board.setValue(i, j, value.charAt(0));
-                    cells[i][j].setState(SudokuCellPanel.CellState.GIVEN);
+        for (int i = 0; i < Board.ROW_SIZE; i++) {
+            for (int j = 0; j < Board.COL_SIZE; j++) {
+                if (grid.getValue(i, j) != Board.EMPTY) {
+                    grid.setState(i, j, SudokuGrid.CellState.GIVEN);
                 }
             }
         }
-        Solver solver = new Solver(board.copy());
-        solver.resetCounter();
-        Board solution = solver.solve();
+        Solver solver = new Solver();
+        SearchTrace trace = new SearchTrace();
+        solver.setTrace(trace);
+        SolveBudget budget = new SolveBudget();
+        budget.setTimeout(TIME_LIMIT_SECONDS, TimeUnit.SECONDS);
+        CompletableFuture<Board> future = asyncSolver.solve(solver, board, budget, progress ->
+                SwingUtilities.invokeLater(() -> progressLabel.setText(
+                        String.format("Depth %d, %,d nodes (%,.0f nodes/s)",
+                                      progress.getDepth(), progress.getNodes(), progress.getNodesPerSecond()))));
+        future.whenComplete((solution, error) -> SwingUtilities.invokeLater(() -> {
+            dialog.dispose();
+            showResult(solver, solution, error);
+            if (solution != null) {
+                lastTrace = trace;
+                replayButton.setEnabled(true);
+            }
+        }));
+        return future;
+    }
+
+    private static void showResult(Solver solver, Board solution, Throwable error) {
+        if (error instanceof CompletionException) {
+            error = error.getCause();
+        }
         if (solution != null) {
-            for (int i = 0; i < 9; i++) {
-                for (int j = 0; j < 9; j++) {
-                    cells[i][j].setValue(String.valueOf(solution.getValue(i, j)));
-                    if (cells[i][j].getState() != SudokuCellPanel.CellState.GIVEN) {
-                        cells[i][j].setState(SudokuCellPanel.CellState.DERIVED);
+            for (int i = 0; i < Board.ROW_SIZE; i++) {
+                for (int j = 0; j < Board.COL_SIZE; j++) {
+                    grid.setValue(i, j, solution.getValue(i, j));
+                    if (grid.getState(i, j) != SudokuGrid.CellState.GIVEN) {
+                        grid.setState(i, j, SudokuGrid.CellState.DERIVED);
                     }
                 }
             }
-            messageLabel.setText("Solution found in " + solver.getCounter() + " iterations.");
+            SolveStats stats = solver.getStats();
+            messageLabel.setText("Solution found in " + solver.getCounter() + " iterations ("
+                                 + stats.getBacktracks() + " backtracks, "
+                                 + stats.getElapsedNanos() / 1000000 + " ms).");
             setIsSolved(true);
+            return;
+        }
+        // Let the user edit the puzzle again.
+        for (int i = 0; i < Board.ROW_SIZE; i++) {
+            for (int j = 0; j < Board.COL_SIZE; j++) {
+                grid.setState(i, j, SudokuGrid.CellState.ENTRY);
+            }
+        }
+        if (error instanceof CancellationException) {
+            messageLabel.setText("Solving cancelled.");
+        } else if (error instanceof AsyncSolver.LimitReachedException) {
+            messageLabel.setText("Gave up after " + TIME_LIMIT_SECONDS + " seconds.");
+        } else if (error != null) {
+            messageLabel.setText("The solver failed: " + error.getMessage());
         } else {
             messageLabel.setText("No solution found.");
         }
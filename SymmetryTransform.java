@@ -0,0 +1,488 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Arrays;
+
+/*
+ * This class maps a board to a canonical form under the symmetries of Sudoku:
+ * transposition, permutations of the bands and of the rows within each band,
+ * permutations of the stacks and of the columns within each stack, and
+ * relabeling of the digits. Puzzles that are transformations of each other have
+ * the same canonical form, so a solution found for one can be mapped back to
+ * any of the others.
+ * 
+ * The canonical form is the lexicographically smallest string, with blanks as
+ * '0' and digits relabeled in order of first appearance. It is built a row at a
+ * time, keeping only the partial transformations that tie for the smallest
+ * prefix. A partial transformation fixes the order of the stacks, but the
+ * columns within a stack are only ordered as far as the rows chosen so far tell
+ * them apart: columns that are still interchangeable share a block, and each new
+ * row splits the blocks further. That keeps the column orders that tie for a row
+ * together instead of trying each of them.
+ * 
+ * Real puzzles keep a few dozen candidates at most, but nearly empty or highly
+ * symmetric boards can tie in millions of ways. When more than MAX_CANDIDATES tie,
+ * only the first is followed from then on: the form is still a valid
+ * transformation of the puzzle, but two equivalent puzzles may no longer share it.
+ * A board with a digit repeated in a row or column gets the identity transformation.
+ */
+public class SymmetryTransform {
+    private static final int SIZE = 9;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int MAX_CANDIDATES = 256;
+    private static final int[][] PERMUTATIONS_OF_3 = {
+        {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}
+    };
+    // The orders of k interchangeable items, for k up to 3.
+    private static final int[][][] PERMUTATIONS = {
+        {{}}, {{0}}, {{0, 1}, {1, 0}}, PERMUTATIONS_OF_3
+    };
+    private static final int[] FACTORIALS = {1, 1, 2, 6};
+    // Block starts that every candidate has: the first column of each stack.
+    private static final int STACK_STARTS = (1 << 0) | (1 << 3) | (1 << 6);
+    // Working space for canonicalize(), reused by each thread.
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final boolean transposed;
+    // Canonical row i is row rows[i] of the (transposed) original, and likewise for columns.
+    private final int[] rows;
+    private final int[] cols;
+    // Original digit to canonical digit, and back. Index 0 is the blank.
+    private final int[] label;
+    private final int[] unlabel;
+
+    private SymmetryTransform(boolean transposed, int[] rows, int[] cols, int[] label) {
+        this.transposed = transposed;
+        this.rows = rows;
+        this.cols = cols;
+        this.label = label;
+        this.unlabel = new int[SIZE + 1];
+        for (int d = 0; d <= SIZE; d++) {
+            unlabel[label[d]] = d;
+        }
+    }
+
+    /**
+     * The partial transformations that tie for the smallest prefix so far. Each
+     * has chosen its first rows and orders the columns up to blocks of columns
+     * that are still interchangeable; they are kept in flat arrays so that
+     * extending them does not allocate.
+     */
+    private static final class Candidates {
+        final boolean[] transposed = new boolean[MAX_CANDIDATES];
+        // The column at each position, and a bit for each position that starts a block.
+        final int[] columns = new int[MAX_CANDIDATES * SIZE];
+        final int[] blockStarts = new int[MAX_CANDIDATES];
+        final int[] usedRows = new int[MAX_CANDIDATES];
+        final int[] rows = new int[MAX_CANDIDATES * SIZE];
+        final int[] labels = new int[MAX_CANDIDATES * (SIZE + 1)];
+        final int[] nextLabel = new int[MAX_CANDIDATES];
+        int count;
+    }
+
+    /**
+     * Everything canonicalize() needs besides its result
+     */
+    private static final class Scratch {
+        Candidates current = new Candidates();
+        Candidates next = new Candidates();
+        final int[] digits = new int[CELLS];
+        final int[] transposedDigits = new int[CELLS];
+        final int[] best = new int[SIZE];
+        final int[] row = new int[SIZE];
+        // The labels of one block of a row, in increasing order.
+        final int[] labeled = new int[3];
+        // The candidates and rows that tie for the smallest next row.
+        final int[] tiedCandidates = new int[MAX_CANDIDATES];
+        final int[] tiedRows = new int[MAX_CANDIDATES];
+        // For the row being extended: its columns in their smallest order, where the
+        // new digits of each block may still be permuted, and the new block starts.
+        final int[] arranged = new int[SIZE];
+        final int[] newStart = new int[SIZE];
+        final int[] newCount = new int[SIZE];
+    }
+
+    /**
+     * Finds the transformation that takes a board to its canonical form
+     * @param board The board to canonicalize
+     * @return The transformation
+     */
+    public static SymmetryTransform canonicalize(Board board) {
+        Scratch scratch = SCRATCH.get();
+        int[] digits = scratch.digits;
+        int[] transposedDigits = scratch.transposedDigits;
+        for (int i = 0; i < CELLS; i++) {
+            char value = board.valueAt(i);
+            int digit = value == Board.EMPTY ? 0 : value - '0';
+            digits[i] = digit;
+            transposedDigits[(i % SIZE) * SIZE + i / SIZE] = digit;
+        }
+        if (hasRepeatedDigit(digits) || hasRepeatedDigit(transposedDigits)) {
+            int[] identity = new int[SIZE + 1];
+            for (int d = 0; d <= SIZE; d++) {
+                identity[d] = d;
+            }
+            int[] order = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+            return new SymmetryTransform(false, order, order.clone(), identity);
+        }
+
+        // Start from every transposition and order of the stacks.
+        Candidates current = scratch.current;
+        current.count = 0;
+        for (int t = 0; t < 2; t++) {
+            for (int[] stacks : PERMUTATIONS_OF_3) {
+                int n = current.count++;
+                current.transposed[n] = t == 1;
+                for (int j = 0; j < SIZE; j++) {
+                    current.columns[n * SIZE + j] = stacks[j / 3] * 3 + j % 3;
+                }
+                current.blockStarts[n] = STACK_STARTS;
+                current.usedRows[n] = 0;
+                Arrays.fill(current.labels, n * (SIZE + 1), (n + 1) * (SIZE + 1), 0);
+                current.nextLabel[n] = 1;
+            }
+        }
+
+        int[] best = scratch.best;
+        int[] row = scratch.row;
+        Candidates next = scratch.next;
+        int[] tiedCandidates = scratch.tiedCandidates;
+        int[] tiedRows = scratch.tiedRows;
+        for (int k = 0; k < SIZE; k++) {
+            // Find every candidate and row that tie for the smallest row first, then
+            // extend only those.
+            int ties = 0;
+            boolean haveBest = false;
+            for (int c = 0; c < current.count; c++) {
+                int[] values = current.transposed[c] ? transposedDigits : digits;
+                int used = current.usedRows[c];
+                int firstRow = k % 3 == 0 ? 0 : current.rows[c * SIZE + k - 1] / 3 * 3;
+                int lastRow = k % 3 == 0 ? SIZE : firstRow + 3;
+                for (int r = firstRow; r < lastRow; r++) {
+                    if ((used & (1 << r)) != 0 || (k == 0 && !blanksDescend(current, c, values, r * SIZE))) {
+                        continue;
+                    }
+                    int order = smallestRow(current, c, values, r * SIZE, haveBest ? best : null, row, scratch);
+                    if (order > 0) {
+                        continue;
+                    }
+                    if (order < 0) {
+                        System.arraycopy(row, 0, best, 0, SIZE);
+                        haveBest = true;
+                        ties = 0;
+                    }
+                    if (ties < MAX_CANDIDATES) {
+                        tiedCandidates[ties] = c;
+                        tiedRows[ties] = r;
+                        ties++;
+                    }
+                }
+            }
+            next.count = 0;
+            for (int t = 0; t < ties && next.count < MAX_CANDIDATES; t++) {
+                int c = tiedCandidates[t];
+                extend(current, c, current.transposed[c] ? transposedDigits : digits, tiedRows[t], k, next, scratch);
+            }
+            if (ties == MAX_CANDIDATES || next.count == MAX_CANDIDATES) {
+                // Too many ties to be canonical anyway; finish quickly with one of them.
+                next.count = 1;
+            }
+            Candidates swap = current;
+            current = next;
+            next = swap;
+        }
+        scratch.current = current;
+        scratch.next = next;
+
+        // The first candidate left wins; columns still sharing a block are empty in
+        // every row, so their order does not matter. Digits that do not appear get
+        // the remaining labels in increasing order.
+        int[] rows = new int[SIZE];
+        System.arraycopy(current.rows, 0, rows, 0, SIZE);
+        int[] cols = new int[SIZE];
+        System.arraycopy(current.columns, 0, cols, 0, SIZE);
+        int[] label = new int[SIZE + 1];
+        System.arraycopy(current.labels, 0, label, 0, SIZE + 1);
+        int nextLabel = current.nextLabel[0];
+        for (int d = 1; d <= SIZE; d++) {
+            if (label[d] == 0) {
+                label[d] = nextLabel++;
+            }
+        }
+        return new SymmetryTransform(current.transposed[0], rows, cols, label);
+    }
+
+    /**
+     * Finds the smallest form of a row under a candidate: within each block, blanks
+     * come first, then digits already labeled in label order, then new digits,
+     * which are labeled in order of position.
+     * @param values The digits of the board in the candidate's orientation
+     * @param rowStart The index in values of the row
+     * @param best The smallest row so far, or null if there is none
+     * @param row Receives the row, if it is not larger than best
+     * @return -1, 0 or 1 as the row is smaller than, equal to or larger than best
+     */
+    private static int smallestRow(Candidates candidates, int c, int[] values, int rowStart, int[] best, int[] row,
+                                   Scratch scratch) {
+        int order = best == null ? -1 : 0;
+        int labelBase = c * (SIZE + 1);
+        int assigned = candidates.nextLabel[c];
+        int blockStarts = candidates.blockStarts[c];
+        int p = 0;
+        while (p < SIZE) {
+            int end = p + 1;
+            while (end < SIZE && (blockStarts & (1 << end)) == 0) {
+                end++;
+            }
+            // Count the blanks of the block and sort its labeled digits; the rest are new.
+            int[] labeled = scratch.labeled;
+            int blanks = 0;
+            int count = 0;
+            for (int j = p; j < end; j++) {
+                int d = values[rowStart + candidates.columns[c * SIZE + j]];
+                int v = d == 0 ? 0 : candidates.labels[labelBase + d];
+                if (d == 0) {
+                    blanks++;
+                } else if (v != 0) {
+                    int at = count++;
+                    while (at > 0 && labeled[at - 1] > v) {
+                        labeled[at] = labeled[at - 1];
+                        at--;
+                    }
+                    labeled[at] = v;
+                }
+            }
+            for (int j = p; j < end; j++) {
+                int i = j - p;
+                int v;
+                if (i < blanks) {
+                    v = 0;
+                } else if (i < blanks + count) {
+                    v = labeled[i - blanks];
+                } else {
+                    v = assigned++;
+                }
+                row[j] = v;
+                if (order == 0 && v != best[j]) {
+                    order = v < best[j] ? -1 : 1;
+                    if (order > 0) {
+                        return 1;
+                    }
+                }
+            }
+            p = end;
+        }
+        return order;
+    }
+
+    /**
+     * Adds to next every way of extending candidate c by row r in its smallest form.
+     * The blocks are split by the values in the row, and the new digits of a block
+     * can take their labels in any order, each of which is a separate candidate.
+     */
+    private static void extend(Candidates current, int c, int[] values, int r, int k, Candidates next, Scratch scratch) {
+        int labelBase = c * (SIZE + 1);
+        int rowStart = r * SIZE;
+        int blockStarts = current.blockStarts[c];
+        int[] arranged = scratch.arranged;
+        int[] newStart = scratch.newStart;
+        int[] newCount = scratch.newCount;
+        int splitStarts = 0;
+        int variants = 1;
+        int blocks = 0;
+        int p = 0;
+        while (p < SIZE) {
+            int end = p + 1;
+            while (end < SIZE && (blockStarts & (1 << end)) == 0) {
+                end++;
+            }
+            // Blanks first, as one block, then labeled digits in label order, then new digits.
+            int out = p;
+            for (int j = p; j < end; j++) {
+                int col = current.columns[c * SIZE + j];
+                if (values[rowStart + col] == 0) {
+                    arranged[out++] = col;
+                }
+            }
+            if (out > p) {
+                splitStarts |= 1 << p;
+            }
+            int labeledStart = out;
+            for (int j = p; j < end; j++) {
+                int col = current.columns[c * SIZE + j];
+                int d = values[rowStart + col];
+                if (d != 0 && current.labels[labelBase + d] != 0) {
+                    int v = current.labels[labelBase + d];
+                    int at = out++;
+                    while (at > labeledStart && current.labels[labelBase + values[rowStart + arranged[at - 1]]] > v) {
+                        arranged[at] = arranged[at - 1];
+                        at--;
+                    }
+                    arranged[at] = col;
+                }
+            }
+            int freshStart = out;
+            for (int j = p; j < end; j++) {
+                int col = current.columns[c * SIZE + j];
+                int d = values[rowStart + col];
+                if (d != 0 && current.labels[labelBase + d] == 0) {
+                    arranged[out++] = col;
+                }
+            }
+            for (int j = labeledStart; j < out; j++) {
+                splitStarts |= 1 << j;
+            }
+            newStart[blocks] = freshStart;
+            newCount[blocks] = out - freshStart;
+            variants *= FACTORIALS[out - freshStart];
+            blocks++;
+            p = end;
+        }
+
+        for (int v = 0; v < variants && next.count < MAX_CANDIDATES; v++) {
+            int n = next.count++;
+            next.transposed[n] = current.transposed[c];
+            System.arraycopy(arranged, 0, next.columns, n * SIZE, SIZE);
+            next.blockStarts[n] = splitStarts;
+            next.usedRows[n] = current.usedRows[c] | (1 << r);
+            System.arraycopy(current.rows, c * SIZE, next.rows, n * SIZE, k);
+            next.rows[n * SIZE + k] = r;
+            int base = n * (SIZE + 1);
+            System.arraycopy(current.labels, labelBase, next.labels, base, SIZE + 1);
+            // Variant v picks one order of the new digits in each block, mixed radix.
+            int rest = v;
+            for (int block = 0; block < blocks; block++) {
+                int count = newCount[block];
+                if (count > 1) {
+                    int[] permutation = PERMUTATIONS[count][rest % FACTORIALS[count]];
+                    rest /= FACTORIALS[count];
+                    for (int i = 0; i < count; i++) {
+                        next.columns[n * SIZE + newStart[block] + i] = arranged[newStart[block] + permutation[i]];
+                    }
+                }
+            }
+            // New digits are labeled in order of position.
+            int assigned = current.nextLabel[c];
+            for (int j = 0; j < SIZE; j++) {
+                int d = values[rowStart + next.columns[n * SIZE + j]];
+                if (d != 0 && next.labels[base + d] == 0) {
+                    next.labels[base + d] = assigned++;
+                }
+            }
+            next.nextLabel[n] = assigned;
+        }
+    }
+
+    /**
+     * Before any digit is labeled, a stack with more blanks in the first row always
+     * makes a smaller row by coming first, so only orders of the stacks by
+     * decreasing blanks need to be tried.
+     * @return true if the candidate's stacks have non-increasing blanks in the row
+     */
+    private static boolean blanksDescend(Candidates candidates, int c, int[] values, int rowStart) {
+        int previous = 3;
+        for (int s = 0; s < SIZE; s += 3) {
+            int blanks = 0;
+            for (int j = s; j < s + 3; j++) {
+                if (values[rowStart + candidates.columns[c * SIZE + j]] == 0) {
+                    blanks++;
+                }
+            }
+            if (blanks > previous) {
+                return false;
+            }
+            previous = blanks;
+        }
+        return true;
+    }
+
+    /**
+     * @param values The digits of a board, row by row
+     * @return true if some row has a digit twice
+     */
+    private static boolean hasRepeatedDigit(int[] values) {
+        for (int r = 0; r < SIZE; r++) {
+            int seen = 0;
+            for (int j = 0; j < SIZE; j++) {
+                int d = values[r * SIZE + j];
+                if (d != 0) {
+                    if ((seen & (1 << d)) != 0) {
+                        return true;
+                    }
+                    seen |= 1 << d;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Transforms a board into the canonical frame
+     * @param board The board this transformation was made for, or one of its solutions
+     * @return 81 characters, '0' for blanks and '1'-'9' for canonical digits
+     */
+    public String apply(Board board) {
+        char[] result = new char[CELLS];
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                char value = board.valueAt(originalIndex(i, j));
+                int digit = value == Board.EMPTY ? 0 : value - '0';
+                result[i * SIZE + j] = (char) ('0' + label[digit]);
+            }
+        }
+        return new String(result);
+    }
+
+    /**
+     * Transforms a canonical solution back into the original frame, placing its
+     * values in the empty cells of a board
+     * @param canonical 81 characters from apply()
+     * @param board The board to fill in
+     */
+    public void unapply(CharSequence canonical, Board board) {
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                int index = originalIndex(i, j);
+                if (board.valueAt(index) == Board.EMPTY) {
+                    int digit = unlabel[canonical.charAt(i * SIZE + j) - '0'];
+                    board.place(index, (char) ('0' + digit));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The index in the original board of canonical cell (i, j)
+     */
+    private int originalIndex(int i, int j) {
+        int r = rows[i];
+        int c = cols[j];
+        return transposed ? c * SIZE + r : r * SIZE + c;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package sudoku;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the Board operations on the solver's hot path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    @Param({Corpus.EASY, Corpus.HARD, Corpus.MINIMAL_17, Corpus.KILLERS})
+    public String tier;
+
+    private Board[] puzzles;
+    // For each puzzle, the given cells and their values.
+    private int[][] givenCells;
+    private char[][] givenValues;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        puzzles = Corpus.load(tier);
+        givenCells = new int[puzzles.length][];
+        givenValues = new char[puzzles.length][];
+        for (int p = 0; p < puzzles.length; p++) {
+            Board puzzle = puzzles[p];
+            int count = 81 - puzzle.getEmptySpaces();
+            givenCells[p] = new int[count];
+            givenValues[p] = new char[count];
+            int n = 0;
+            for (int i = 0; i < Board.ROW_SIZE; i++) {
+                for (int j = 0; j < Board.COL_SIZE; j++) {
+                    if (puzzle.getValue(i, j) != Board.EMPTY) {
+                        givenCells[p][n] = i * Board.ROW_SIZE + j;
+                        givenValues[p][n] = puzzle.getValue(i, j);
+                        n++;
+                    }
+                }
+            }
+        }
+    }
+
+    private int nextPuzzle() {
+        int p = next;
+        next = p + 1 == puzzles.length ? 0 : p + 1;
+        return p;
+    }
+
+    /**
+     * Fills the givens of a puzzle into a new board with setValue().
+     */
+    @Benchmark
+    public Board setValue() {
+        int p = nextPuzzle();
+        int[] cells = givenCells[p];
+        char[] values = givenValues[p];
+        Board board = new Board();
+        for (int k = 0; k < cells.length; k++) {
+            board.setValue(cells[k] / Board.ROW_SIZE, cells[k] % Board.ROW_SIZE, values[k]);
+        }
+        return board;
+    }
+
+    @Benchmark
+    public Board copy() {
+        return puzzles[nextPuzzle()].copy();
+    }
+}
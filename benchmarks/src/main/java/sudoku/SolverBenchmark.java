@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package sudoku;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures solving the puzzles of each tier, both as the latency of a single
+ * puzzle and as the throughput of a batch.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+    // Puzzles solved per batch invocation, cycling through the tier.
+    private static final int BATCH_SIZE = 64;
+
+    @Param({Corpus.EASY, Corpus.HARD, Corpus.MINIMAL_17, Corpus.KILLERS})
+    public String tier;
+
+    @Param({"solver", "learning", "dlx", "sliced"})
+    public String engine;
+
+    private Board[] puzzles;
+    private Board[] cycle;
+    private Board[] solutions;
+    private List<Board> batch;
+    private SudokuEngine solver;
+    private ParallelBatchSolver parallel;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        puzzles = Corpus.load(tier);
+        cycle = new Board[BATCH_SIZE];
+        solutions = new Board[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            cycle[i] = puzzles[i % puzzles.length];
+        }
+        batch = Arrays.asList(cycle);
+        Supplier<SudokuEngine> factory = BatchSolver.engineFactory(engine);
+        solver = factory.get();
+        parallel = new ParallelBatchSolver(factory);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parallel.close();
+    }
+
+    private Board nextPuzzle() {
+        Board puzzle = puzzles[next];
+        next = next + 1 == puzzles.length ? 0 : next + 1;
+        return puzzle;
+    }
+
+    /**
+     * The distribution of the time taken to solve one puzzle.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Board latency() {
+        return solver.solve(nextPuzzle().copy());
+    }
+
+    /**
+     * Puzzles per second when solving a batch on one thread. The bit-sliced
+     * engine gets the whole batch at once, one puzzle per lane.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void batch(Blackhole blackhole) {
+        if (solver instanceof BitSlicedSolver) {
+            ((BitSlicedSolver) solver).solveAll(cycle, 0, BATCH_SIZE, solutions, 0);
+            blackhole.consume(solutions);
+            return;
+        }
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            blackhole.consume(solver.solve(batch.get(i).copy()));
+        }
+    }
+
+    /**
+     * Puzzles per second when solving a batch on every available processor.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Board> parallelBatch() {
+        return parallel.solveAll(batch);
+    }
+}
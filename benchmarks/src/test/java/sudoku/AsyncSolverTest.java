@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Background solves, their cancellation and what they leave behind on the solver.
+ */
+class AsyncSolverTest {
+    private static final String HARD =
+            "48.3............71.2.......7.5....6....2..8.............1.76...3.....4......5....";
+    // About 244,000 nodes for the IN_PLACE search.
+    private static final String SLOW =
+            ".....6....59.....82....8....45........3........6..3.54...325..6..................";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AsyncSolver async = new AsyncSolver(executor);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void solvesInTheBackground() throws Exception {
+        Board puzzle = Board.parse(HARD);
+        Board solution = async.solve(puzzle, null, null).get(10, TimeUnit.SECONDS);
+        assertNotNull(solution);
+        assertEquals(0, solution.getEmptySpaces());
+        // The puzzle passed in is left alone.
+        assertEquals(Board.parse(HARD).toString(), puzzle.toString());
+    }
+
+    @Test
+    void cancelledBudgetFailsTheFuture() {
+        SolveBudget budget = new SolveBudget();
+        budget.cancel();
+        CompletableFuture<Board> future = async.solve(Board.parse(HARD), budget, null);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        AsyncSolver.LimitReachedException limit =
+                assertInstanceOf(AsyncSolver.LimitReachedException.class, e.getCause());
+        assertEquals(SolveBudget.Limit.CANCELLED, limit.getLimit());
+    }
+
+    @Test
+    void solverIsUsableAfterACancelledSolve() throws Exception {
+        Solver solver = new Solver();
+        SolveBudget budget = new SolveBudget();
+        budget.cancel();
+        CompletableFuture<Board> future = async.solve(solver, Board.parse(HARD), budget, null);
+        assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+
+        assertNotNull(solver.solve(Board.parse(HARD)));
+        assertNull(solver.getStats().getLimitReached());
+    }
+
+    @Test
+    void ownersBudgetIsRestored() throws Exception {
+        Solver solver = new Solver();
+        SolveBudget owners = new SolveBudget();
+        owners.setMaxNodes(1_000_000);
+        solver.setBudget(owners);
+        SolveBudget limits = new SolveBudget();
+        limits.setMaxNodes(1);
+        CompletableFuture<Board> future = async.solve(solver, Board.parse(HARD), limits, null);
+        assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertSame(owners, solver.getBudget());
+        assertEquals(0, owners.getNodes());
+    }
+
+    @Test
+    void cancellingTheFutureStopsTheSearch() throws Exception {
+        Solver solver = new Solver();
+        solver.setSearchMode(Solver.SearchMode.IN_PLACE);
+        SolveBudget budget = new SolveBudget();
+        CountDownLatch started = new CountDownLatch(1);
+        async.setProgressInterval(1, TimeUnit.MILLISECONDS);
+        CompletableFuture<Board> future = async.solve(solver, Board.parse(SLOW), budget, progress -> {
+            if (progress.getNodes() > 0) {
+                started.countDown();
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertTrue(future.cancel(true));
+        assertThrows(CancellationException.class, future::join);
+
+        // The executor is free again once the search has noticed.
+        executor.submit(() -> { }).get(10, TimeUnit.SECONDS);
+        assertEquals(SolveBudget.Limit.CANCELLED, budget.getLimitReached());
+        assertTrue(budget.getNodes() < 244_000);
+    }
+}
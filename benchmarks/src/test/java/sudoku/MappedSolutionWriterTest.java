@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The channel writes used where a mapped file cannot be truncated give the same
+ * file as the mapped windows.
+ */
+class MappedSolutionWriterTest {
+    // Enough lines to fill the channel writer's buffer more than once.
+    private static final int LINES = 30000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void channelWritesMatchMappedWrites() throws IOException {
+        Board puzzle = Corpus.load(Corpus.HARD)[0];
+        Board solution = new Solver().solve(puzzle.copy());
+        StringBuilder expected = new StringBuilder();
+        Path[] files = {directory.resolve("mapped.txt"), directory.resolve("channel.txt")};
+        for (int f = 0; f < files.length; f++) {
+            try (MappedSolutionWriter writer = new MappedSolutionWriter(files[f], f == 0)) {
+                assertEquals(f == 0, writer.isMapped());
+                for (int i = 0; i < LINES; i++) {
+                    if (i % 3 == 0) {
+                        writer.write(null, null);
+                    } else if (i % 3 == 1) {
+                        writer.write(puzzle, null);
+                    } else {
+                        ByteBuffer line = ByteBuffer.allocate(MappedSolutionWriter.MAX_LINE_LENGTH);
+                        MappedSolutionWriter.format(line, puzzle, solution);
+                        line.flip();
+                        writer.write(line);
+                    }
+                    if (f == 0) {
+                        expected.append(i % 3 == 0 ? "invalid\n" : i % 3 == 1 ? "unsolvable\n"
+                                        : solutionLine(solution));
+                    }
+                }
+            }
+        }
+        byte[] bytes = expected.toString().getBytes(StandardCharsets.US_ASCII);
+        assertArrayEquals(bytes, Files.readAllBytes(files[0]));
+        assertArrayEquals(bytes, Files.readAllBytes(files[1]));
+    }
+
+    private static String solutionLine(Board solution) {
+        char[] values = new char[81];
+        solution.getValues(values, 0);
+        return new String(values) + "\n";
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Every engine gives the same solutions through the parallel paths, including a
+ * bit-sliced engine fed a block of puzzles per task.
+ */
+class ParallelBatchSolverTest {
+    @Test
+    void slicedBlocksMatchTheSolver() {
+        List<Board> puzzles = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            puzzles.addAll(Arrays.asList(Corpus.load(Corpus.EASY)));
+            puzzles.addAll(Arrays.asList(Corpus.load(Corpus.HARD)));
+            puzzles.add(null);
+        }
+        List<String> expected = new ArrayList<>();
+        for (Board puzzle : puzzles) {
+            expected.add(puzzle != null ? new Solver().solve(puzzle.copy()).toString() : null);
+        }
+        for (String engine : new String[] {"solver", "sliced"}) {
+            try (ParallelBatchSolver parallel = new ParallelBatchSolver(BatchSolver.engineFactory(engine), 3)) {
+                List<String> collected = new ArrayList<>();
+                for (Board solution : parallel.solveAll(puzzles)) {
+                    collected.add(solution != null ? solution.toString() : null);
+                }
+                assertEquals(expected, collected, engine);
+
+                List<String> streamed = new ArrayList<>();
+                parallel.solveAll(puzzles.iterator(), true, result -> {
+                    assertEquals(streamed.size(), result.getIndex(), engine);
+                    streamed.add(result.getSolution() != null ? result.getSolution().toString() : null);
+                });
+                assertEquals(expected, streamed, engine);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Archives give back what was written, in the numbering of the input, and unpack
+ * like BatchSolver's output.
+ */
+class PuzzleArchiveTest {
+    // Enough records that the writer spills its index more than once.
+    private static final int RECORDS = 20000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsRoundTripPastTheInMemoryIndex() throws IOException {
+        Board[] puzzles = Corpus.load(Corpus.HARD);
+        Board[] solutions = new Board[puzzles.length];
+        for (int i = 0; i < puzzles.length; i++) {
+            solutions[i] = new Solver().solve(puzzles[i].copy());
+        }
+        Path file = directory.resolve("round-trip.sdka");
+        try (PuzzleArchiveWriter writer = new PuzzleArchiveWriter(file)) {
+            for (int i = 0; i < RECORDS; i++) {
+                if (i % 5 == 4) {
+                    writer.writeInvalid();
+                } else {
+                    int k = i % puzzles.length;
+                    writer.write(puzzles[k], i % 3 == 0 ? solutions[k] : null);
+                }
+            }
+            assertEquals(RECORDS, writer.getCount());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count(), "the spilled index is deleted");
+        }
+
+        try (PuzzleArchive archive = new PuzzleArchive(file)) {
+            assertEquals(RECORDS, archive.size());
+            assertTrue(archive.hasSolutions());
+            PuzzleArchive.Cursor cursor = archive.cursor(0, RECORDS);
+            for (int i = 0; i < RECORDS; i++) {
+                assertTrue(cursor.next());
+                assertEquals(i, cursor.index());
+                checkRecord(i, cursor.isInvalid(), cursor.puzzle(), cursor.solution(), puzzles, solutions);
+            }
+            assertFalse(cursor.next());
+
+            cursor = archive.cursor(8190, 16390);
+            for (int i = 8190; i < 16390; i++) {
+                assertTrue(cursor.next());
+                checkRecord(i, cursor.isInvalid(), cursor.puzzle(), cursor.solution(), puzzles, solutions);
+            }
+            assertFalse(cursor.next());
+
+            for (int i : new int[] {0, 4, 8191, 8192, 8193, 16384, RECORDS - 1}) {
+                Board puzzle = archive.getPuzzle(i);
+                checkRecord(i, puzzle == null, puzzle, archive.getSolution(i), puzzles, solutions);
+            }
+        }
+    }
+
+    private static void checkRecord(int i, boolean invalid, Board puzzle, Board solution,
+                                    Board[] puzzles, Board[] solutions) {
+        if (i % 5 == 4) {
+            assertTrue(invalid, "record " + i);
+            assertNull(puzzle, "record " + i);
+            assertNull(solution, "record " + i);
+            return;
+        }
+        int k = i % puzzles.length;
+        assertFalse(invalid, "record " + i);
+        assertEquals(puzzles[k].toString(), puzzle.toString(), "record " + i);
+        if (i % 3 == 0) {
+            assertNotNull(solution, "record " + i);
+            assertEquals(solutions[k].toString(), solution.toString(), "record " + i);
+        } else {
+            assertNull(solution, "record " + i);
+        }
+    }
+
+    @Test
+    void unpackedSolutionsMatchBatchSolver() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String tier : new String[] {Corpus.EASY, Corpus.HARD}) {
+            for (Board puzzle : Corpus.load(tier)) {
+                text.append(line(puzzle)).append('\n');
+            }
+        }
+        // Short, overlong and conflicting lines, a blank line and an unsolvable puzzle.
+        text.append("bad\n12345\n\n");
+        text.append(line(Corpus.load(Corpus.EASY)[0])).append("1\n");
+        text.append("11").append(".".repeat(79)).append('\n');
+        text.append("4...1.6...9..84.71..2.......3..4...2.1..6...7......54.8...7692...91..45.6........\n");
+        text.append(line(Corpus.load(Corpus.HARD)[0])).append('\n');
+
+        StringWriter expected = new StringWriter();
+        new BatchSolver(Solver::new, 1).run(new BufferedReader(new StringReader(text.toString())), expected);
+
+        Path input = directory.resolve("puzzles.txt");
+        Path file = directory.resolve("puzzles.sdka");
+        Files.write(input, text.toString().getBytes(StandardCharsets.US_ASCII));
+        PuzzleArchive.pack(input, file, true);
+        StringWriter actual = new StringWriter();
+        try (PuzzleArchive archive = new PuzzleArchive(file)) {
+            PuzzleArchive.unpack(archive, 0, archive.size(), true, actual);
+        }
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    private static String line(Board puzzle) {
+        char[] values = new char[81];
+        puzzle.getValues(values, 0);
+        StringBuilder line = new StringBuilder();
+        for (char value : values) {
+            line.append(value == Board.EMPTY ? '.' : value);
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * A store gives the same results as BatchSolver, and grows past the capacity it
+ * was sized for.
+ */
+class PuzzleStoreTest {
+    @Test
+    void resultsMatchBatchSolver() throws IOException, InterruptedException {
+        StringBuilder text = new StringBuilder();
+        for (String tier : new String[] {Corpus.EASY, Corpus.HARD, Corpus.MINIMAL_17}) {
+            for (Board puzzle : Corpus.load(tier)) {
+                text.append(line(puzzle)).append('\n');
+            }
+        }
+        String puzzle = line(Corpus.load(Corpus.HARD)[0]);
+        // More short lines than the store expects from the file's size.
+        for (int i = 0; i < 2000; i++) {
+            text.append("bad\n");
+        }
+        text.append("  ").append(puzzle).append(" \r\n");
+        text.append(" \t\n\n");
+        text.append(puzzle, 0, 40).append(' ').append(puzzle, 41, 81).append('\n');
+        text.append(puzzle).append("1\n");
+        text.append(puzzle, 0, 80).append('\n');
+        text.append("11").append(".".repeat(79)).append('\n');
+        text.append("4...1.6...9..84.71..2.......3..4...2.1..6...7......54.8...7692...91..45.6........\n");
+        text.append(puzzle);
+        byte[] bytes = text.toString().getBytes(StandardCharsets.US_ASCII);
+
+        StringWriter expected = new StringWriter();
+        new BatchSolver(Solver::new, 1).run(new BufferedReader(new StringReader(text.toString())), expected);
+
+        // Sized the way main sizes it.
+        PuzzleStore store = new PuzzleStore(bytes.length / 82 + 1);
+        store.load(new ByteArrayInputStream(bytes));
+        store.solveAll(2);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        store.write(actual);
+        assertEquals(expected.toString(), actual.toString(StandardCharsets.US_ASCII.name()));
+    }
+
+    @Test
+    void growsPastItsCapacity() {
+        Board[] puzzles = Corpus.load(Corpus.HARD);
+        PuzzleStore store = new PuzzleStore(5);
+        for (int i = 0; i < 5; i++) {
+            store.add(puzzles[i]);
+        }
+        assertEquals(5L * PuzzleStore.SLOT_BYTES, store.getAllocatedBytes());
+
+        int slots = PuzzleStore.CHUNK_SLOTS + 100;
+        for (int i = 5; i < slots; i++) {
+            if (i % 3 == 0) {
+                store.add("bad");
+            } else {
+                store.add(puzzles[i % puzzles.length]);
+            }
+        }
+        assertEquals(slots, store.size());
+        assertTrue(store.getAllocatedBytes() < 2L * slots * PuzzleStore.SLOT_BYTES);
+        for (int i : new int[] {0, 4, 5, 6, 1023, 1024, PuzzleStore.CHUNK_SLOTS - 1, PuzzleStore.CHUNK_SLOTS,
+                                PuzzleStore.CHUNK_SLOTS + 1, slots - 1}) {
+            if (i % 3 == 0 && i >= 5) {
+                assertEquals(PuzzleStore.Status.INVALID, store.getStatus(i), "slot " + i);
+            } else {
+                assertEquals(PuzzleStore.Status.PENDING, store.getStatus(i), "slot " + i);
+                assertEquals(puzzles[i % puzzles.length].toString(), store.hydrate(i).toString(), "slot " + i);
+                Solver solver = new Solver();
+                assertEquals(PuzzleStore.Status.SOLVED, store.solve(i, solver), "slot " + i);
+                Board solution = new Solver().solve(puzzles[i % puzzles.length].copy());
+                assertEquals(solution.toString(), store.hydrate(i).toString(), "slot " + i);
+            }
+        }
+    }
+
+    @Test
+    void shortBufferTakesNoSlot() {
+        byte[] bytes = line(Corpus.load(Corpus.HARD)[0]).getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer source = ByteBuffer.wrap(bytes);
+        PuzzleStore store = new PuzzleStore(2);
+        assertThrows(IndexOutOfBoundsException.class, () -> store.add(source, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.add(source, -1));
+        assertEquals(0, store.size());
+        assertEquals(0, store.add(source, 0));
+        assertEquals(PuzzleStore.Status.PENDING, store.getStatus(0));
+    }
+
+    private static String line(Board puzzle) {
+        char[] values = new char[81];
+        puzzle.getValues(values, 0);
+        StringBuilder line = new StringBuilder();
+        for (char value : values) {
+            line.append(value == Board.EMPTY ? '.' : value);
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Node limits, cancellation and the lifetime of a Solver's budget.
+ */
+class SolveBudgetTest {
+    // Needs 25 nodes with the default settings.
+    private static final String HARD =
+            "48.3............71.2.......7.5....6....2..8.............1.76...3.....4......5....";
+    private static final String EMPTY =
+            ".................................................................................";
+
+    @Test
+    void nodeLimitStopsTheSearch() {
+        Solver solver = new Solver();
+        SolveBudget budget = new SolveBudget();
+        budget.setMaxNodes(1);
+        solver.setBudget(budget);
+        assertNull(solver.solve(Board.parse(HARD)));
+        assertEquals(SolveBudget.Limit.NODES, solver.getStats().getLimitReached());
+    }
+
+    @Test
+    void budgetOnlyLimitsTheNextSolve() {
+        Solver solver = new Solver();
+        SolveBudget budget = new SolveBudget();
+        budget.setMaxNodes(1);
+        solver.setBudget(budget);
+        assertNull(solver.solve(Board.parse(HARD)));
+        assertNull(solver.getBudget());
+
+        Board solution = solver.solve(Board.parse(HARD));
+        assertNotNull(solution);
+        assertNull(solver.getStats().getLimitReached());
+    }
+
+    @Test
+    void cancelledBudgetStopsTheSearch() {
+        Solver solver = new Solver();
+        SolveBudget budget = new SolveBudget();
+        budget.cancel();
+        solver.setBudget(budget);
+        assertNull(solver.solve(Board.parse(HARD)));
+        assertEquals(SolveBudget.Limit.CANCELLED, solver.getStats().getLimitReached());
+    }
+
+    @Test
+    void everySearchModeHonoursTheBudget() {
+        for (Solver.SearchMode mode : Solver.SearchMode.values()) {
+            Solver solver = new Solver();
+            solver.setSearchMode(mode);
+            SolveBudget budget = new SolveBudget();
+            budget.setMaxNodes(1);
+            solver.setBudget(budget);
+            assertNull(solver.solve(Board.parse(HARD)), mode.name());
+            assertEquals(SolveBudget.Limit.NODES, budget.getLimitReached(), mode.name());
+        }
+    }
+
+    @Test
+    void countReportsAnExhaustedBudget() {
+        Solver solver = new Solver(Board.parse(EMPTY));
+        SolveBudget budget = new SolveBudget();
+        budget.setMaxNodes(30);
+        solver.setBudget(budget);
+        assertEquals(-1, solver.countSolutions(1000));
+        assertNull(solver.getBudget());
+    }
+
+    @Test
+    void uniquenessIsNotClaimedWhenTheBudgetRunsOut() {
+        // The first solution takes 25 nodes and the proof that there is no second one 55.
+        Solver solver = new Solver(Board.parse(HARD));
+        SolveBudget budget = new SolveBudget();
+        budget.setMaxNodes(40);
+        solver.setBudget(budget);
+        assertFalse(solver.isUnique());
+        assertNotNull(solver.getFirstSolution());
+
+        // The budget is gone, so the same solver now settles it.
+        assertTrue(solver.isUnique());
+    }
+}
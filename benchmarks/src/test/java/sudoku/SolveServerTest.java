@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Admission and per-request limits of the HTTP service.
+ */
+class SolveServerTest {
+    private static final String HARD =
+            "48.3............71.2.......7.5....6....2..8.............1.76...3.....4......5....";
+    private static final int QUEUE_CAPACITY = 4;
+
+    private SolveServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new SolveServer(0, 1, QUEUE_CAPACITY, 0, 0);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    @Test
+    void solvesEveryLineInOrder() throws IOException {
+        Response response = post("/solve", HARD + "\nnot a puzzle\n" + HARD + "\n");
+        assertEquals(200, response.status);
+        String[] lines = response.body.split("\n");
+        assertEquals(3, lines.length);
+        Board solution = new Solver().solve(Board.parse(HARD));
+        assertEquals(solution.toString(), Board.parse(lines[0]).toString());
+        assertEquals("invalid", lines[1]);
+        assertEquals(lines[0], lines[2]);
+    }
+
+    @Test
+    void nodeLimitIsReportedPerPuzzle() throws IOException {
+        Response response = post("/solve?nodes=1", HARD + "\n");
+        assertEquals(200, response.status);
+        assertEquals("node-limit", response.body.trim());
+    }
+
+    @Test
+    void requestLargerThanTheQueueIsRefused() throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i <= QUEUE_CAPACITY; i++) {
+            body.append(HARD).append('\n');
+        }
+        // It could never be admitted, so it must not be told to retry.
+        Response response = post("/solve", body.toString());
+        assertEquals(413, response.status);
+        assertTrue(response.body.contains(String.valueOf(QUEUE_CAPACITY)));
+    }
+
+    @Test
+    void overlongLineIsRefused() throws IOException {
+        StringBuilder line = new StringBuilder(HARD);
+        while (line.length() <= SolveServer.MAX_LINE_LENGTH) {
+            line.append(' ');
+        }
+        Response response = post("/solve", line.append(HARD).append('\n').toString());
+        assertEquals(413, response.status);
+        assertTrue(response.body.contains(String.valueOf(SolveServer.MAX_LINE_LENGTH)));
+    }
+
+    @Test
+    void carriageReturnsEndLines() throws IOException {
+        Response response = post("/solve", HARD + "\r\n\r\n" + HARD + "\r" + HARD);
+        assertEquals(200, response.status);
+        assertEquals(3, response.body.split("\n").length);
+    }
+
+    private static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private Response post(String path, String body) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.US_ASCII));
+            }
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            if (in != null) {
+                try (InputStream stream = in) {
+                    stream.transferTo(bytes);
+                }
+            }
+            return new Response(status, new String(bytes.toByteArray(), StandardCharsets.US_ASCII));
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The search modes agree with each other and leave failed puzzles as they found them.
+ */
+class SolverTest {
+    // Has no solution, but propagation places several values before that shows.
+    private static final String UNSOLVABLE =
+            "4...1.6...9..84.71..2.......3..4...2.1..6...7......54.8...7692...91..45.6........";
+
+    @Test
+    void everyModeFindsTheSameSolutions() {
+        for (Board puzzle : Corpus.load(Corpus.HARD)) {
+            Board expected = new Solver().solve(puzzle.copy());
+            assertNotNull(expected);
+            for (Solver.SearchMode mode : Solver.SearchMode.values()) {
+                Solver solver = new Solver();
+                solver.setSearchMode(mode);
+                Board solution = solver.solve(puzzle.copy());
+                assertNotNull(solution, mode.name());
+                assertEquals(expected.toString(), solution.toString(), mode.name());
+            }
+        }
+    }
+
+    @Test
+    void failedSearchLeavesTheBoardAsItWas() {
+        // COPY mode is documented to leave its propagation on the board.
+        Solver.SearchMode[] modes = {
+            Solver.SearchMode.IN_PLACE, Solver.SearchMode.LEARNING, Solver.SearchMode.PARALLEL
+        };
+        for (Solver.SearchMode mode : modes) {
+            Board puzzle = Board.parse(UNSOLVABLE);
+            Solver solver = new Solver();
+            solver.setSearchMode(mode);
+            assertNull(solver.solve(puzzle), mode.name());
+            assertEquals(Board.parse(UNSOLVABLE).toString(), puzzle.toString(), mode.name());
+            assertEquals(Board.parse(UNSOLVABLE).getEmptySpaces(), puzzle.getEmptySpaces(), mode.name());
+        }
+    }
+
+    @Test
+    void solveAfterCountingStillPropagatesTheGivens() {
+        String nearlyComplete =
+                "674925813195638247283741965549187326318296574762453198956872431827314659431569.82";
+        for (Solver.SearchMode mode : Solver.SearchMode.values()) {
+            Board puzzle = Board.parse(nearlyComplete);
+            Solver solver = new Solver(puzzle);
+            solver.setBranchPolicy(Solver.BranchPolicy.FIRST_CELL);
+            solver.setSearchMode(mode);
+            assertTrue(solver.isUnique(), mode.name());
+            Board solution = solver.solve();
+            assertNotNull(solution, mode.name());
+            assertEquals(0, solution.getEmptySpaces(), mode.name());
+        }
+        for (Board puzzle : Corpus.load(Corpus.HARD)) {
+            Board expected = new Solver().solve(puzzle.copy());
+            Solver solver = new Solver(puzzle.copy());
+            solver.setBranchPolicy(Solver.BranchPolicy.FIRST_CELL);
+            solver.countSolutions(2);
+            Board solution = solver.solve();
+            assertNotNull(solution);
+            assertEquals(expected.toString(), solution.toString());
+        }
+    }
+}
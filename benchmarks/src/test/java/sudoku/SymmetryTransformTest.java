@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Canonical forms are shared by every transformation of a puzzle, and solutions map back.
+ */
+class SymmetryTransformTest {
+    @Test
+    void transformedPuzzlesShareTheCanonicalForm() {
+        Random random = new Random(1);
+        for (String tier : new String[] {Corpus.EASY, Corpus.HARD, Corpus.MINIMAL_17, Corpus.KILLERS}) {
+            for (Board puzzle : Corpus.load(tier)) {
+                String form = SymmetryTransform.canonicalize(puzzle).apply(puzzle);
+                for (int i = 0; i < 5; i++) {
+                    Board transformed = Board.parse(transform(values(puzzle), random));
+                    assertEquals(form, SymmetryTransform.canonicalize(transformed).apply(transformed));
+                }
+            }
+        }
+    }
+
+    @Test
+    void canonicalSolutionMapsBack() {
+        for (Board puzzle : Corpus.load(Corpus.HARD)) {
+            Board solution = new Solver().solve(puzzle.copy());
+            assertNotNull(solution);
+            SymmetryTransform transform = SymmetryTransform.canonicalize(puzzle);
+            Board board = puzzle.copy();
+            transform.unapply(transform.apply(solution), board);
+            assertEquals(solution.toString(), board.toString());
+        }
+    }
+
+    @Test
+    void degenerateBoardsStillGetAValidTransformation() {
+        String[] boards = {
+            ".................................................................................",
+            "123456789........................................................................"
+        };
+        for (String line : boards) {
+            Board puzzle = Board.parse(line);
+            Board solution = new Solver().solve(puzzle.copy());
+            SymmetryTransform transform = SymmetryTransform.canonicalize(puzzle);
+            Board board = Board.parse(line);
+            transform.unapply(transform.apply(solution), board);
+            assertEquals(solution.toString(), board.toString());
+        }
+    }
+
+    private static String values(Board board) {
+        char[] values = new char[81];
+        board.getValues(values, 0);
+        return new String(values);
+    }
+
+    /**
+     * Applies a random transposition, band, row, stack and column order, and relabeling
+     */
+    private static String transform(String puzzle, Random random) {
+        int[] rows = lineOrder(random);
+        int[] cols = lineOrder(random);
+        boolean transpose = random.nextBoolean();
+        List<Character> digits = new ArrayList<>();
+        for (char d = '1'; d <= '9'; d++) {
+            digits.add(d);
+        }
+        Collections.shuffle(digits, random);
+        char[] result = new char[81];
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                char c = transpose ? puzzle.charAt(cols[j] * 9 + rows[i]) : puzzle.charAt(rows[i] * 9 + cols[j]);
+                result[i * 9 + j] = c >= '1' && c <= '9' ? digits.get(c - '1') : '.';
+            }
+        }
+        return new String(result);
+    }
+
+    private static int[] lineOrder(Random random) {
+        List<Integer> bands = new ArrayList<>(Arrays.asList(0, 1, 2));
+        Collections.shuffle(bands, random);
+        int[] order = new int[9];
+        int n = 0;
+        for (int band : bands) {
+            List<Integer> lines = new ArrayList<>(Arrays.asList(0, 1, 2));
+            Collections.shuffle(lines, random);
+            for (int line : lines) {
+                order[n++] = band * 3 + line;
+            }
+        }
+        return order;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2025, All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Every engine that accepts a variant returns grids that keep its clues and obey its
+ * rules, checked here straight from the layouts rather than through RuleSet.
+ */
+class VariantTest {
+    private static final int CELLS = 81;
+    private static final Solver.SearchMode[] MODES = Solver.SearchMode.values();
+
+    @Test
+    void classicRulesGiveTheClassicSolutions() {
+        for (Board puzzle : Corpus.load(Corpus.HARD)) {
+            String line = line(puzzle);
+            Board expected = new Solver().solve(Board.parse(line));
+            Board actual = new Solver().solve(Board.parse(line, RuleSet.CLASSIC));
+            assertNotNull(expected);
+            assertEquals(expected.toString(), actual.toString());
+        }
+    }
+
+    @Test
+    void xSolutionsKeepTheDiagonals() {
+        Board empty = new Solver().solve(new Board(RuleSet.X_DIAGONAL));
+        assertNotNull(empty);
+        check(empty, null, true, null, null, new char[CELLS]);
+        solveEveryWay(RuleSet.X_DIAGONAL, clues(values(empty), 28, new Random(1)), null, true, null, null);
+    }
+
+    @Test
+    void jigsawSolutionsFillTheRegions() {
+        char[] grid = values(new Solver().solve(Corpus.load(Corpus.HARD)[0].copy()));
+        String regions = regionsFor(grid, new Random(2));
+        RuleSet rules = RuleSet.jigsaw(regions);
+        solveEveryWay(rules, new char[CELLS], regions, false, null, null);
+        solveEveryWay(rules, clues(grid, 30, new Random(3)), regions, false, null, null);
+    }
+
+    @Test
+    void killerSolutionsAddUpInEveryCage() {
+        char[] grid = values(new Solver().solve(Corpus.load(Corpus.HARD)[1].copy()));
+        // Dominoes along each row, and the last column in single cells.
+        StringBuilder layout = new StringBuilder();
+        int[] sums = new int[45];
+        int cage = 0;
+        for (int i = 0; i < CELLS; i++) {
+            int col = i % 9;
+            if (col % 2 == 1) {
+                layout.append(layout.charAt(i - 1));
+                sums[cage - 1] += grid[i] - '0';
+            } else {
+                layout.append((char) ('A' + cage));
+                sums[cage++] = grid[i] - '0';
+            }
+        }
+        RuleSet rules = RuleSet.killer(layout, sums);
+        solveEveryWay(rules, clues(grid, 8, new Random(4)), null, false, layout.toString(), sums);
+        solveEveryWay(rules, new char[CELLS], null, false, layout.toString(), sums);
+    }
+
+    @Test
+    void dancingLinksRejectsVariants() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> new DancingLinksSolver().solve(new Board(RuleSet.X_DIAGONAL)));
+    }
+
+    /**
+     * Solves a puzzle with every Solver mode and the bit-sliced engine's fallback
+     * and checks each answer independently
+     */
+    private static void solveEveryWay(RuleSet rules, char[] clues, String regions, boolean diagonals,
+                                      String cages, int[] sums) {
+        String line = blanksAsDots(clues);
+        for (Solver.SearchMode mode : MODES) {
+            Solver solver = new Solver();
+            solver.setSearchMode(mode);
+            Board solution = solver.solve(Board.parse(line, rules));
+            assertNotNull(solution, mode.name());
+            check(solution, regions, diagonals, cages, sums, clues);
+        }
+        Board solution = new BitSlicedSolver().solve(Board.parse(line, rules));
+        assertNotNull(solution);
+        check(solution, regions, diagonals, cages, sums, clues);
+    }
+
+    /**
+     * @param regions The region of each cell, or null for the 3x3 boxes
+     * @param cages The cage layout, or null for none
+     * @param clues The clues the solution must keep, '\0' for none
+     */
+    private static void check(Board solution, String regions, boolean diagonals, String cages, int[] sums,
+                              char[] clues) {
+        char[] grid = values(solution);
+        for (int i = 0; i < CELLS; i++) {
+            assertTrue(grid[i] >= '1' && grid[i] <= '9', "cell " + i + " is filled");
+            assertTrue(clues[i] == 0 || clues[i] == grid[i], "cell " + i + " keeps its clue");
+        }
+        for (int a = 0; a < CELLS; a++) {
+            for (int b = a + 1; b < CELLS; b++) {
+                boolean shared = a / 9 == b / 9 || a % 9 == b % 9
+                        || (regions != null ? regions.charAt(a) == regions.charAt(b) : box(a) == box(b))
+                        || (diagonals && (a / 9 == a % 9 && b / 9 == b % 9
+                                          || a / 9 + a % 9 == 8 && b / 9 + b % 9 == 8))
+                        || (cages != null && cages.charAt(a) != '.' && cages.charAt(a) == cages.charAt(b));
+                assertTrue(!shared || grid[a] != grid[b], "cells " + a + " and " + b + " differ");
+            }
+        }
+        if (cages != null) {
+            int[] totals = new int[sums.length];
+            for (int i = 0; i < CELLS; i++) {
+                totals[cages.charAt(i) - 'A'] += grid[i] - '0';
+            }
+            for (int c = 0; c < sums.length; c++) {
+                assertEquals(sums[c], totals[c], "cage " + c);
+            }
+        }
+    }
+
+    private static int box(int cell) {
+        return cell / 27 * 3 + cell % 9 / 3;
+    }
+
+    /**
+     * Builds a region layout that the solved grid obeys: the boxes, with pairs of
+     * cells that hold the same digit swapped between neighbouring boxes.
+     */
+    private static String regionsFor(char[] grid, Random random) {
+        char[] regions = new char[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            regions[i] = (char) ('1' + box(i));
+        }
+        int swapped = 0;
+        for (int tries = 0; tries < 200 && swapped < 10; tries++) {
+            int a = random.nextInt(CELLS);
+            int b = random.nextInt(CELLS);
+            if (grid[a] == grid[b] && regions[a] != regions[b]) {
+                char region = regions[a];
+                regions[a] = regions[b];
+                regions[b] = region;
+                swapped++;
+            }
+        }
+        assertTrue(swapped > 0, "the layout is not the boxes");
+        return new String(regions);
+    }
+
+    private static char[] clues(char[] grid, int count, Random random) {
+        char[] clues = new char[CELLS];
+        int placed = 0;
+        while (placed < count) {
+            int i = random.nextInt(CELLS);
+            if (clues[i] == 0) {
+                clues[i] = grid[i];
+                placed++;
+            }
+        }
+        return clues;
+    }
+
+    private static char[] values(Board board) {
+        char[] values = new char[CELLS];
+        board.getValues(values, 0);
+        return values;
+    }
+
+    private static String blanksAsDots(char[] clues) {
+        StringBuilder line = new StringBuilder();
+        for (char c : clues) {
+            line.append(c == 0 ? '.' : c);
+        }
+        return line.toString();
+    }
+
+    private static String line(Board puzzle) {
+        StringBuilder line = new StringBuilder();
+        for (char value : values(puzzle)) {
+            line.append(value == Board.EMPTY ? '.' : value);
+        }
+        return line.toString();
+    }
+}